@@ -0,0 +1,129 @@
+/*
+ * Copyright 2025 Robert James Drabant II, ThinkREG
+ * https://www.linkedin.com/in/robert-drabant/
+ *
+ * This code was independently developed by ThinkREG for use with Epson printer ColorWorks CW-C4000.
+ * Neither ThinkREG or Epson America, Inc. provide any warranties or support for this code.
+ * “Epson” is the registered trademark of Epson America, Inc. and its affiliates in the
+ * United States and other countries. Epson reserves all rights to its trademarks.
+ * Epson and ThinkREG are independent companies.
+ *
+ * From the author, this was created because I wanted a cleaner way to print to our Epsons we use in
+ * conference and event management. We have mostly 4000s, but this should
+ * work with any Epson that supports ZPLII/ESC. I also want to thank team
+ * members at Epson for their support.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thinkreg.print;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+
+
+/**
+ * Badges that look like the ones we print at events, so the encoders see the same flat colour,
+ * anti-aliased text and bit of gradient they do in production.
+ */
+final class BadgeRasters{
+
+	//4" x 3", the stock most of our events use
+	private static final double WIDTH_INCHES = 4.0;
+	private static final double HEIGHT_INCHES = 3.0;
+
+	private BadgeRasters(){
+	}
+
+	/**
+	 * A badge at this resolution. Different variants have a different name and QR code, so they
+	 * hash and encode differently.
+	 * @param dpi
+	 * @param variant
+	 * @return
+	 */
+	static BufferedImage badge(int dpi, int variant) {
+
+		int width = (int) (WIDTH_INCHES * dpi);
+		int height = (int) (HEIGHT_INCHES * dpi);
+
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = image.createGraphics();
+		try {
+			g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+			g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+
+			g.setColor(Color.WHITE);
+			g.fillRect(0, 0, width, height);
+
+			//event banner across the top
+			g.setPaint(new GradientPaint(0, 0, new Color(0x1F4E79), width, 0, new Color(0x2E86C1)));
+			g.fillRect(0, 0, width, height / 5);
+			g.setColor(Color.WHITE);
+			g.setFont(new Font(Font.SANS_SERIF, Font.BOLD, dpi / 4));
+			g.drawString("ANNUAL CONFERENCE 2026", dpi / 8, height / 8);
+
+			//logo
+			g.setColor(new Color(0xF39C12));
+			g.fillOval(width - dpi, height / 5 + dpi / 8, dpi * 3 / 4, dpi * 3 / 4);
+
+			//attendee
+			g.setColor(Color.BLACK);
+			g.setFont(new Font(Font.SANS_SERIF, Font.BOLD, dpi / 3));
+			g.drawString("Attendee " + variant, dpi / 8, height / 2);
+			g.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, dpi / 6));
+			g.drawString("Company Name Inc.", dpi / 8, height / 2 + dpi / 4);
+
+			//ribbon along the bottom
+			g.setColor(new Color(0xC0392B));
+			g.fillRect(0, height - height / 8, width, height / 8);
+
+			//stand-in for the QR code, a module grid seeded by the variant
+			int module = Math.max(2, dpi / 50);
+			int left = width - module * 29 - dpi / 8;
+			int top = height - height / 8 - module * 29 - dpi / 16;
+			long seed = 0x9E3779B97F4A7C15L * (variant + 1);
+			g.setColor(Color.BLACK);
+			for(int y = 0; y < 25; y++) {
+				for(int x = 0; x < 25; x++) {
+					seed ^= seed << 13;
+					seed ^= seed >>> 7;
+					seed ^= seed << 17;
+					if((seed & 1) == 0) {
+						g.fillRect(left + (x + 2) * module, top + (y + 2) * module, module, module);
+					}
+				}
+			}
+			g.setStroke(new BasicStroke(module));
+			g.drawRect(left, top, module * 29, module * 29);
+		}finally {
+			g.dispose();
+		}
+
+		return image;
+	}
+
+	static EpsonZplPrintJob.DPI dpi(int resolution) {
+		for(EpsonZplPrintJob.DPI dpi: EpsonZplPrintJob.DPI.values()) {
+			if(dpi.getResolution() == resolution) {
+				return dpi;
+			}
+		}
+		throw new IllegalArgumentException("No DPI for " + resolution);
+	}
+
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2025 Robert James Drabant II, ThinkREG
+ * https://www.linkedin.com/in/robert-drabant/
+ *
+ * This code was independently developed by ThinkREG for use with Epson printer ColorWorks CW-C4000.
+ * Neither ThinkREG or Epson America, Inc. provide any warranties or support for this code.
+ * “Epson” is the registered trademark of Epson America, Inc. and its affiliates in the
+ * United States and other countries. Epson reserves all rights to its trademarks.
+ * Epson and ThinkREG are independent companies.
+ *
+ * From the author, this was created because I wanted a cleaner way to print to our Epsons we use in
+ * conference and event management. We have mostly 4000s, but this should
+ * work with any Epson that supports ZPLII/ESC. I also want to thank team
+ * members at Epson for their support.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thinkreg.print;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.ImageIO;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Turning one badge into its upload the way print() does, at each resolution the printer takes.
+ * ImageIO is there as the baseline the built in encoder replaced.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PngEncodeBenchmark{
+
+	@Param({"200", "300", "600"})
+	public int dpi;
+
+	private BufferedImage badge;
+	private EpsonZplPngEncoder pngEncoder;
+	private EpsonZplGraphicEncoder uploadEncoder;
+
+	@Setup
+	public void setup() {
+		badge = BadgeRasters.badge(dpi, 1);
+		pngEncoder = new EpsonZplPngEncoder();
+		pngEncoder.setParallelism(1);	//one badge on one core, batches spread badges across cores instead
+		uploadEncoder = new EpsonZplPngGraphicEncoder(pngEncoder);
+	}
+
+	/**
+	 * Just the PNG
+	 * @return
+	 * @throws IOException
+	 */
+	@Benchmark
+	public byte[] png() throws IOException {
+		return pngEncoder.encode(badge);
+	}
+
+	/**
+	 * The PNG with the ~DY upload command in front, what a batch label costs when it isn't cached
+	 * @return
+	 * @throws IOException
+	 */
+	@Benchmark
+	public EpsonZplGraphic upload() throws IOException {
+		return uploadEncoder.encode(badge, "RGBENCH");
+	}
+
+	@Benchmark
+	public byte[] imageIO() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(badge, "png", out);
+		return out.toByteArray();
+	}
+
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2025 Robert James Drabant II, ThinkREG
+ * https://www.linkedin.com/in/robert-drabant/
+ *
+ * This code was independently developed by ThinkREG for use with Epson printer ColorWorks CW-C4000.
+ * Neither ThinkREG or Epson America, Inc. provide any warranties or support for this code.
+ * “Epson” is the registered trademark of Epson America, Inc. and its affiliates in the
+ * United States and other countries. Epson reserves all rights to its trademarks.
+ * Epson and ThinkREG are independent companies.
+ *
+ * From the author, this was created because I wanted a cleaner way to print to our Epsons we use in
+ * conference and event management. We have mostly 4000s, but this should
+ * work with any Epson that supports ZPLII/ESC. I also want to thank team
+ * members at Epson for their support.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thinkreg.print;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Reading the status block that ends every call to the printer, from a socket that replays a
+ * C4000's replies so only the parsing is measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReplyParseBenchmark{
+
+	//what a C4000 sends back for the status block, one frame per query
+	private static final byte[] REPLIES = (
+			"\u0002^S(SEA,E,NE\u0003\r\n" +
+			"\u0002^S(CPC,C,0\u0003\r\n" +
+			"\u0002IQ,RH,RM,RL,RN\u0003\r\n" +
+			"\u0002MN,RM\u0003\r\n" +
+			"\u0002^S(IMF,V,WAM31000\u0003\r\n" +
+			"\u0002^S(IMP,S,X5Q1234567\u0003\r\n").getBytes(StandardCharsets.ISO_8859_1);
+
+	private ReplayStream replies;
+	private EpsonZplConnection connection;
+
+	@Setup
+	public void setup() throws IOException {
+		replies = new ReplayStream(REPLIES);
+		connection = new EpsonZplConnection(new ReplaySocket(replies));
+	}
+
+	@Benchmark
+	public EpsonZplPrinterResponse statusBlock() throws IOException {
+
+		replies.rewind();
+
+		EpsonZplPrinterResponse response = new EpsonZplPrinterResponse();
+		new EpsonZplReplyReader(EnumSet.allOf(EpsonZplReplyReader.STATUS_QUERY.class)).read(connection, response);
+		return response;
+	}
+
+
+	/**
+	 * Hands out the same bytes every time it's rewound, the way the printer would send them
+	 */
+	private static final class ReplayStream extends InputStream{
+
+		private final byte[] bytes;
+		private int pos = 0;
+
+		ReplayStream(byte[] bytes){
+			this.bytes = bytes;
+		}
+
+		void rewind() {
+			pos = 0;
+		}
+
+		@Override
+		public int read() {
+			return pos < bytes.length ? bytes[pos++] & 0xFF : -1;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			if(pos >= bytes.length) {
+				return -1;
+			}
+			int n = Math.min(len, bytes.length - pos);
+			System.arraycopy(bytes, pos, b, off, n);
+			pos += n;
+			return n;
+		}
+
+		@Override
+		public int available() {
+			return bytes.length - pos;
+		}
+	}
+
+	/**
+	 * An unconnected socket that reads from the replay stream and throws away what's written
+	 */
+	private static final class ReplaySocket extends Socket{
+
+		private final InputStream in;
+
+		ReplaySocket(InputStream in){
+			this.in = in;
+		}
+
+		@Override
+		public InputStream getInputStream() {return in;}
+
+		@Override
+		public OutputStream getOutputStream() {
+			return new OutputStream() {
+				@Override
+				public void write(int b) {
+				}
+			};
+		}
+
+		@Override
+		public void setKeepAlive(boolean on) {}
+
+		@Override
+		public void setTcpNoDelay(boolean on) {}
+
+		@Override
+		public void setSoTimeout(int timeout) {}
+	}
+
+}
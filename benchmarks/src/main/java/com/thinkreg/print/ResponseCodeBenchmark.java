@@ -0,0 +1,79 @@
+/*
+ * Copyright 2025 Robert James Drabant II, ThinkREG
+ * https://www.linkedin.com/in/robert-drabant/
+ *
+ * This code was independently developed by ThinkREG for use with Epson printer ColorWorks CW-C4000.
+ * Neither ThinkREG or Epson America, Inc. provide any warranties or support for this code.
+ * “Epson” is the registered trademark of Epson America, Inc. and its affiliates in the
+ * United States and other countries. Epson reserves all rights to its trademarks.
+ * Epson and ThinkREG are independent companies.
+ *
+ * From the author, this was created because I wanted a cleaner way to print to our Epsons we use in
+ * conference and event management. We have mostly 4000s, but this should
+ * work with any Epson that supports ZPLII/ESC. I also want to thank team
+ * members at Epson for their support.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thinkreg.print;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+
+/**
+ * The code lookups on {@link EpsonZplPrinterResponse}, run for every reply and every dashboard refresh.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseCodeBenchmark{
+
+	//mostly NE like a real floor, a few errors, one we don't know
+	private static final String[] ERROR_CODES = {"NE", "NE", "NE", "NE", "SJ", "CM", "NE", "MN", "UNKNOWN", "ZZ"};
+
+	private static final String[] INK_CODES = {"RH", "RM", "RL", "RN", "RR", "NA", "CI", null};
+
+	@Benchmark
+	@OperationsPerInvocation(10)
+	public void setErrorCode(Blackhole blackhole) {
+		for(String code: ERROR_CODES) {
+			EpsonZplPrinterResponse response = new EpsonZplPrinterResponse();
+			response.setErrorCode(code);
+			blackhole.consume(response.getErrorCode());
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(8)
+	public void getPercentForCode(Blackhole blackhole) {
+		for(String code: INK_CODES) {
+			blackhole.consume(EpsonZplPrinterResponse.getPercentForCode(code));
+		}
+	}
+
+}
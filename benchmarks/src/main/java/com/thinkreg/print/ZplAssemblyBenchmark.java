@@ -0,0 +1,132 @@
+/*
+ * Copyright 2025 Robert James Drabant II, ThinkREG
+ * https://www.linkedin.com/in/robert-drabant/
+ *
+ * This code was independently developed by ThinkREG for use with Epson printer ColorWorks CW-C4000.
+ * Neither ThinkREG or Epson America, Inc. provide any warranties or support for this code.
+ * “Epson” is the registered trademark of Epson America, Inc. and its affiliates in the
+ * United States and other countries. Epson reserves all rights to its trademarks.
+ * Epson and ThinkREG are independent companies.
+ *
+ * From the author, this was created because I wanted a cleaner way to print to our Epsons we use in
+ * conference and event management. We have mostly 4000s, but this should
+ * work with any Epson that supports ZPLII/ESC. I also want to thank team
+ * members at Epson for their support.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thinkreg.print;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Writing a batch of already encoded labels onto the connection's stream, the header, uploads,
+ * recalls and the resident graphics bookkeeping, without the socket. COLD is a fresh connection where
+ * every label has to be uploaded, WARM is a reprint where the printer already has every badge.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ZplAssemblyBenchmark{
+
+	private static final int LABELS = 50;
+
+	@Param({"COLD", "WARM"})
+	public String residency;
+
+	private EpsonZplPrintJob job;
+	private EpsonZplResidentGraphics resident;
+	private final List<EpsonZplPrintJob.EncodedGraphic> labels = new ArrayList<EpsonZplPrintJob.EncodedGraphic>();
+	private final CountingSink sink = new CountingSink();
+	private OutputStream out;
+
+	@Setup
+	public void setup() throws IOException {
+
+		job = new EpsonZplPrintJob("benchmark", 0);
+		job.setDpi(EpsonZplPrintJob.DPI.DPI_300);
+		job.setPayloadCache(null);
+
+		for(int i = 0; i < LABELS; i++) {
+			labels.add(job.encodeResidentGraphic(BadgeRasters.badge(300, i)));
+		}
+
+		resident = EpsonZplResidentGraphics.forPrinter("benchmark", 0);
+		resident.setMemoryBudget(Long.MAX_VALUE / 2);
+		resident.reset();
+
+		//same size buffer the connection writes through
+		out = new BufferedOutputStream(sink, 64 * 1024);
+
+		//WARM starts with everything on the printer
+		batch();
+	}
+
+	@Benchmark
+	public long batch() throws IOException {
+
+		if("COLD".equals(residency)) {
+			resident.reset();
+		}
+
+		sink.count = 0L;
+		job.writeBatchHeader(out, resident);
+		for(EpsonZplPrintJob.EncodedGraphic label: labels) {
+			job.writeLabel(out, resident, label);
+		}
+		out.flush();
+
+		return sink.count;
+	}
+
+
+	/**
+	 * Stands in for the socket, counts and drops
+	 */
+	private static final class CountingSink extends OutputStream{
+
+		private long count = 0L;
+
+		@Override
+		public void write(int b) {
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			count += len;
+		}
+	}
+
+}
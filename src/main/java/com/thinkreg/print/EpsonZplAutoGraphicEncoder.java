@@ -0,0 +1,79 @@
+/*
+ * Copyright 2025 Robert James Drabant II, ThinkREG
+ * https://www.linkedin.com/in/robert-drabant/
+ *
+ * This code was independently developed by ThinkREG for use with Epson printer ColorWorks CW-C4000.
+ * Neither ThinkREG or Epson America, Inc. provide any warranties or support for this code.
+ * “Epson” is the registered trademark of Epson America, Inc. and its affiliates in the
+ * United States and other countries. Epson reserves all rights to its trademarks.
+ * Epson and ThinkREG are independent companies.
+ *
+ * From the author, this was created because I wanted a cleaner way to print to our Epsons we use in
+ * conference and event management. We have mostly 4000s, but this should
+ * work with any Epson that supports ZPLII/ESC. I also want to thank team
+ * members at Epson for their support.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thinkreg.print;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+
+/**
+ * Picks the format per image. Anything with colour or grey in it goes as PNG, since Z64 would lose
+ * it. A pure black and white image is encoded both ways and whichever upload is smaller is used,
+ * which for text only badges is nearly always Z64.
+ */
+public class EpsonZplAutoGraphicEncoder implements EpsonZplGraphicEncoder{
+
+	public static final String NAME = "AUTO";
+
+	private final EpsonZplGraphicEncoder png;
+	private final EpsonZplGraphicEncoder z64;
+
+
+	public EpsonZplAutoGraphicEncoder(EpsonZplPngEncoder pngEncoder){
+		this(new EpsonZplPngGraphicEncoder(pngEncoder), new EpsonZplZ64GraphicEncoder());
+	}
+
+	public EpsonZplAutoGraphicEncoder(EpsonZplGraphicEncoder png, EpsonZplGraphicEncoder z64){
+		this.png = png;
+		this.z64 = z64;
+	}
+
+
+	/**
+	 * AUTO plus the names of both encoders it picks between
+	 */
+	@Override
+	public String getName() {
+		return NAME + "(" + png.getName() + "," + z64.getName() + ")";
+	}
+
+	@Override
+	public EpsonZplGraphic encode(BufferedImage image, String name) throws IOException {
+
+		if(!EpsonZplZ64GraphicEncoder.isBlackAndWhite(image)) {
+			return png.encode(image, name);
+		}
+
+		EpsonZplGraphic asZ64 = z64.encode(image, name);
+		EpsonZplGraphic asPng = png.encode(image, name);
+
+		return asZ64.getSize() <= asPng.getSize() ? asZ64 : asPng;
+	}
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2025 Robert James Drabant II, ThinkREG
+ * https://www.linkedin.com/in/robert-drabant/
+ *
+ * This code was independently developed by ThinkREG for use with Epson printer ColorWorks CW-C4000.
+ * Neither ThinkREG or Epson America, Inc. provide any warranties or support for this code.
+ * “Epson” is the registered trademark of Epson America, Inc. and its affiliates in the
+ * United States and other countries. Epson reserves all rights to its trademarks.
+ * Epson and ThinkREG are independent companies.
+ *
+ * From the author, this was created because I wanted a cleaner way to print to our Epsons we use in
+ * conference and event management. We have mostly 4000s, but this should
+ * work with any Epson that supports ZPLII/ESC. I also want to thank team
+ * members at Epson for their support.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thinkreg.print;
+
+import java.awt.image.BufferedImage;
+
+
+/**
+ * The part of a badge that is the same for everyone, the event artwork and sponsor logos. It is
+ * stored on the printer once under its own name and left there, and each badge printed with it
+ * only sends the attendee's details as {@link EpsonZplOverlay}s on top.
+ * See {@link EpsonZplPrintJob#printWithTemplate}.
+ */
+public class EpsonZplBadgeTemplate{
+
+	private final String name;
+	private final BufferedImage background;
+
+
+	/**
+	 * @param name stored on the printer as R:name, letters and digits only, up to 8 of them
+	 * @param background the full badge artwork, same size as the label
+	 */
+	public EpsonZplBadgeTemplate(String name, BufferedImage background){
+		if(name == null || !name.matches("[A-Za-z0-9]{1,8}")) {
+			throw new IllegalArgumentException("Template name must be 1 to 8 letters or digits: " + name);
+		}
+		if(name.equalsIgnoreCase("BADGE") || name.toUpperCase().startsWith("VAR") || 
+				name.toUpperCase().startsWith(EpsonZplResidentGraphics.NAME_PREFIX)) {
+			throw new IllegalArgumentException("Template name " + name + " is used by the print job itself");
+		}
+		this.name = name.toUpperCase();
+		this.background = background;
+	}
+
+
+	public String getName() {return name;}
+
+	public BufferedImage getBackground() {return background;}
+
+	/**
+	 * True if this template has been uploaded to the printer at ip:port by this JVM, and as far as
+	 * we know the printer hasn't restarted since. See {@link EpsonZplResidentGraphics}.
+	 * @param ip
+	 * @param port
+	 * @return
+	 */
+	public boolean isUploadedTo(String ip, int port) {
+		return EpsonZplResidentGraphics.forPrinter(ip, port).isTemplateResident(name);
+	}
+
+	@Override
+	public String toString(){
+		return "Template " + name + " " + background.getWidth() + "x" + background.getHeight();
+	}
+
+}
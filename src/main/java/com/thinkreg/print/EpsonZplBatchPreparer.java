@@ -0,0 +1,290 @@
+/*
+ * Copyright 2025 Robert James Drabant II, ThinkREG
+ * https://www.linkedin.com/in/robert-drabant/
+ *
+ * This code was independently developed by ThinkREG for use with Epson printer ColorWorks CW-C4000.
+ * Neither ThinkREG or Epson America, Inc. provide any warranties or support for this code.
+ * “Epson” is the registered trademark of Epson America, Inc. and its affiliates in the
+ * United States and other countries. Epson reserves all rights to its trademarks.
+ * Epson and ThinkREG are independent companies.
+ *
+ * From the author, this was created because I wanted a cleaner way to print to our Epsons we use in
+ * conference and event management. We have mostly 4000s, but this should
+ * work with any Epson that supports ZPLII/ESC. I also want to thank team
+ * members at Epson for their support.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thinkreg.print;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
+
+
+/**
+ * Encodes the labels of a batch on several cores while the batch is being written, and hands them
+ * back in the order they were given. Two things keep it from running away from the printer: no
+ * more than parallelism labels are ever out at once (encoding, or encoded and waiting their turn),
+ * and no new label is started while the ones already waiting, plus what the ones still encoding are
+ * expected to come to, would go over maxPendingBytes. Used by {@link EpsonZplPrintJob#printBatch()}.
+ *
+ * A preparer only holds settings, so one can be shared by every job. Each batch gets its own
+ * {@link Batch} from {@link #start}.
+ */
+public class EpsonZplBatchPreparer{
+
+	public static final long DEFAULT_MAX_PENDING_BYTES = 64L * 1024 * 1024;
+
+	private static final EpsonZplBatchPreparer DEFAULT = new EpsonZplBatchPreparer();
+
+	private volatile Executor executor = null;
+	private volatile int parallelism = Runtime.getRuntime().availableProcessors();
+	private volatile long maxPendingBytes = DEFAULT_MAX_PENDING_BYTES;
+
+
+	public EpsonZplBatchPreparer(){
+	}
+
+	public EpsonZplBatchPreparer(int parallelism, long maxPendingBytes){
+		this.setParallelism(parallelism);
+		this.setMaxPendingBytes(maxPendingBytes);
+	}
+
+
+	/**
+	 * The preparer print jobs use unless they're given their own
+	 * @return
+	 */
+	public static EpsonZplBatchPreparer getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * Starts preparing count items, the first few straight away.
+	 * @param count
+	 * @param task prepares the item at an index, called on the executor
+	 * @param sizeOf bytes a prepared item holds on to until it's taken
+	 * @return
+	 */
+	public <T> Batch<T> start(int count, Task<T> task, ToLongFunction<T> sizeOf) {
+		return new Batch<T>(count, task, sizeOf, getExecutor(), Math.max(1, parallelism), maxPendingBytes);
+	}
+
+	/**
+	 * The executor labels are encoded on, the common ForkJoin pool unless one is set
+	 * @return
+	 */
+	public Executor getExecutor() {
+		return executor == null ? ForkJoinPool.commonPool() : executor;
+	}
+	public void setExecutor(Executor executor) {this.executor = executor;}
+
+	public int getParallelism() {return parallelism;}
+
+	/**
+	 * Most labels out at once, encoding or encoded and waiting to be written. Defaults to the number
+	 * of cores. 1 still encodes the next label while this one is being sent.
+	 * @param parallelism
+	 */
+	public void setParallelism(int parallelism) {this.parallelism = Math.max(1, parallelism);}
+
+	public long getMaxPendingBytes() {return maxPendingBytes;}
+
+	/**
+	 * Cap on the encoded uploads held in memory waiting to be written. A single label bigger than
+	 * this is still encoded, one at a time.
+	 * @param maxPendingBytes
+	 */
+	public void setMaxPendingBytes(long maxPendingBytes) {this.maxPendingBytes = maxPendingBytes;}
+
+
+	/**
+	 * Prepares one item of a batch
+	 * @param <T>
+	 */
+	public interface Task<T>{
+		T prepare(int index) throws Exception;
+	}
+
+
+	/**
+	 * One batch being prepared. Only the thread consuming it may call its methods.
+	 * @param <T>
+	 */
+	public static final class Batch<T>{
+
+		private final int count;
+		private final Task<T> task;
+		private final ToLongFunction<T> sizeOf;
+		private final Executor executor;
+		private final int parallelism;
+		private final long maxPendingBytes;
+
+		private final Deque<Slot> window = new ArrayDeque<Slot>();
+		private int submitted = 0;
+
+		//finished and not taken yet, written by the encoding threads
+		private final AtomicLong pendingBytes = new AtomicLong();
+		private final AtomicLong preparedCount = new AtomicLong();
+		private final AtomicLong preparedBytes = new AtomicLong();
+		private volatile long peakPendingBytes = 0L;
+
+
+		private Batch(int count, Task<T> task, ToLongFunction<T> sizeOf, Executor executor, int parallelism, long maxPendingBytes){
+			this.count = count;
+			this.task = task;
+			this.sizeOf = sizeOf;
+			this.executor = executor;
+			this.parallelism = parallelism;
+			this.maxPendingBytes = maxPendingBytes;
+			fill();
+		}
+
+
+		/**
+		 * Starts as many more items as the window and the memory cap allow
+		 */
+		private void fill() {
+			while(submitted < count && window.size() < parallelism) {
+				if(!window.isEmpty() && projectedBytes() > maxPendingBytes) {
+					break;
+				}
+
+				Slot slot = new Slot(submitted++);
+				window.add(slot);
+				try {
+					executor.execute(slot);
+				}catch(RejectedExecutionException ex) {
+					//runs on the consuming thread when it gets to it
+				}
+			}
+		}
+
+		/**
+		 * What's waiting plus what the ones still encoding should come to, going by the average so far
+		 * @return
+		 */
+		private long projectedBytes() {
+
+			long prepared = preparedCount.get();
+			long average = prepared == 0 ? 0 : preparedBytes.get() / prepared;
+
+			long running = 0;
+			for(Slot slot: window) {
+				if(!slot.isDone()) {
+					running++;
+				}
+			}
+
+			return pendingBytes.get() + average * (running + 1);
+		}
+
+		public boolean hasNext() {
+			return !window.isEmpty();
+		}
+
+		/**
+		 * True when {@link #next()} won't have to wait
+		 * @return
+		 */
+		public boolean isNextReady() {
+			return window.isEmpty() || window.peekFirst().isDone();
+		}
+
+		/**
+		 * Waits for the first item, whether it worked or not
+		 */
+		public void awaitFirst() {
+			if(!window.isEmpty()) {
+				window.peekFirst().run();
+				try {
+					window.peekFirst().get();
+				}catch(Exception ex) {
+					//reported when the batch gets to it
+				}
+			}
+		}
+
+		/**
+		 * The next item in order. One the executor hasn't got round to yet is prepared right here,
+		 * so a busy or single threaded executor can't leave the caller waiting on work queued up
+		 * behind it.
+		 * @return
+		 * @throws Exception why the item couldn't be prepared
+		 */
+		public T next() throws Exception {
+
+			Slot slot = window.pollFirst();
+			fill();
+			slot.run();	//does nothing if it has already started elsewhere
+
+			try {
+				return slot.get();
+			}catch(ExecutionException ex) {
+				throw ex.getCause() instanceof Exception ? (Exception) ex.getCause() : ex;
+			}finally {
+				pendingBytes.addAndGet(-slot.size);
+				fill();
+			}
+		}
+
+		/**
+		 * Stops whatever hasn't started, if the batch ends early
+		 */
+		public void cancel() {
+			for(Slot slot: window) {
+				slot.cancel(false);
+			}
+			window.clear();
+		}
+
+		public int getCount() {return count;}
+
+		/**
+		 * Most bytes that were waiting to be taken at any one time
+		 * @return
+		 */
+		public long getPeakPendingBytes() {return peakPendingBytes;}
+
+
+		private final class Slot extends FutureTask<T>{
+
+			private volatile long size = 0L;
+
+			Slot(int index){
+				super(() -> task.prepare(index));
+			}
+
+			@Override
+			protected void set(T value) {
+				size = value == null ? 0L : sizeOf.applyAsLong(value);
+				preparedCount.incrementAndGet();
+				preparedBytes.addAndGet(size);
+				long pending = pendingBytes.addAndGet(size);
+				if(pending > peakPendingBytes) {
+					peakPendingBytes = pending;	//only a statistic, a lost update doesn't matter
+				}
+				super.set(value);
+			}
+		}
+	}
+
+}
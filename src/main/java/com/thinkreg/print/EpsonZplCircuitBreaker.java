@@ -0,0 +1,312 @@
+/*
+ * Copyright 2025 Robert James Drabant II, ThinkREG
+ * https://www.linkedin.com/in/robert-drabant/
+ *
+ * This code was independently developed by ThinkREG for use with Epson printer ColorWorks CW-C4000.
+ * Neither ThinkREG or Epson America, Inc. provide any warranties or support for this code.
+ * “Epson” is the registered trademark of Epson America, Inc. and its affiliates in the
+ * United States and other countries. Epson reserves all rights to its trademarks.
+ * Epson and ThinkREG are independent companies.
+ *
+ * From the author, this was created because I wanted a cleaner way to print to our Epsons we use in
+ * conference and event management. We have mostly 4000s, but this should
+ * work with any Epson that supports ZPLII/ESC. I also want to thank team
+ * members at Epson for their support.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.thinkreg.print;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Stops calls to a printer that isn't answering from each sitting through the connect or reply
+ * timeout. There is one per printer (ip:port), used by every {@link EpsonZplPrintJob} aimed at it.
+ *
+ * After failureThreshold calls in a row fail to connect or time out, the breaker opens and calls fail
+ * straight away with a ConnectException instead of waiting in the printer's queue. While it's open a
+ * background probe tries a plain TCP connect every probeInterval. Once the printer accepts one the
+ * breaker goes half open and lets a single call through: if that works it closes again, if it fails
+ * it's back to open and probing.
+ */
+public class EpsonZplCircuitBreaker{
+
+	public static final int DEFAULT_FAILURE_THRESHOLD = 2;
+	public static final long DEFAULT_PROBE_INTERVAL_MS = 5000L;
+
+	private static final ConcurrentMap<String, EpsonZplCircuitBreaker> PRINTERS = new ConcurrentHashMap<String, EpsonZplCircuitBreaker>();
+
+	private static final ScheduledExecutorService PROBER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "EpsonZplCircuitBreaker-probe");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final String ip;
+	private final int port;
+
+	private STATE state = STATE.CLOSED;
+	private int consecutiveFailures = 0;
+	private boolean trialInFlight = false;
+	private long openedAt = 0L;
+	private ScheduledFuture<?> probe = null;
+
+	private volatile boolean enabled = true;
+	private volatile int failureThreshold = DEFAULT_FAILURE_THRESHOLD;
+	private volatile long probeIntervalMillis = DEFAULT_PROBE_INTERVAL_MS;
+
+	private long opens = 0L;
+	private long rejected = 0L;
+	private long probes = 0L;
+
+
+	private EpsonZplCircuitBreaker(String ip, int port){
+		this.ip = ip;
+		this.port = port;
+	}
+
+
+	/**
+	 * Returns the breaker for this printer, creating it the first time it is asked for.
+	 * @param ip
+	 * @param port
+	 * @return
+	 */
+	public static EpsonZplCircuitBreaker forPrinter(String ip, int port) {
+		return PRINTERS.computeIfAbsent(EpsonZplConnectionPool.key(ip, port), k -> new EpsonZplCircuitBreaker(ip, port));
+	}
+
+
+	/**
+	 * True if a call may go to the printer now. While half open only the first caller gets a true,
+	 * use {@link #acquire()} to find out whether that was you.
+	 * @return
+	 */
+	public boolean allowRequest() {
+		return acquire() != PERMIT.DENIED;
+	}
+
+	/**
+	 * Whether a call may go to the printer now, and if it's the one half open trial. The caller that
+	 * gets {@link PERMIT#TRIAL} has to hand it back with {@link #release(PERMIT)} once the call is
+	 * over, however it ended.
+	 * @return
+	 */
+	public synchronized PERMIT acquire() {
+
+		if(!enabled) {
+			return PERMIT.ALLOWED;
+		}
+
+		switch(state) {
+		case CLOSED:
+			return PERMIT.ALLOWED;
+		case HALF_OPEN:
+			if(!trialInFlight) {
+				trialInFlight = true;
+				return PERMIT.TRIAL;
+			}
+			break;
+		default:
+			break;
+		}
+
+		rejected++;
+		return PERMIT.DENIED;
+	}
+
+	/**
+	 * The printer connected and answered
+	 */
+	public synchronized void recordSuccess() {
+		consecutiveFailures = 0;
+		if(state != STATE.CLOSED) {
+			state = STATE.CLOSED;
+			stopProbe();
+		}
+	}
+
+	/**
+	 * The printer couldn't be connected to, never answered, or dropped the connection part way through
+	 */
+	public synchronized void recordFailure() {
+		consecutiveFailures++;
+		if(state == STATE.HALF_OPEN || (state == STATE.CLOSED && enabled && consecutiveFailures >= failureThreshold)) {
+			open();
+		}
+	}
+
+	/**
+	 * Ends a call that was let through. Only the half open trial holds anything, once it's handed
+	 * back the next call can be the trial if the breaker is still half open. Calls that weren't the
+	 * trial don't touch it.
+	 * @param permit what {@link #acquire()} gave the call
+	 */
+	public synchronized void release(PERMIT permit) {
+		if(permit == PERMIT.TRIAL) {
+			trialInFlight = false;
+		}
+	}
+
+	/**
+	 * Closes the breaker and forgets the failures, for when the printer is known to be back
+	 */
+	public synchronized void reset() {
+		state = STATE.CLOSED;
+		consecutiveFailures = 0;
+		trialInFlight = false;
+		stopProbe();
+	}
+
+	private void open() {
+		state = STATE.OPEN;
+		openedAt = System.currentTimeMillis();
+		opens++;
+		stopProbe();
+		probe = PROBER.scheduleWithFixedDelay(this::probe, probeIntervalMillis, probeIntervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	private void stopProbe() {
+		if(probe != null) {
+			probe.cancel(false);
+			probe = null;
+		}
+	}
+
+	/**
+	 * Runs on the probe thread. Only checks the printer takes a connection, the trial call that
+	 * follows is what proves it's answering.
+	 */
+	private void probe() {
+
+		synchronized(this) {
+			if(state != STATE.OPEN) {
+				return;
+			}
+			probes++;
+		}
+
+		try {
+			Socket socket = EpsonZplConnectionPool.connect(ip, port, EpsonZplConnectionPool.forPrinter(ip, port).getConnectTimeoutMillis());
+			socket.close();	//only wanted to know it would take one
+		}catch(IOException ex) {
+			return;	//still down, try again next time round
+		}
+
+		synchronized(this) {
+			if(state == STATE.OPEN) {
+				state = STATE.HALF_OPEN;
+				trialInFlight = false;
+				stopProbe();
+			}
+		}
+	}
+
+	public String getIp() {return ip;}
+
+	public int getPort() {return port;}
+
+	public synchronized STATE getState() {return state;}
+
+	/**
+	 * True while calls are being turned away without trying the printer
+	 * @return
+	 */
+	public synchronized boolean isOpen() {return enabled && state == STATE.OPEN;}
+
+	public synchronized int getConsecutiveFailures() {return consecutiveFailures;}
+
+	/**
+	 * When it last opened, 0 if it never has
+	 * @return
+	 */
+	public synchronized long getOpenedAt() {return openedAt;}
+
+	public synchronized long getOpens() {return opens;}
+
+	/**
+	 * Calls failed straight away because the breaker was open
+	 * @return
+	 */
+	public synchronized long getRejected() {return rejected;}
+
+	public synchronized long getProbes() {return probes;}
+
+	public boolean isEnabled() {return enabled;}
+
+	/**
+	 * Turned off, every call goes to the printer and waits out its own timeouts
+	 * @param enabled
+	 */
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+		if(!enabled) {
+			reset();
+		}
+	}
+
+	public int getFailureThreshold() {return failureThreshold;}
+
+	/**
+	 * Failed calls in a row it takes to open the breaker
+	 * @param failureThreshold
+	 */
+	public void setFailureThreshold(int failureThreshold) {this.failureThreshold = Math.max(1, failureThreshold);}
+
+	public long getProbeIntervalMillis() {return probeIntervalMillis;}
+
+	/**
+	 * How often an open breaker checks whether the printer is back, from the next time it opens
+	 * @param probeIntervalMillis
+	 */
+	public void setProbeIntervalMillis(long probeIntervalMillis) {this.probeIntervalMillis = Math.max(1L, probeIntervalMillis);}
+
+	@Override
+	public synchronized String toString(){
+		return "Circuit breaker " + ip + ":" + port + " " + state + ", failures=" + consecutiveFailures + " opens=" + opens +
+				" rejected=" + rejected + " probes=" + probes;
+	}
+
+
+	public enum PERMIT{
+
+		/** the breaker is open, or half open with the trial already out */
+		DENIED,
+		/** the breaker is closed, go ahead */
+		ALLOWED,
+		/** the half open trial, hand it back with {@link EpsonZplCircuitBreaker#release(PERMIT)} */
+		TRIAL
+	}
+
+
+	public enum STATE{
+
+		/** calls go to the printer */
+		CLOSED,
+		/** calls fail straight away while the printer is probed in the background */
+		OPEN,
+		/** the printer took a connection again, the next call is let through to find out if it's really back */
+		HALF_OPEN
+	}
+
+}
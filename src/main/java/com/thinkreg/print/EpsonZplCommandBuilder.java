@@ -0,0 +1,265 @@
+/*
+ * Copyright 2025 Robert James Drabant II, ThinkREG
+ * https://www.linkedin.com/in/robert-drabant/
+ *
+ * This code was independently developed by ThinkREG for use with Epson printer ColorWorks CW-C4000.
+ * Neither ThinkREG or Epson America, Inc. provide any warranties or support for this code.
+ * “Epson” is the registered trademark of Epson America, Inc. and its affiliates in the
+ * United States and other countries. Epson reserves all rights to its trademarks.
+ * Epson and ThinkREG are independent companies.
+ *
+ * From the author, this was created because I wanted a cleaner way to print to our Epsons we use in
+ * conference and event management. We have mostly 4000s, but this should
+ * work with any Epson that supports ZPLII/ESC. I also want to thank team
+ * members at Epson for their support.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.thinkreg.print;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+
+/**
+ * Puts ZPL and ESC/Label commands together as ASCII bytes in a buffer that is kept and reused, so
+ * building a command doesn't create Strings or byte arrays along the way, and doesn't depend on the
+ * platform charset the way String.getBytes() does. Numbers are written as digits straight into the
+ * buffer, and the fixed pieces of commands are encoded once below and copied in.
+ *
+ * Each {@link EpsonZplConnection} has one for the commands written on it, see {@link #forStream}.
+ * A builder is only ever used by one thread at a time.
+ */
+public class EpsonZplCommandBuilder{
+
+	public static final int DEFAULT_CAPACITY = 256;
+
+	public static final byte[] CR = ascii("\r");
+	public static final byte[] START_FORMAT = ascii("^XA");
+	public static final byte[] END_FORMAT = ascii("^XZ");
+	public static final byte[] FIELD_ORIGIN = ascii("^FO");
+	public static final byte[] FIELD_SEPARATOR = ascii("^FS");
+	public static final byte[] DELETE_OBJECT = ascii("^ID");
+	public static final byte[] UTF8_FIELD_DATA = ascii("^CI28");
+	public static final byte[] RENDERING_RESOLUTION = ascii("^S(CLR,R,");
+	public static final byte[] PRINT_RESOLUTION = ascii("^S(CLR,P,");
+	public static final byte[] QUERY = ascii("~H(");
+
+	private static final byte[] HEX = ascii("0123456789ABCDEF");
+	private static final byte[] MIN_INT = ascii(Integer.toString(Integer.MIN_VALUE));
+
+	private ByteBuffer buffer;
+
+
+	public EpsonZplCommandBuilder(){
+		this(DEFAULT_CAPACITY);
+	}
+
+	public EpsonZplCommandBuilder(int capacity){
+		this.buffer = ByteBuffer.allocate(Math.max(16, capacity));
+	}
+
+
+	/**
+	 * The builder kept for this stream if it's a printer connection's, cleared and ready to use,
+	 * otherwise a new one. Finish with it ({@link #writeTo}) before calling anything else that
+	 * writes commands to the same stream, they'd be handed the same builder.
+	 * @param out
+	 * @return
+	 */
+	public static EpsonZplCommandBuilder forStream(OutputStream out) {
+		if(out instanceof EpsonZplConnection.CommandOutputStream) {
+			return ((EpsonZplConnection.CommandOutputStream) out).getCommandBuilder().clear();
+		}
+		return new EpsonZplCommandBuilder();
+	}
+
+	/**
+	 * A string of command characters as bytes, anything outside ASCII becomes ?
+	 * @param command
+	 * @return
+	 */
+	public static byte[] ascii(String command) {
+		byte[] bytes = new byte[command.length()];
+		for(int i = 0; i < bytes.length; i++) {
+			char c = command.charAt(i);
+			bytes[i] = c < 0x80 ? (byte) c : (byte) '?';
+		}
+		return bytes;
+	}
+
+
+	public EpsonZplCommandBuilder append(byte[] bytes) {
+		ensureCapacity(bytes.length);
+		buffer.put(bytes);
+		return this;
+	}
+
+	/**
+	 * Command text, anything outside ASCII becomes ?. Use {@link #appendUtf8} for field data sent
+	 * after ^CI28.
+	 * @param command
+	 * @return
+	 */
+	public EpsonZplCommandBuilder append(String command) {
+		int length = command.length();
+		ensureCapacity(length);
+		for(int i = 0; i < length; i++) {
+			char c = command.charAt(i);
+			buffer.put(c < 0x80 ? (byte) c : (byte) '?');
+		}
+		return this;
+	}
+
+	public EpsonZplCommandBuilder append(char c) {
+		ensureCapacity(1);
+		buffer.put(c < 0x80 ? (byte) c : (byte) '?');
+		return this;
+	}
+
+	/**
+	 * The number in decimal, written digit by digit
+	 * @param value
+	 * @return
+	 */
+	public EpsonZplCommandBuilder append(int value) {
+
+		if(value == Integer.MIN_VALUE) {
+			return append(MIN_INT);
+		}
+
+		ensureCapacity(11);
+		if(value < 0) {
+			buffer.put((byte) '-');
+			value = -value;
+		}
+
+		int digits = 1;
+		for(int rest = value / 10; rest != 0; rest /= 10) {
+			digits++;
+		}
+
+		int end = buffer.position() + digits;
+		for(int i = end - 1; i >= buffer.position(); i--) {
+			buffer.put(i, (byte) ('0' + value % 10));
+			value /= 10;
+		}
+		buffer.position(end);
+
+		return this;
+	}
+
+	/**
+	 * The low digits of the number in upper case hex, zero padded, 1A2B for (0x1A2B, 4)
+	 * @param value
+	 * @param digits
+	 * @return
+	 */
+	public EpsonZplCommandBuilder appendHex(int value, int digits) {
+		ensureCapacity(digits);
+		for(int shift = (digits - 1) * 4; shift >= 0; shift -= 4) {
+			buffer.put(HEX[(value >>> shift) & 0xF]);
+		}
+		return this;
+	}
+
+	/**
+	 * Field data as UTF-8, for text printed after ^CI28 (names with accents and so on)
+	 * @param text
+	 * @return
+	 */
+	public EpsonZplCommandBuilder appendUtf8(String text) {
+
+		int length = text.length();
+		ensureCapacity(length * 3);
+
+		for(int i = 0; i < length; i++) {
+			char c = text.charAt(i);
+
+			if(c < 0x80) {
+				buffer.put((byte) c);
+			}else if(c < 0x800) {
+				buffer.put((byte) (0xC0 | (c >> 6)));
+				buffer.put((byte) (0x80 | (c & 0x3F)));
+			}else if(Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+				int codePoint = Character.toCodePoint(c, text.charAt(++i));
+				buffer.put((byte) (0xF0 | (codePoint >> 18)));
+				buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+				buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+				buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+			}else if(Character.isSurrogate(c)) {
+				buffer.put((byte) '?');	//half a pair, same as String.getBytes
+			}else {
+				buffer.put((byte) (0xE0 | (c >> 12)));
+				buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+				buffer.put((byte) (0x80 | (c & 0x3F)));
+			}
+		}
+
+		return this;
+	}
+
+	/**
+	 * Writes what's been built to the stream and clears the builder for the next command
+	 * @param out
+	 * @throws IOException
+	 */
+	public void writeTo(OutputStream out) throws IOException {
+		out.write(buffer.array(), 0, buffer.position());
+		buffer.clear();
+	}
+
+	/**
+	 * A copy of what's been built, for commands that are sent on their own
+	 * @return
+	 */
+	public byte[] toByteArray() {
+		return Arrays.copyOf(buffer.array(), buffer.position());
+	}
+
+	public EpsonZplCommandBuilder clear() {
+		buffer.clear();
+		return this;
+	}
+
+	/**
+	 * Bytes built so far
+	 * @return
+	 */
+	public int length() {return buffer.position();}
+
+	/**
+	 * Grows the buffer when a command doesn't fit. The bigger one is kept, so a connection that
+	 * has sent long commands before doesn't grow it again.
+	 * @param needed
+	 */
+	private void ensureCapacity(int needed) {
+		if(buffer.remaining() < needed) {
+			ByteBuffer bigger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + needed));
+			buffer.flip();
+			bigger.put(buffer);
+			buffer = bigger;
+		}
+	}
+
+	@Override
+	public String toString(){
+		return new String(buffer.array(), 0, buffer.position(), StandardCharsets.ISO_8859_1);
+	}
+
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2025 Robert James Drabant II, ThinkREG
+ * https://www.linkedin.com/in/robert-drabant/
+ *
+ * This code was independently developed by ThinkREG for use with Epson printer ColorWorks CW-C4000.
+ * Neither ThinkREG or Epson America, Inc. provide any warranties or support for this code.
+ * “Epson” is the registered trademark of Epson America, Inc. and its affiliates in the
+ * United States and other countries. Epson reserves all rights to its trademarks.
+ * Epson and ThinkREG are independent companies.
+ *
+ * From the author, this was created because I wanted a cleaner way to print to our Epsons we use in
+ * conference and event management. We have mostly 4000s, but this should
+ * work with any Epson that supports ZPLII/ESC. I also want to thank team
+ * members at Epson for their support.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thinkreg.print;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+
+
+/**
+ * A single open socket to a printer's raw port (9100), handed out by {@link EpsonZplConnectionPool}.
+ * The streams and the buffers replies are read into are created once per socket and reused for
+ * every call, so reading a status reply doesn't allocate anything.
+ */
+public class EpsonZplConnection{
+
+	//How long the health check waits for the printer to close on us. The printer never sends
+	//anything unprompted, so a read that times out this quickly means the socket is still good.
+	private static final int HEALTH_CHECK_TIMEOUT_MS = 1;
+
+	//Batches are written straight onto this stream a piece at a time. Big enough that the framing
+	//between uploads goes out in a handful of packets, uploads bigger than it go straight through.
+	private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+
+	//Replies are a few dozen bytes each, a whole status block fits in one read
+	private static final int READ_BUFFER_SIZE = 1024;
+	private static final int FRAME_BUFFER_SIZE = 256;
+
+	private final Socket socket;
+	private final InputStream inputStream;
+	private final CommandOutputStream outputStream;
+	private final CountingOutputStream countingStream;
+	private final byte[] readBuffer = new byte[READ_BUFFER_SIZE];
+	private final byte[] frameBuffer = new byte[FRAME_BUFFER_SIZE];
+	private final long createdAt;
+	private long lastUsed;
+	private boolean reused = false;
+
+
+	EpsonZplConnection(Socket socket) throws IOException{
+		this.socket = socket;
+		this.socket.setKeepAlive(true);
+		this.socket.setTcpNoDelay(true);
+		this.inputStream = socket.getInputStream();
+		this.countingStream = new CountingOutputStream(socket.getOutputStream());
+		this.outputStream = new CommandOutputStream(countingStream, OUTPUT_BUFFER_SIZE);
+		this.createdAt = System.currentTimeMillis();
+		this.lastUsed = this.createdAt;
+	}
+
+
+	/**
+	 * Checks the socket is still usable before it is handed out again. Anything left unread from a
+	 * previous job is thrown away, and a read that hits end of stream means the printer hung up.
+	 * @return
+	 */
+	boolean isHealthy() {
+
+		if(socket.isClosed() || !socket.isConnected() || socket.isInputShutdown() || socket.isOutputShutdown()) {
+			return false;
+		}
+
+		try {
+			//left over replies from the last job, don't let them be read as this job's replies
+			while(inputStream.available() > 0) {
+				if(inputStream.read(readBuffer, 0, Math.min(readBuffer.length, inputStream.available())) < 0) {
+					return false;
+				}
+			}
+
+			int soTimeout = socket.getSoTimeout();
+			socket.setSoTimeout(HEALTH_CHECK_TIMEOUT_MS);
+			try {
+				if(inputStream.read(readBuffer, 0, readBuffer.length) < 0) {
+					return false;	//printer closed the connection (EOF)
+				}
+			}catch(SocketTimeoutException quiet) {
+				//nothing to read and still open, this is what we want
+			}finally {
+				socket.setSoTimeout(soTimeout);
+			}
+
+		}catch(SocketException closed) {
+			return false;
+		}catch(IOException ex) {
+			return false;
+		}
+
+		return true;
+	}
+
+	void close() {
+		try {
+			socket.close();
+		}catch(IOException ex) {
+			//nothing we can do, it's going away anyway
+		}
+	}
+
+	public void setSoTimeout(int timeout) throws SocketException {
+		socket.setSoTimeout(timeout);
+	}
+
+	public Socket getSocket() {return socket;}
+
+	public InputStream getInputStream() {return inputStream;}
+
+	/**
+	 * Bytes read off the socket by {@link EpsonZplReplyReader}, reused for every call on this connection
+	 * @return
+	 */
+	byte[] getReadBuffer() {return readBuffer;}
+
+	/**
+	 * One reply frame being put together, reused the same way
+	 * @return
+	 */
+	byte[] getFrameBuffer() {return frameBuffer;}
+
+	public OutputStream getOutputStream() {return outputStream;}
+
+	/**
+	 * Bytes that have actually gone out on the socket since it was opened, not counting what is still
+	 * sitting in the output stream's buffer
+	 * @return
+	 */
+	public long getBytesWritten() {return countingStream.count;}
+
+	public long getCreatedAt() {return createdAt;}
+
+	public long getLastUsed() {return lastUsed;}
+	void setLastUsed(long lastUsed) {this.lastUsed = lastUsed;}
+
+	/**
+	 * True when this socket was already used by an earlier call, as opposed to freshly opened.
+	 * @return
+	 */
+	public boolean isReused() {return reused;}
+	void setReused(boolean reused) {this.reused = reused;}
+
+
+	/**
+	 * The socket's buffered stream, carrying the builder commands written to it are put together in,
+	 * see {@link EpsonZplCommandBuilder#forStream}
+	 */
+	static final class CommandOutputStream extends BufferedOutputStream{
+
+		private final EpsonZplCommandBuilder commandBuilder = new EpsonZplCommandBuilder();
+
+		CommandOutputStream(OutputStream out, int size){
+			super(out, size);
+		}
+
+		EpsonZplCommandBuilder getCommandBuilder() {return commandBuilder;}
+	}
+
+
+	/**
+	 * Counts what the buffered stream hands down to the socket. FilterOutputStream would write arrays
+	 * a byte at a time, so both writes go straight through.
+	 */
+	private static final class CountingOutputStream extends FilterOutputStream{
+
+		private volatile long count = 0L;
+
+		CountingOutputStream(OutputStream out){
+			super(out);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			count++;	//only ever written by the thread holding the connection
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			count += len;
+		}
+	}
+
+}
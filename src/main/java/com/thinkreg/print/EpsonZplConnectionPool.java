@@ -0,0 +1,268 @@
+/*
+ * Copyright 2025 Robert James Drabant II, ThinkREG
+ * https://www.linkedin.com/in/robert-drabant/
+ *
+ * This code was independently developed by ThinkREG for use with Epson printer ColorWorks CW-C4000.
+ * Neither ThinkREG or Epson America, Inc. provide any warranties or support for this code.
+ * “Epson” is the registered trademark of Epson America, Inc. and its affiliates in the
+ * United States and other countries. Epson reserves all rights to its trademarks.
+ * Epson and ThinkREG are independent companies.
+ *
+ * From the author, this was created because I wanted a cleaner way to print to our Epsons we use in
+ * conference and event management. We have mostly 4000s, but this should
+ * work with any Epson that supports ZPLII/ESC. I also want to thank team
+ * members at Epson for their support.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thinkreg.print;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.NoRouteToHostException;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Keeps sockets to a printer open between calls so every status check and badge doesn't pay for a
+ * new TCP connection. There is one pool per ip:port, shared by every {@link EpsonZplPrintJob} aimed
+ * at that printer. Sockets are health checked when borrowed and closed once idle for too long.
+ */
+public class EpsonZplConnectionPool{
+
+	public static final long DEFAULT_IDLE_TIMEOUT_MS = 30000L;
+	public static final int DEFAULT_MAX_IDLE_CONNECTIONS = 2;
+
+	//A printer on the LAN answers a SYN in a few milliseconds. One that's unplugged doesn't answer at
+	//all, and without a timeout the OS keeps retrying for the better part of two minutes.
+	public static final int DEFAULT_CONNECT_TIMEOUT_MS = 3000;
+
+	private static final ConcurrentMap<String, EpsonZplConnectionPool> POOLS = new ConcurrentHashMap<String, EpsonZplConnectionPool>();
+
+	private static final ScheduledExecutorService EVICTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "EpsonZplConnectionPool-evictor");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	static {
+		EVICTOR.scheduleWithFixedDelay(EpsonZplConnectionPool::evictAllIdle, 5, 5, TimeUnit.SECONDS);
+	}
+
+	private final String ip;
+	private final int port;
+	private final Deque<EpsonZplConnection> idle = new ArrayDeque<EpsonZplConnection>();
+	private volatile long idleTimeoutMillis = DEFAULT_IDLE_TIMEOUT_MS;
+	private volatile int maxIdleConnections = DEFAULT_MAX_IDLE_CONNECTIONS;
+	private volatile int connectTimeoutMillis = DEFAULT_CONNECT_TIMEOUT_MS;
+
+
+	private EpsonZplConnectionPool(String ip, int port){
+		this.ip = ip;
+		this.port = port;
+	}
+
+
+	/**
+	 * Returns the pool for this printer, creating it the first time it is asked for.
+	 * @param ip
+	 * @param port
+	 * @return
+	 */
+	public static EpsonZplConnectionPool forPrinter(String ip, int port) {
+		return POOLS.computeIfAbsent(key(ip, port), k -> new EpsonZplConnectionPool(ip, port));
+	}
+
+	static String key(String ip, int port) {
+		return ip + ":" + port;
+	}
+
+
+	/**
+	 * Hands out an idle socket that still passes the health check, or opens a new one. The caller
+	 * owns the connection until it gives it back with {@link #release} or {@link #invalidate}.
+	 * @return
+	 * @throws IOException
+	 */
+	public EpsonZplConnection borrow() throws IOException {
+
+		while(true) {
+			EpsonZplConnection connection;
+			synchronized(idle) {
+				connection = idle.pollFirst();
+			}
+
+			if(connection == null) {
+				break;
+			}
+
+			if(isExpired(connection, System.currentTimeMillis()) || !connection.isHealthy()) {
+				connection.close();
+				continue;
+			}
+
+			connection.setReused(true);
+			return connection;
+		}
+
+		return new EpsonZplConnection(connect(ip, port, connectTimeoutMillis));
+	}
+
+	/**
+	 * Opens a socket, giving up after timeoutMillis. A printer that never answers or can't be routed to
+	 * is reported the same way as one that refuses, as a ConnectException.
+	 * @param ip
+	 * @param port
+	 * @param timeoutMillis
+	 * @return
+	 * @throws IOException
+	 */
+	static Socket connect(String ip, int port, int timeoutMillis) throws IOException {
+
+		Socket socket = new Socket();
+		try {
+			socket.connect(new InetSocketAddress(ip, port), timeoutMillis);
+		}catch(SocketTimeoutException ex) {
+			socket.close();
+			ConnectException timedOut = new ConnectException("No answer from " + key(ip, port) + " within " + timeoutMillis + "ms");
+			timedOut.initCause(ex);
+			throw timedOut;
+		}catch(NoRouteToHostException ex) {
+			socket.close();
+			ConnectException unreachable = new ConnectException("No route to " + key(ip, port));
+			unreachable.initCause(ex);
+			throw unreachable;
+		}catch(IOException ex) {
+			socket.close();
+			throw ex;
+		}
+
+		return socket;
+	}
+
+	/**
+	 * Gives a healthy connection back so the next call to this printer can use it.
+	 * @param connection
+	 */
+	public void release(EpsonZplConnection connection) {
+		if(connection == null) {
+			return;
+		}
+
+		connection.setLastUsed(System.currentTimeMillis());
+
+		synchronized(idle) {
+			if(idle.size() < maxIdleConnections) {
+				idle.offerFirst(connection);	//most recently used first, so the oldest ones age out
+				return;
+			}
+		}
+
+		connection.close();
+	}
+
+	/**
+	 * Closes a connection that failed part way through a call, it is never handed out again.
+	 * @param connection
+	 */
+	public void invalidate(EpsonZplConnection connection) {
+		if(connection != null) {
+			connection.close();
+		}
+	}
+
+	/**
+	 * Closes any idle socket that has not been used within the idle timeout.
+	 */
+	public void evictIdle() {
+		long now = System.currentTimeMillis();
+		synchronized(idle) {
+			Iterator<EpsonZplConnection> it = idle.iterator();
+			while(it.hasNext()) {
+				EpsonZplConnection connection = it.next();
+				if(isExpired(connection, now)) {
+					it.remove();
+					connection.close();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Closes every idle socket to this printer. Connections currently borrowed are closed when
+	 * they come back and the pool is already full.
+	 */
+	public void closeIdle() {
+		synchronized(idle) {
+			for(EpsonZplConnection connection: idle) {
+				connection.close();
+			}
+			idle.clear();
+		}
+	}
+
+	/**
+	 * Closes every idle socket to every printer.
+	 */
+	public static void closeAll() {
+		for(EpsonZplConnectionPool pool: POOLS.values()) {
+			pool.closeIdle();
+		}
+	}
+
+	private static void evictAllIdle() {
+		for(EpsonZplConnectionPool pool: POOLS.values()) {
+			pool.evictIdle();
+		}
+	}
+
+	private boolean isExpired(EpsonZplConnection connection, long now) {
+		return now - connection.getLastUsed() > idleTimeoutMillis;
+	}
+
+	public int getIdleCount() {
+		synchronized(idle) {
+			return idle.size();
+		}
+	}
+
+	public String getIp() {return ip;}
+
+	public int getPort() {return port;}
+
+	public long getIdleTimeoutMillis() {return idleTimeoutMillis;}
+	public void setIdleTimeoutMillis(long idleTimeoutMillis) {this.idleTimeoutMillis = idleTimeoutMillis;}
+
+	public int getMaxIdleConnections() {return maxIdleConnections;}
+	public void setMaxIdleConnections(int maxIdleConnections) {this.maxIdleConnections = maxIdleConnections;}
+
+	public int getConnectTimeoutMillis() {return connectTimeoutMillis;}
+
+	/**
+	 * How long opening a new socket may take before the printer is treated as unreachable
+	 * @param connectTimeoutMillis
+	 */
+	public void setConnectTimeoutMillis(int connectTimeoutMillis) {this.connectTimeoutMillis = connectTimeoutMillis;}
+
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2025 Robert James Drabant II, ThinkREG
+ * https://www.linkedin.com/in/robert-drabant/
+ *
+ * This code was independently developed by ThinkREG for use with Epson printer ColorWorks CW-C4000.
+ * Neither ThinkREG or Epson America, Inc. provide any warranties or support for this code.
+ * “Epson” is the registered trademark of Epson America, Inc. and its affiliates in the
+ * United States and other countries. Epson reserves all rights to its trademarks.
+ * Epson and ThinkREG are independent companies.
+ *
+ * From the author, this was created because I wanted a cleaner way to print to our Epsons we use in
+ * conference and event management. We have mostly 4000s, but this should
+ * work with any Epson that supports ZPLII/ESC. I also want to thank team
+ * members at Epson for their support.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thinkreg.print;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+
+/**
+ * Flight Recorder event for one badge being encoded, on whichever thread did it. Only badges that
+ * weren't already in the payload cache are encoded, so a cache hit has no event.
+ */
+@Name("com.thinkreg.print.Encode")
+@Label("Badge Encode")
+@Category({"ThinkREG", "Printing"})
+@Description("A badge image turned into its upload")
+@StackTrace(false)
+final class EpsonZplEncodeEvent extends Event{
+
+	@Label("Printer")
+	@Description("ip:port")
+	String printer;
+
+	@Label("Graphic")
+	@Description("Name it's stored under on the printer")
+	String graphic;
+
+	@Label("Encoder")
+	String encoder;
+
+	@Label("Image Width")
+	int imageWidth;
+
+	@Label("Image Height")
+	int imageHeight;
+
+	@Label("DPI")
+	int dpi;
+
+	@Label("Encoded Size")
+	@DataAmount
+	long bytes;
+
+}
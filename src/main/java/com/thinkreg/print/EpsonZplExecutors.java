@@ -0,0 +1,125 @@
+/*
+ * Copyright 2025 Robert James Drabant II, ThinkREG
+ * https://www.linkedin.com/in/robert-drabant/
+ *
+ * This code was independently developed by ThinkREG for use with Epson printer ColorWorks CW-C4000.
+ * Neither ThinkREG or Epson America, Inc. provide any warranties or support for this code.
+ * “Epson” is the registered trademark of Epson America, Inc. and its affiliates in the
+ * United States and other countries. Epson reserves all rights to its trademarks.
+ * Epson and ThinkREG are independent companies.
+ *
+ * From the author, this was created because I wanted a cleaner way to print to our Epsons we use in
+ * conference and event management. We have mostly 4000s, but this should
+ * work with any Epson that supports ZPLII/ESC. I also want to thank team
+ * members at Epson for their support.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thinkreg.print;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * The default executor the async methods on {@link EpsonZplPrintJob} run on. Each call spends most
+ * of its time blocked on the printer's socket, so on a JVM with virtual threads (21+) every call
+ * gets its own virtual thread. On older JVMs it falls back to a cached pool of daemon threads.
+ */
+public class EpsonZplExecutors{
+
+	private static volatile ExecutorService defaultExecutor = null;
+
+
+	private EpsonZplExecutors(){
+	}
+
+
+	/**
+	 * The shared executor, created the first time it's asked for.
+	 * @return
+	 */
+	public static ExecutorService getDefaultExecutor() {
+		if(defaultExecutor == null) {
+			synchronized(EpsonZplExecutors.class) {
+				if(defaultExecutor == null) {
+					defaultExecutor = newExecutor("EpsonZplPrintJob-");
+				}
+			}
+		}
+		return defaultExecutor;
+	}
+
+	/**
+	 * A virtual thread per task executor when the JVM has them, otherwise a cached pool of daemon
+	 * threads named with the prefix.
+	 * @param threadNamePrefix
+	 * @return
+	 */
+	public static ExecutorService newExecutor(String threadNamePrefix) {
+
+		if(isVirtualThreadsAvailable()) {
+			try {
+				Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+				return (ExecutorService) method.invoke(null);
+			}catch(Exception ex) {
+				ex.printStackTrace();
+			}
+		}
+
+		AtomicInteger count = new AtomicInteger();
+		return Executors.newCachedThreadPool(runnable -> {
+			Thread thread = new Thread(runnable, threadNamePrefix + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Like {@link #newExecutor} but never more than maxThreads platform threads: a virtual thread per
+	 * task when the JVM has them, otherwise a fixed pool of daemon threads. Shut it down when done.
+	 * @param threadNamePrefix
+	 * @param maxThreads
+	 * @return
+	 */
+	public static ExecutorService newBoundedExecutor(String threadNamePrefix, int maxThreads) {
+
+		if(isVirtualThreadsAvailable()) {
+			return newExecutor(threadNamePrefix);
+		}
+
+		AtomicInteger count = new AtomicInteger();
+		return Executors.newFixedThreadPool(Math.max(1, maxThreads), runnable -> {
+			Thread thread = new Thread(runnable, threadNamePrefix + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * True when the running JVM has Executors.newVirtualThreadPerTaskExecutor()
+	 * @return
+	 */
+	public static boolean isVirtualThreadsAvailable() {
+		try {
+			Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return true;
+		}catch(NoSuchMethodException ex) {
+			return false;
+		}
+	}
+
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2025 Robert James Drabant II, ThinkREG
+ * https://www.linkedin.com/in/robert-drabant/
+ *
+ * This code was independently developed by ThinkREG for use with Epson printer ColorWorks CW-C4000.
+ * Neither ThinkREG or Epson America, Inc. provide any warranties or support for this code.
+ * “Epson” is the registered trademark of Epson America, Inc. and its affiliates in the
+ * United States and other countries. Epson reserves all rights to its trademarks.
+ * Epson and ThinkREG are independent companies.
+ *
+ * From the author, this was created because I wanted a cleaner way to print to our Epsons we use in
+ * conference and event management. We have mostly 4000s, but this should
+ * work with any Epson that supports ZPLII/ESC. I also want to thank team
+ * members at Epson for their support.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thinkreg.print;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * One printer registered with an {@link EpsonZplPrinterFleet}, along with what the fleet knows about
+ * it: the last status it reported and how many jobs are currently on their way to it.
+ */
+public class EpsonZplFleetPrinter{
+
+	private final String ip;
+	private final int port;
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicLong jobsCompleted = new AtomicLong();
+	private final AtomicLong jobsFailed = new AtomicLong();
+	private volatile EpsonZplPrinterResponse lastStatus = null;
+	private volatile long lastStatusAt = 0L;
+	private volatile boolean enabled = true;
+
+
+	EpsonZplFleetPrinter(String ip, int port){
+		this.ip = ip;
+		this.port = port;
+	}
+
+
+	/**
+	 * A printer is healthy if it's enabled, its circuit breaker isn't open, and its last status came
+	 * back connected with an error code that doesn't block printing. One we haven't heard from yet gets the benefit of the doubt.
+	 * @return
+	 */
+	public boolean isHealthy() {
+
+		if(!enabled || EpsonZplCircuitBreaker.forPrinter(ip, port).isOpen()) {
+			return false;
+		}
+
+		EpsonZplPrinterResponse status = lastStatus;
+		if(status == null) {
+			return true;
+		}
+
+		if(!status.isSuccessfulConnection() || status.getErrorCode() == null) {
+			return false;
+		}
+
+		return !status.getErrorCode().isBlocksPrinting();
+	}
+
+	/**
+	 * The lowest of the ink and maintenance box levels from the last status, 100 if unknown.
+	 * @return
+	 */
+	public int getLowestSupplyPercent() {
+
+		EpsonZplPrinterResponse status = lastStatus;
+		if(status == null) {
+			return 100;
+		}
+
+		int lowest = 100;
+		String[] codes = {status.getBlack(), status.getCyan(), status.getMagenta(), status.getYellow(), status.getMaintenance()};
+		for(String code: codes) {
+			Integer percent = EpsonZplPrinterResponse.getPercentForCode(code);
+			if(percent != null && percent < lowest) {
+				lowest = percent;
+			}
+		}
+
+		return lowest;
+	}
+
+	/**
+	 * How busy this printer is, lower is better. Jobs in flight or queued count for the most, the supply
+	 * level only decides between printers that are equally busy, so one that's running low on
+	 * ink or maintenance box gets less of the work. A cartridge at "replace" sorts behind every
+	 * printer that can still print.
+	 * @return
+	 */
+	public double getLoadScore() {
+
+		int lowest = getLowestSupplyPercent();
+		//jobs from outside the fleet wait in the same printer queue, so count whichever is more
+		double score = Math.max(inFlight.get(), getQueueDepth()) + (100 - lowest) / 101.0;
+
+		if(lowest == 0) {
+			score += 1000;
+		}
+
+		return score;
+	}
+
+	void recordStatus(EpsonZplPrinterResponse status) {
+		this.lastStatus = status;
+		this.lastStatusAt = System.currentTimeMillis();
+	}
+
+	void jobStarted() {
+		inFlight.incrementAndGet();
+	}
+
+	void jobFinished(boolean success) {
+		inFlight.decrementAndGet();
+		if(success) {
+			jobsCompleted.incrementAndGet();
+		}else {
+			jobsFailed.incrementAndGet();
+		}
+	}
+
+	public String getIp() {return ip;}
+
+	public int getPort() {return port;}
+
+	public int getInFlight() {return inFlight.get();}
+
+	/**
+	 * Jobs waiting in this printer's {@link EpsonZplPrintQueue}, from the fleet or anywhere else
+	 * @return
+	 */
+	public int getQueueDepth() {
+		return EpsonZplPrintQueue.forPrinter(ip, port).getDepth();
+	}
+
+	public long getJobsCompleted() {return jobsCompleted.get();}
+
+	public long getJobsFailed() {return jobsFailed.get();}
+
+	/**
+	 * The status from the last job or status check, null if we haven't heard from it yet
+	 * @return
+	 */
+	public EpsonZplPrinterResponse getLastStatus() {return lastStatus;}
+
+	public long getLastStatusAt() {return lastStatusAt;}
+
+	/**
+	 * A disabled printer gets no new jobs, for taking one off the floor without unregistering it
+	 * @return
+	 */
+	public boolean isEnabled() {return enabled;}
+	public void setEnabled(boolean enabled) {this.enabled = enabled;}
+
+	@Override
+	public String toString(){
+		EpsonZplPrinterResponse status = lastStatus;
+		return EpsonZplConnectionPool.key(ip, port) + " inFlight=" + inFlight.get() + 
+				" status=" + (status == null || status.getErrorCode() == null ? "?" : status.getErrorCode().getCode());
+	}
+
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2025 Robert James Drabant II, ThinkREG
+ * https://www.linkedin.com/in/robert-drabant/
+ *
+ * This code was independently developed by ThinkREG for use with Epson printer ColorWorks CW-C4000.
+ * Neither ThinkREG or Epson America, Inc. provide any warranties or support for this code.
+ * “Epson” is the registered trademark of Epson America, Inc. and its affiliates in the
+ * United States and other countries. Epson reserves all rights to its trademarks.
+ * Epson and ThinkREG are independent companies.
+ *
+ * From the author, this was created because I wanted a cleaner way to print to our Epsons we use in
+ * conference and event management. We have mostly 4000s, but this should
+ * work with any Epson that supports ZPLII/ESC. I also want to thank team
+ * members at Epson for their support.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thinkreg.print;
+
+
+/**
+ * An image encoded and ready to send: the command that stores it on the printer, and what it takes
+ * to place it on a label and delete it again afterwards. Made by an {@link EpsonZplGraphicEncoder}.
+ */
+public class EpsonZplGraphic{
+
+	private final String name;
+	private final byte[] upload;
+	private final String recallCommand;
+	private final String encoding;
+	private final long storedSize;
+	//encoded once, every label that recalls or deletes this graphic copies them in
+	private final byte[] nameBytes;
+	private final byte[] recallCommandBytes;
+
+
+	/**
+	 * @param name where it's stored on the printer, R:BADGE.PNG for example
+	 * @param upload the full ~DY/~DG command, data included
+	 * @param recallCommand the command that prints it at the current ^FO, ^IMR:BADGE.PNG for example
+	 * @param encoding the name of the encoder that made it
+	 */
+	public EpsonZplGraphic(String name, byte[] upload, String recallCommand, String encoding){
+		this(name, upload, recallCommand, encoding, upload.length);
+	}
+
+	/**
+	 * @param name
+	 * @param upload
+	 * @param recallCommand
+	 * @param encoding
+	 * @param storedSize bytes it takes up in printer memory once stored, when that's not the upload size
+	 */
+	public EpsonZplGraphic(String name, byte[] upload, String recallCommand, String encoding, long storedSize){
+		this.name = name;
+		this.upload = upload;
+		this.recallCommand = recallCommand;
+		this.encoding = encoding;
+		this.storedSize = storedSize;
+		this.nameBytes = EpsonZplCommandBuilder.ascii(name);
+		this.recallCommandBytes = EpsonZplCommandBuilder.ascii(recallCommand);
+	}
+
+
+	/**
+	 * Places the stored graphic with its top left corner at x,y
+	 * @param x
+	 * @param y
+	 * @return
+	 */
+	public String getRecallZPL(int x, int y) {
+		return "^FO" + x + "," + y + recallCommand + "^FS";
+	}
+
+	/**
+	 * {@link #getRecallZPL} written straight into a command being built
+	 * @param zpl
+	 * @param x
+	 * @param y
+	 * @return zpl
+	 */
+	public EpsonZplCommandBuilder appendRecallZPL(EpsonZplCommandBuilder zpl, int x, int y) {
+		return zpl.append(EpsonZplCommandBuilder.FIELD_ORIGIN).append(x).append(',').append(y)
+				.append(recallCommandBytes).append(EpsonZplCommandBuilder.FIELD_SEPARATOR);
+	}
+
+	/**
+	 * Deletes just this graphic from the printer
+	 * @return
+	 */
+	public String getDeleteZPL() {
+		return "^XA^ID" + name + "^FS^XZ";
+	}
+
+	/**
+	 * {@link #getDeleteZPL} written straight into a command being built
+	 * @param zpl
+	 * @return zpl
+	 */
+	public EpsonZplCommandBuilder appendDeleteZPL(EpsonZplCommandBuilder zpl) {
+		return zpl.append(EpsonZplCommandBuilder.START_FORMAT).append(EpsonZplCommandBuilder.DELETE_OBJECT).append(nameBytes)
+				.append(EpsonZplCommandBuilder.FIELD_SEPARATOR).append(EpsonZplCommandBuilder.END_FORMAT);
+	}
+
+	public String getName() {return name;}
+
+	public byte[] getUpload() {return upload;}
+
+	public String getRecallCommand() {return recallCommand;}
+
+	public String getEncoding() {return encoding;}
+
+	/**
+	 * Bytes on the wire for the upload
+	 * @return
+	 */
+	public int getSize() {return upload.length;}
+
+	/**
+	 * Bytes it takes up on the printer's R: drive
+	 * @return
+	 */
+	public long getStoredSize() {return storedSize;}
+
+	@Override
+	public String toString(){
+		return name + " (" + encoding + ", " + upload.length + " bytes)";
+	}
+
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2025 Robert James Drabant II, ThinkREG
+ * https://www.linkedin.com/in/robert-drabant/
+ *
+ * This code was independently developed by ThinkREG for use with Epson printer ColorWorks CW-C4000.
+ * Neither ThinkREG or Epson America, Inc. provide any warranties or support for this code.
+ * “Epson” is the registered trademark of Epson America, Inc. and its affiliates in the
+ * United States and other countries. Epson reserves all rights to its trademarks.
+ * Epson and ThinkREG are independent companies.
+ *
+ * From the author, this was created because I wanted a cleaner way to print to our Epsons we use in
+ * conference and event management. We have mostly 4000s, but this should
+ * work with any Epson that supports ZPLII/ESC. I also want to thank team
+ * members at Epson for their support.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thinkreg.print;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+
+/**
+ * Turns a badge image into something the printer can store and recall. Implement this to plug a
+ * different graphic format into {@link EpsonZplPrintJob}, the built in ones are in
+ * {@link EpsonZplPrintJob.GRAPHIC_ENCODING}.
+ */
+public interface EpsonZplGraphicEncoder{
+
+	/**
+	 * Short name for the format and any settings that change its output, used to keep cached and
+	 * resident graphics from different encoders, or the same encoder set up differently, apart
+	 * @return
+	 */
+	String getName();
+
+	/**
+	 * @param image
+	 * @param name what to store it as on R:, without the extension, BADGE for example
+	 * @return
+	 * @throws IOException
+	 */
+	EpsonZplGraphic encode(BufferedImage image, String name) throws IOException;
+
+}
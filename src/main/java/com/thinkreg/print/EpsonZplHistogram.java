@@ -0,0 +1,186 @@
+/*
+ * Copyright 2025 Robert James Drabant II, ThinkREG
+ * https://www.linkedin.com/in/robert-drabant/
+ *
+ * This code was independently developed by ThinkREG for use with Epson printer ColorWorks CW-C4000.
+ * Neither ThinkREG or Epson America, Inc. provide any warranties or support for this code.
+ * “Epson” is the registered trademark of Epson America, Inc. and its affiliates in the
+ * United States and other countries. Epson reserves all rights to its trademarks.
+ * Epson and ThinkREG are independent companies.
+ *
+ * From the author, this was created because I wanted a cleaner way to print to our Epsons we use in
+ * conference and event management. We have mostly 4000s, but this should
+ * work with any Epson that supports ZPLII/ESC. I also want to thank team
+ * members at Epson for their support.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thinkreg.print;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * A latency histogram in the style of HdrHistogram: every power of two is split into 32 buckets, so
+ * any value is kept to within about 3% whether it's a 200 microsecond encode or a 20 second timeout,
+ * in a fixed 15KB no matter how many values go in. Recording is a couple of atomic adds and never
+ * blocks, so it's safe to call from any number of threads.
+ *
+ * Values are nanoseconds. Use {@link #getSnapshot()} to read it.
+ */
+public class EpsonZplHistogram{
+
+	private static final int SUB_BUCKET_BITS = 5;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	//values below 2 * SUB_BUCKETS get a bucket each, then SUB_BUCKETS per power of two up to 2^63
+	private static final int BUCKETS = (63 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong total = new AtomicLong();
+	private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+	private final AtomicLong max = new AtomicLong(0L);
+
+
+	public EpsonZplHistogram(){
+	}
+
+
+	/**
+	 * Adds one value, negative values are counted as 0
+	 * @param nanos
+	 */
+	public void record(long nanos) {
+
+		long value = Math.max(0L, nanos);
+
+		counts.incrementAndGet(bucketFor(value));
+		count.incrementAndGet();
+		total.addAndGet(value);
+		min.accumulateAndGet(value, Math::min);
+		max.accumulateAndGet(value, Math::max);
+	}
+
+	/**
+	 * Starts over. Values recorded while this runs may land on either side of it.
+	 */
+	public void reset() {
+		for(int i = 0; i < BUCKETS; i++) {
+			counts.set(i, 0L);
+		}
+		count.set(0L);
+		total.set(0L);
+		min.set(Long.MAX_VALUE);
+		max.set(0L);
+	}
+
+	public long getCount() {return count.get();}
+
+	/**
+	 * A copy of the histogram as it is now
+	 * @return
+	 */
+	public Snapshot getSnapshot() {
+
+		long[] copy = new long[BUCKETS];
+		long copied = 0L;
+		for(int i = 0; i < BUCKETS; i++) {
+			copy[i] = counts.get(i);
+			copied += copy[i];
+		}
+
+		//count and the buckets can be a value apart while something is recording, go by the buckets
+		return new Snapshot(copy, copied, copied == 0 ? 0L : min.get(), max.get(), total.get());
+	}
+
+	static int bucketFor(long value) {
+		int shift = Math.max(0, 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS);
+		return shift * SUB_BUCKETS + (int) (value >>> shift);
+	}
+
+	/**
+	 * Highest value that lands in a bucket
+	 * @param bucket
+	 * @return
+	 */
+	static long highestValueIn(int bucket) {
+		if(bucket < 2 * SUB_BUCKETS) {
+			return bucket;
+		}
+		int shift = bucket / SUB_BUCKETS - 1;
+		long lowest = (long) (bucket - shift * SUB_BUCKETS) << shift;
+		return lowest + (1L << shift) - 1;
+	}
+
+
+	/**
+	 * A histogram frozen at one point in time, all values in nanoseconds
+	 */
+	public static final class Snapshot{
+
+		private final long[] counts;
+		private final long count;
+		private final long min;
+		private final long max;
+		private final long total;
+
+		private Snapshot(long[] counts, long count, long min, long max, long total){
+			this.counts = counts;
+			this.count = count;
+			this.min = min;
+			this.max = max;
+			this.total = total;
+		}
+
+		/**
+		 * The value this percent of recorded values are at or below, to within a bucket
+		 * @param percentile 0 to 100, 99.9 for example
+		 * @return 0 if nothing has been recorded
+		 */
+		public long getValueAtPercentile(double percentile) {
+
+			if(count == 0) {
+				return 0L;
+			}
+
+			long wanted = Math.max(1L, (long) Math.ceil(count * Math.min(100.0, Math.max(0.0, percentile)) / 100.0));
+			long seen = 0L;
+			for(int i = 0; i < counts.length; i++) {
+				seen += counts[i];
+				if(seen >= wanted) {
+					return Math.max(min, Math.min(max, highestValueIn(i)));
+				}
+			}
+			return max;
+		}
+
+		public long getCount() {return count;}
+
+		public long getMin() {return min;}
+
+		public long getMax() {return max;}
+
+		public long getTotal() {return total;}
+
+		public double getMean() {return count == 0 ? 0.0 : (double) total / count;}
+
+		@Override
+		public String toString(){
+			return String.format("n=%d p50=%.2fms p90=%.2fms p99=%.2fms max=%.2fms", count,
+					getValueAtPercentile(50) / 1e6, getValueAtPercentile(90) / 1e6, getValueAtPercentile(99) / 1e6, max / 1e6);
+		}
+	}
+
+}
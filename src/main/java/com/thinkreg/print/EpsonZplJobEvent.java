@@ -0,0 +1,102 @@
+/*
+ * Copyright 2025 Robert James Drabant II, ThinkREG
+ * https://www.linkedin.com/in/robert-drabant/
+ *
+ * This code was independently developed by ThinkREG for use with Epson printer ColorWorks CW-C4000.
+ * Neither ThinkREG or Epson America, Inc. provide any warranties or support for this code.
+ * “Epson” is the registered trademark of Epson America, Inc. and its affiliates in the
+ * United States and other countries. Epson reserves all rights to its trademarks.
+ * Epson and ThinkREG are independent companies.
+ *
+ * From the author, this was created because I wanted a cleaner way to print to our Epsons we use in
+ * conference and event management. We have mostly 4000s, but this should
+ * work with any Epson that supports ZPLII/ESC. I also want to thank team
+ * members at Epson for their support.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thinkreg.print;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+
+/**
+ * Flight Recorder event for a call made on an {@link EpsonZplPrintJob}: a print, a template upload,
+ * print or delete, a calibration or a settings update. Its duration covers the whole call, encoding included, and the
+ * {@link EpsonZplRoundTripEvent} inside it shows how much of that was the printer.
+ */
+@Name("com.thinkreg.print.Job")
+@Label("Print Job")
+@Category({"ThinkREG", "Printing"})
+@Description("A print, template, calibration or settings update sent to an Epson printer")
+@StackTrace(false)
+final class EpsonZplJobEvent extends Event{
+
+	@Label("Printer")
+	@Description("ip:port")
+	String printer;
+
+	@Label("Operation")
+	String operation;
+
+	@Label("Labels")
+	int labels;
+
+	@Label("Failed Labels")
+	int failedLabels;
+
+	@Label("Image Width")
+	@Description("Widest badge in the job, in pixels")
+	int imageWidth;
+
+	@Label("Image Height")
+	@Description("Tallest badge in the job, in pixels")
+	int imageHeight;
+
+	@Label("DPI")
+	int dpi;
+
+	@Label("Payload Size")
+	@Description("Encoded badges, template and overlay uploads, or the commands for a calibration or settings update")
+	@DataAmount
+	long payloadBytes;
+
+	@Label("Error Code")
+	String errorCode;
+
+	@Label("Success")
+	boolean success;
+
+	/**
+	 * Fills in what every job has, once it's known the event is wanted
+	 * @param job
+	 * @param operation
+	 * @param response null if nothing came back
+	 */
+	void set(EpsonZplPrintJob job, String operation, EpsonZplPrinterResponse response) {
+		this.printer = EpsonZplConnectionPool.key(job.getIp(), job.getPort());
+		this.operation = operation;
+		this.dpi = job.getDpi() == null ? 0 : job.getDpi().getResolution();
+		if(response != null) {
+			this.errorCode = response.getErrorCode() == null ? null : response.getErrorCode().getCode();
+			this.success = response.getSuccess() != null && response.getSuccess();
+		}
+	}
+
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2025 Robert James Drabant II, ThinkREG
+ * https://www.linkedin.com/in/robert-drabant/
+ *
+ * This code was independently developed by ThinkREG for use with Epson printer ColorWorks CW-C4000.
+ * Neither ThinkREG or Epson America, Inc. provide any warranties or support for this code.
+ * “Epson” is the registered trademark of Epson America, Inc. and its affiliates in the
+ * United States and other countries. Epson reserves all rights to its trademarks.
+ * Epson and ThinkREG are independent companies.
+ *
+ * From the author, this was created because I wanted a cleaner way to print to our Epsons we use in
+ * conference and event management. We have mostly 4000s, but this should
+ * work with any Epson that supports ZPLII/ESC. I also want to thank team
+ * members at Epson for their support.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thinkreg.print;
+
+
+/**
+ * The outcome of one label in a batch sent by {@link EpsonZplPrintJob#printBatch()}. Every label in
+ * the batch shares the one status reply read at the end, so {@link #getResponse()} is the same
+ * object for all labels that made it onto the wire.
+ */
+public class EpsonZplLabelResult{
+
+	private final int index;
+	private boolean success = false;
+	private String message;
+	private EpsonZplPrinterResponse response;
+
+
+	public EpsonZplLabelResult(int index){
+		this.index = index;
+	}
+
+
+	/**
+	 * Position of the label in the job's image list
+	 * @return
+	 */
+	public int getIndex() {return index;}
+
+	public boolean isSuccess() {return success;}
+	public void setSuccess(boolean success) {this.success = success;}
+
+	public String getMessage() {return message;}
+	public void setMessage(String message) {this.message = message;}
+
+	/**
+	 * The printer status read after the batch, or null if this label never got sent
+	 * @return
+	 */
+	public EpsonZplPrinterResponse getResponse() {return response;}
+	public void setResponse(EpsonZplPrinterResponse response) {this.response = response;}
+
+	@Override
+	public String toString(){
+		return "Label " + index + (success ? " OK" : " FAILED") + (message == null ? "" : ": " + message);
+	}
+
+}
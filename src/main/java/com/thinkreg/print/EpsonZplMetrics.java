@@ -0,0 +1,295 @@
+/*
+ * Copyright 2025 Robert James Drabant II, ThinkREG
+ * https://www.linkedin.com/in/robert-drabant/
+ *
+ * This code was independently developed by ThinkREG for use with Epson printer ColorWorks CW-C4000.
+ * Neither ThinkREG or Epson America, Inc. provide any warranties or support for this code.
+ * “Epson” is the registered trademark of Epson America, Inc. and its affiliates in the
+ * United States and other countries. Epson reserves all rights to its trademarks.
+ * Epson and ThinkREG are independent companies.
+ *
+ * From the author, this was created because I wanted a cleaner way to print to our Epsons we use in
+ * conference and event management. We have mostly 4000s, but this should
+ * work with any Epson that supports ZPLII/ESC. I also want to thank team
+ * members at Epson for their support.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thinkreg.print;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * Where the time goes for one printer (ip:port), split into the phases of a call so a slow badge
+ * can be put down to encoding, the network or the printer itself. Each phase has its own
+ * {@link EpsonZplHistogram}, and alongside them are counters for bytes sent, error codes the
+ * printer reported, timeouts and failed connections. Every {@link EpsonZplPrintJob} aimed at the
+ * printer records into the same one.
+ *
+ * Read it with {@link #getSnapshot()}, or add a {@link EpsonZplMetricsListener} to hear about each
+ * timing as it's recorded.
+ */
+public class EpsonZplMetrics{
+
+	private static final ConcurrentMap<String, EpsonZplMetrics> PRINTERS = new ConcurrentHashMap<String, EpsonZplMetrics>();
+
+	private final String ip;
+	private final int port;
+
+	private final Map<PHASE, EpsonZplHistogram> histograms = new EnumMap<PHASE, EpsonZplHistogram>(PHASE.class);
+	private final AtomicLong calls = new AtomicLong();
+	private final AtomicLong bytesSent = new AtomicLong();
+	private final AtomicLong timeouts = new AtomicLong();
+	private final AtomicLong connectFailures = new AtomicLong();
+	private final AtomicLong failures = new AtomicLong();
+	//indexed by ERROR_CODE.ordinal()
+	private final AtomicLongArray errorCodes = new AtomicLongArray(EpsonZplPrinterResponse.ERROR_CODE.values().length);
+	private final List<EpsonZplMetricsListener> listeners = new CopyOnWriteArrayList<EpsonZplMetricsListener>();
+	private volatile long resetAt = System.currentTimeMillis();
+
+
+	private EpsonZplMetrics(String ip, int port){
+		this.ip = ip;
+		this.port = port;
+		for(PHASE phase: PHASE.values()) {
+			histograms.put(phase, new EpsonZplHistogram());
+		}
+	}
+
+
+	/**
+	 * Returns the metrics for this printer, creating them the first time they are asked for.
+	 * @param ip
+	 * @param port
+	 * @return
+	 */
+	public static EpsonZplMetrics forPrinter(String ip, int port) {
+		return PRINTERS.computeIfAbsent(EpsonZplConnectionPool.key(ip, port), k -> new EpsonZplMetrics(ip, port));
+	}
+
+	/**
+	 * Every printer anything has been recorded for
+	 * @return
+	 */
+	public static Collection<EpsonZplMetrics> getAll() {
+		return Collections.unmodifiableCollection(PRINTERS.values());
+	}
+
+
+	/**
+	 * Records how long one phase took and tells the listeners
+	 * @param phase
+	 * @param nanos
+	 */
+	public void record(PHASE phase, long nanos) {
+
+		histograms.get(phase).record(nanos);
+
+		for(EpsonZplMetricsListener listener: listeners) {
+			try {
+				listener.recorded(this, phase, nanos);
+			}catch(Exception ex) {
+				ex.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * Counts one finished call to the printer, with what it sent and what the printer said
+	 * @param bytes
+	 * @param errorCode null if the printer didn't answer
+	 */
+	void recordCall(long bytes, EpsonZplPrinterResponse.ERROR_CODE errorCode) {
+		calls.incrementAndGet();
+		bytesSent.addAndGet(bytes);
+		if(errorCode != null && errorCode != EpsonZplPrinterResponse.ERROR_CODE.NE) {
+			errorCodes.incrementAndGet(errorCode.ordinal());
+		}
+	}
+
+	void recordTimeout() {timeouts.incrementAndGet();}
+
+	void recordConnectFailure() {connectFailures.incrementAndGet();}
+
+	void recordFailure() {failures.incrementAndGet();}
+
+	/**
+	 * Starts every histogram and counter over, for a new event or a new reporting period
+	 */
+	public void reset() {
+		for(EpsonZplHistogram histogram: histograms.values()) {
+			histogram.reset();
+		}
+		calls.set(0L);
+		bytesSent.set(0L);
+		timeouts.set(0L);
+		connectFailures.set(0L);
+		failures.set(0L);
+		for(int i = 0; i < errorCodes.length(); i++) {
+			errorCodes.set(i, 0L);
+		}
+		resetAt = System.currentTimeMillis();
+	}
+
+	/**
+	 * Everything recorded since the start or the last {@link #reset()}
+	 * @return
+	 */
+	public Snapshot getSnapshot() {
+
+		Map<PHASE, EpsonZplHistogram.Snapshot> phases = new EnumMap<PHASE, EpsonZplHistogram.Snapshot>(PHASE.class);
+		for(PHASE phase: PHASE.values()) {
+			phases.put(phase, histograms.get(phase).getSnapshot());
+		}
+
+		Map<EpsonZplPrinterResponse.ERROR_CODE, Long> errors = new EnumMap<EpsonZplPrinterResponse.ERROR_CODE, Long>(EpsonZplPrinterResponse.ERROR_CODE.class);
+		for(EpsonZplPrinterResponse.ERROR_CODE code: EpsonZplPrinterResponse.ERROR_CODE.values()) {
+			long count = errorCodes.get(code.ordinal());
+			if(count > 0) {
+				errors.put(code, count);
+			}
+		}
+
+		return new Snapshot(ip, port, resetAt, System.currentTimeMillis(), phases, calls.get(), bytesSent.get(), timeouts.get(),
+				connectFailures.get(), failures.get(), errors);
+	}
+
+	public String getIp() {return ip;}
+
+	public int getPort() {return port;}
+
+	public void addListener(EpsonZplMetricsListener listener) {listeners.add(listener);}
+	public void removeListener(EpsonZplMetricsListener listener) {listeners.remove(listener);}
+
+	@Override
+	public String toString(){
+		return getSnapshot().toString();
+	}
+
+
+	public enum PHASE{
+
+		/** turning a badge image into its upload, only counted when it wasn't already in the payload cache */
+		ENCODE,
+		/** getting a socket from the pool, opening one if there wasn't a healthy one idle */
+		CONNECT,
+		/** writing the job and the status queries, including any wait on labels still being encoded */
+		WRITE,
+		/** from the last byte sent to the first byte of the reply, the printer working through the job */
+		FIRST_REPLY,
+		/** from the first reply byte to the last reply being in */
+		REPLY;
+	}
+
+
+	/**
+	 * The metrics for one printer at one point in time
+	 */
+	public static final class Snapshot{
+
+		private final String ip;
+		private final int port;
+		private final long since;
+		private final long takenAt;
+		private final Map<PHASE, EpsonZplHistogram.Snapshot> phases;
+		private final long calls;
+		private final long bytesSent;
+		private final long timeouts;
+		private final long connectFailures;
+		private final long failures;
+		private final Map<EpsonZplPrinterResponse.ERROR_CODE, Long> errorCodes;
+
+		private Snapshot(String ip, int port, long since, long takenAt, Map<PHASE, EpsonZplHistogram.Snapshot> phases, long calls,
+				long bytesSent, long timeouts, long connectFailures, long failures, Map<EpsonZplPrinterResponse.ERROR_CODE, Long> errorCodes){
+			this.ip = ip;
+			this.port = port;
+			this.since = since;
+			this.takenAt = takenAt;
+			this.phases = Collections.unmodifiableMap(phases);
+			this.calls = calls;
+			this.bytesSent = bytesSent;
+			this.timeouts = timeouts;
+			this.connectFailures = connectFailures;
+			this.failures = failures;
+			this.errorCodes = Collections.unmodifiableMap(errorCodes);
+		}
+
+		public EpsonZplHistogram.Snapshot getPhase(PHASE phase) {return phases.get(phase);}
+
+		public Map<PHASE, EpsonZplHistogram.Snapshot> getPhases() {return phases;}
+
+		public String getIp() {return ip;}
+
+		public int getPort() {return port;}
+
+		/**
+		 * When recording started, or the last reset
+		 * @return
+		 */
+		public long getSince() {return since;}
+
+		public long getTakenAt() {return takenAt;}
+
+		/**
+		 * Calls that got as far as sending to the printer
+		 * @return
+		 */
+		public long getCalls() {return calls;}
+
+		public long getBytesSent() {return bytesSent;}
+
+		/**
+		 * Calls the printer never answered in time
+		 * @return
+		 */
+		public long getTimeouts() {return timeouts;}
+
+		public long getConnectFailures() {return connectFailures;}
+
+		/**
+		 * Calls that failed any other way part way through
+		 * @return
+		 */
+		public long getFailures() {return failures;}
+
+		/**
+		 * How often the printer answered with each error code, anything but NE. Codes never seen are left out.
+		 * @return
+		 */
+		public Map<EpsonZplPrinterResponse.ERROR_CODE, Long> getErrorCodes() {return errorCodes;}
+
+		@Override
+		public String toString(){
+			StringBuilder sb = new StringBuilder();
+			sb.append(ip).append(':').append(port).append(" calls=").append(calls).append(" bytes=").append(bytesSent)
+				.append(" timeouts=").append(timeouts).append(" connectFailures=").append(connectFailures)
+				.append(" failures=").append(failures).append(" errors=").append(errorCodes);
+			for(Map.Entry<PHASE, EpsonZplHistogram.Snapshot> phase: phases.entrySet()) {
+				sb.append("\n  ").append(phase.getKey()).append(' ').append(phase.getValue());
+			}
+			return sb.toString();
+		}
+	}
+
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2025 Robert James Drabant II, ThinkREG
+ * https://www.linkedin.com/in/robert-drabant/
+ *
+ * This code was independently developed by ThinkREG for use with Epson printer ColorWorks CW-C4000.
+ * Neither ThinkREG or Epson America, Inc. provide any warranties or support for this code.
+ * “Epson” is the registered trademark of Epson America, Inc. and its affiliates in the
+ * United States and other countries. Epson reserves all rights to its trademarks.
+ * Epson and ThinkREG are independent companies.
+ *
+ * From the author, this was created because I wanted a cleaner way to print to our Epsons we use in
+ * conference and event management. We have mostly 4000s, but this should
+ * work with any Epson that supports ZPLII/ESC. I also want to thank team
+ * members at Epson for their support.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thinkreg.print;
+
+import java.awt.image.BufferedImage;
+import java.nio.charset.StandardCharsets;
+
+
+/**
+ * One of the variable parts of a badge printed over an {@link EpsonZplBadgeTemplate}: a line of
+ * text in the printer's own scalable font, a QR code, or a small image. Text and QR codes are drawn
+ * by the printer, so they cost a few dozen bytes each instead of an image upload.
+ */
+public class EpsonZplOverlay{
+
+	private final TYPE type;
+	private final int x;
+	private final int y;
+	private final int size;
+	private final String data;
+	private final BufferedImage image;
+
+
+	private EpsonZplOverlay(TYPE type, int x, int y, int size, String data, BufferedImage image){
+		this.type = type;
+		this.x = x;
+		this.y = y;
+		this.size = size;
+		this.data = data;
+		this.image = image;
+	}
+
+
+	/**
+	 * Text in scalable font 0
+	 * @param x dots from the left edge
+	 * @param y dots from the top edge
+	 * @param height character height in dots
+	 * @param text any text, ^ ~ and non ASCII characters are escaped
+	 * @return
+	 */
+	public static EpsonZplOverlay text(int x, int y, int height, String text) {
+		return new EpsonZplOverlay(TYPE.TEXT, x, y, height, text == null ? "" : text, null);
+	}
+
+	/**
+	 * A QR code
+	 * @param x
+	 * @param y
+	 * @param magnification 1 to 10, dots per module
+	 * @param data
+	 * @return
+	 */
+	public static EpsonZplOverlay qrCode(int x, int y, int magnification, String data) {
+		return new EpsonZplOverlay(TYPE.QR_CODE, x, y, Math.max(1, Math.min(10, magnification)), data == null ? "" : data, null);
+	}
+
+	/**
+	 * An image, uploaded with the first badge that uses it and kept on the printer with the other
+	 * resident graphics, so a logo repeated across badges is only sent once. Keep these small, a photo
+	 * for example.
+	 * @param x
+	 * @param y
+	 * @param image
+	 * @return
+	 */
+	public static EpsonZplOverlay image(int x, int y, BufferedImage image) {
+		return new EpsonZplOverlay(TYPE.IMAGE, x, y, 0, null, image);
+	}
+
+
+	/**
+	 * The field for this overlay, for text and QR codes. Images are placed by the print job once uploaded.
+	 * @return
+	 */
+	String getFieldZPL() {
+
+		switch(type) {
+		case TEXT:
+			return "^FO" + x + "," + y + "^A0N," + size + "," + size + "^FH^FD" + escape(data) + "^FS";
+
+		case QR_CODE:
+			//Q = error correction level, A = automatic data input mode
+			return "^FO" + x + "," + y + "^BQN,2," + size + "^FH^FDQA," + escape(data) + "^FS";
+
+		default:
+			return "";
+		}
+	}
+
+	/**
+	 * ^FH lets field data carry _XX hex escapes, so anything that would otherwise be read as a
+	 * command, or isn't plain ASCII (sent as UTF-8, see ^CI28), goes that way.
+	 */
+	static String escape(String text) {
+
+		StringBuilder escaped = new StringBuilder(text.length() + 8);
+
+		for(byte b: text.getBytes(StandardCharsets.UTF_8)) {
+			int c = b & 0xFF;
+			if(c < 0x20 || c >= 0x7F || c == '^' || c == '~' || c == '_') {
+				escaped.append('_');
+				escaped.append(Character.toUpperCase(Character.forDigit(c >> 4, 16)));
+				escaped.append(Character.toUpperCase(Character.forDigit(c & 0xF, 16)));
+			}else {
+				escaped.append((char) c);
+			}
+		}
+
+		return escaped.toString();
+	}
+
+	public TYPE getType() {return type;}
+
+	public int getX() {return x;}
+
+	public int getY() {return y;}
+
+	public String getData() {return data;}
+
+	public BufferedImage getImage() {return image;}
+
+
+
+	public enum TYPE {
+		TEXT,
+		QR_CODE,
+		IMAGE;
+	}
+
+}
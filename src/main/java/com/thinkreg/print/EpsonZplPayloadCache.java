@@ -0,0 +1,343 @@
+/*
+ * Copyright 2025 Robert James Drabant II, ThinkREG
+ * https://www.linkedin.com/in/robert-drabant/
+ *
+ * This code was independently developed by ThinkREG for use with Epson printer ColorWorks CW-C4000.
+ * Neither ThinkREG or Epson America, Inc. provide any warranties or support for this code.
+ * “Epson” is the registered trademark of Epson America, Inc. and its affiliates in the
+ * United States and other countries. Epson reserves all rights to its trademarks.
+ * Epson and ThinkREG are independent companies.
+ *
+ * From the author, this was created because I wanted a cleaner way to print to our Epsons we use in
+ * conference and event management. We have mostly 4000s, but this should
+ * work with any Epson that supports ZPLII/ESC. I also want to thank team
+ * members at Epson for their support.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thinkreg.print;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DataBufferUShort;
+import java.awt.image.IndexColorModel;
+import java.awt.image.WritableRaster;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Keeps the finished upload for badges we've already encoded, so a reprint, or the 200th identical
+ * staff badge, skips the encode completely. Entries are keyed on a 128 bit hash of the image's
+ * pixels plus its size, type, the job's DPI and the encoder used, so it doesn't matter whether the caller
+ * hands us the same BufferedImage or a fresh one drawn the same way. The cache is bounded by the
+ * total bytes held and drops the least recently used badge first.
+ */
+public class EpsonZplPayloadCache{
+
+	public static final long DEFAULT_MAX_BYTES = 64L * 1024L * 1024L;
+
+	private static final EpsonZplPayloadCache DEFAULT = new EpsonZplPayloadCache(DEFAULT_MAX_BYTES);
+
+	//64 bit mixing constants (xxHash64 primes)
+	private static final long PRIME_1 = 0x9E3779B185EBCA87L;
+	private static final long PRIME_2 = 0xC2B2AE3D27D4EB4FL;
+	private static final long PRIME_3 = 0x165667B19E3779F9L;
+	private static final long PRIME_5 = 0x27D4EB2F165667C5L;
+
+	private final LinkedHashMap<Key, EpsonZplGraphic> entries = new LinkedHashMap<Key, EpsonZplGraphic>(64, 0.75f, true);
+	private volatile long maxBytes;
+	private long currentBytes = 0L;
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+
+
+	public EpsonZplPayloadCache(long maxBytes){
+		this.maxBytes = maxBytes;
+	}
+
+
+	/**
+	 * The cache print jobs use unless they're given their own
+	 * @return
+	 */
+	public static EpsonZplPayloadCache getDefault() {
+		return DEFAULT;
+	}
+
+
+	/**
+	 * Hashes the image's pixels into a key for {@link #get} and {@link #put}.
+	 * @param image
+	 * @param dpi may be null
+	 * @param encoding name of the {@link EpsonZplGraphicEncoder}, the same badge encoded two ways is two entries
+	 * @return
+	 */
+	public static Key keyFor(BufferedImage image, EpsonZplPrintJob.DPI dpi, String encoding) {
+
+		long[] hash = {PRIME_5, PRIME_3};
+		WritableRaster raster = image.getRaster();
+		DataBuffer buffer = raster.getDataBuffer();
+
+		//Hash the backing array directly when it's exactly this image's pixels in a standard layout.
+		//A sub image shares its parent's buffer, so it has to go the slow way through getRGB.
+		boolean direct = image.getType() != BufferedImage.TYPE_CUSTOM && raster.getParent() == null &&
+				raster.getSampleModelTranslateX() == 0 && raster.getSampleModelTranslateY() == 0 &&
+				buffer.getNumBanks() == 1;
+
+		if(direct && buffer instanceof DataBufferInt) {
+			hashInts(hash, ((DataBufferInt) buffer).getData(), buffer.getOffset(), buffer.getSize());
+		}else if(direct && buffer instanceof DataBufferByte) {
+			hashBytes(hash, ((DataBufferByte) buffer).getData(), buffer.getOffset(), buffer.getSize());
+		}else if(direct && buffer instanceof DataBufferUShort) {
+			short[] data = ((DataBufferUShort) buffer).getData();
+			for(int i = buffer.getOffset(), end = buffer.getOffset() + buffer.getSize(); i < end; i++) {
+				mix(hash, data[i]);
+			}
+		}else {
+			int width = image.getWidth();
+			int[] row = new int[width];
+			for(int y = 0; y < image.getHeight(); y++) {
+				image.getRGB(0, y, width, 1, row, 0, width);
+				hashInts(hash, row, 0, width);
+			}
+		}
+
+		//TYPE_BYTE_INDEXED and TYPE_BYTE_BINARY only hold palette indexes, the same indexes under
+		//another palette are another badge
+		if(direct && image.getColorModel() instanceof IndexColorModel) {
+			IndexColorModel palette = (IndexColorModel) image.getColorModel();
+			int[] rgbs = new int[palette.getMapSize()];
+			palette.getRGBs(rgbs);
+			mix(hash, rgbs.length);
+			hashInts(hash, rgbs, 0, rgbs.length);
+		}
+
+		return new Key(finish(hash[0]), finish(hash[1]), image.getWidth(), image.getHeight(), 
+				direct ? image.getType() : BufferedImage.TYPE_INT_ARGB, dpi == null ? 0 : dpi.getResolution(), encoding);
+	}
+
+	private static void hashInts(long[] hash, int[] data, int offset, int length) {
+		long h0 = hash[0];
+		long h1 = hash[1];
+		int end = offset + length;
+		int i = offset;
+
+		for(; i + 1 < end; i += 2) {
+			long v = ((long) data[i] << 32) | (data[i + 1] & 0xFFFFFFFFL);
+			h0 = Long.rotateLeft(h0 ^ (v * PRIME_2), 31) * PRIME_1;
+			h1 = Long.rotateLeft(h1 + (v * PRIME_1), 27) * PRIME_2 + PRIME_3;
+		}
+		hash[0] = h0;
+		hash[1] = h1;
+
+		if(i < end) {
+			mix(hash, data[i]);
+		}
+	}
+
+	private static void hashBytes(long[] hash, byte[] data, int offset, int length) {
+		ByteBuffer longs = ByteBuffer.wrap(data, offset, length).order(ByteOrder.LITTLE_ENDIAN);
+		long h0 = hash[0];
+		long h1 = hash[1];
+		int end = offset + length;
+		int i = offset;
+
+		for(; i + 8 <= end; i += 8) {
+			long v = longs.getLong(i);
+			h0 = Long.rotateLeft(h0 ^ (v * PRIME_2), 31) * PRIME_1;
+			h1 = Long.rotateLeft(h1 + (v * PRIME_1), 27) * PRIME_2 + PRIME_3;
+		}
+		hash[0] = h0;
+		hash[1] = h1;
+
+		for(; i < end; i++) {
+			mix(hash, data[i]);
+		}
+	}
+
+	private static void mix(long[] hash, long v) {
+		hash[0] = Long.rotateLeft(hash[0] ^ (v * PRIME_2), 31) * PRIME_1;
+		hash[1] = Long.rotateLeft(hash[1] + (v * PRIME_1), 27) * PRIME_2 + PRIME_3;
+	}
+
+	private static long finish(long h) {
+		h ^= h >>> 33;
+		h *= PRIME_2;
+		h ^= h >>> 29;
+		h *= PRIME_3;
+		h ^= h >>> 32;
+		return h;
+	}
+
+
+	/**
+	 * The cached graphic for this key, or null (and a miss counted) if we don't have it
+	 * @param key
+	 * @return
+	 */
+	public EpsonZplGraphic get(Key key) {
+
+		EpsonZplGraphic payload;
+		synchronized(this) {
+			payload = entries.get(key);
+		}
+
+		if(payload == null) {
+			misses.incrementAndGet();
+		}else {
+			hits.incrementAndGet();
+		}
+
+		return payload;
+	}
+
+	/**
+	 * Adds the graphic, evicting the least recently used entries until it fits. A graphic bigger
+	 * than the whole cache isn't kept.
+	 * @param key
+	 * @param payload
+	 */
+	public void put(Key key, EpsonZplGraphic payload) {
+
+		if(payload == null || payload.getSize() > maxBytes) {
+			return;
+		}
+
+		synchronized(this) {
+			EpsonZplGraphic old = entries.put(key, payload);
+			if(old != null) {
+				currentBytes -= old.getSize();
+			}
+			currentBytes += payload.getSize();
+
+			evict();
+		}
+	}
+
+	private void evict() {
+		Iterator<Map.Entry<Key, EpsonZplGraphic>> it = entries.entrySet().iterator();
+		while(currentBytes > maxBytes && it.hasNext()) {
+			Map.Entry<Key, EpsonZplGraphic> eldest = it.next();
+			currentBytes -= eldest.getValue().getSize();
+			it.remove();
+			evictions.incrementAndGet();
+		}
+	}
+
+	public synchronized void clear() {
+		entries.clear();
+		currentBytes = 0L;
+	}
+
+	public synchronized int getSize() {return entries.size();}
+
+	public synchronized long getCurrentBytes() {return currentBytes;}
+
+	public long getMaxBytes() {return maxBytes;}
+	public synchronized void setMaxBytes(long maxBytes) {
+		this.maxBytes = maxBytes;
+		evict();
+	}
+
+	public long getHits() {return hits.get();}
+
+	public long getMisses() {return misses.get();}
+
+	public long getEvictions() {return evictions.get();}
+
+	public double getHitRate() {
+		long total = hits.get() + misses.get();
+		return total == 0 ? 0 : (double) hits.get() / total;
+	}
+
+	@Override
+	public String toString(){
+		return "EpsonZplPayloadCache entries=" + getSize() + " bytes=" + getCurrentBytes() + "/" + maxBytes + 
+				" hits=" + getHits() + " misses=" + getMisses() + " evictions=" + getEvictions();
+	}
+
+
+
+	/**
+	 * Identifies a badge by what it looks like, not which object it is
+	 */
+	public static final class Key{
+
+		private final long hashHigh;
+		private final long hashLow;
+		private final int width;
+		private final int height;
+		private final int type;
+		private final int dpi;
+		private final String encoding;
+
+		Key(long hashHigh, long hashLow, int width, int height, int type, int dpi, String encoding){
+			this.hashHigh = hashHigh;
+			this.hashLow = hashLow;
+			this.width = width;
+			this.height = height;
+			this.type = type;
+			this.dpi = dpi;
+			this.encoding = encoding;
+		}
+
+		public long getHashHigh() {return hashHigh;}
+
+		public long getHashLow() {return hashLow;}
+
+		int getWidth() {return width;}
+
+		int getHeight() {return height;}
+
+		int getType() {return type;}
+
+		int getDpi() {return dpi;}
+
+		String getEncoding() {return encoding;}
+
+		@Override
+		public boolean equals(Object o){
+			if(this == o) {
+				return true;
+			}
+			if(!(o instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) o;
+			return hashHigh == other.hashHigh && hashLow == other.hashLow && width == other.width && 
+					height == other.height && type == other.type && dpi == other.dpi && 
+					(encoding == null ? other.encoding == null : encoding.equals(other.encoding));
+		}
+
+		@Override
+		public int hashCode(){
+			return (int) (hashHigh ^ (hashHigh >>> 32));
+		}
+
+		@Override
+		public String toString(){
+			return String.format("%016x%016x", hashHigh, hashLow);
+		}
+	}
+
+}
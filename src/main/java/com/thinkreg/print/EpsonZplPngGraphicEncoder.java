@@ -0,0 +1,120 @@
+/*
+ * Copyright 2025 Robert James Drabant II, ThinkREG
+ * https://www.linkedin.com/in/robert-drabant/
+ *
+ * This code was independently developed by ThinkREG for use with Epson printer ColorWorks CW-C4000.
+ * Neither ThinkREG or Epson America, Inc. provide any warranties or support for this code.
+ * “Epson” is the registered trademark of Epson America, Inc. and its affiliates in the
+ * United States and other countries. Epson reserves all rights to its trademarks.
+ * Epson and ThinkREG are independent companies.
+ *
+ * From the author, this was created because I wanted a cleaner way to print to our Epsons we use in
+ * conference and event management. We have mostly 4000s, but this should
+ * work with any Epson that supports ZPLII/ESC. I also want to thank team
+ * members at Epson for their support.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thinkreg.print;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import javax.imageio.ImageIO;
+
+
+/**
+ * Full colour PNG, uploaded with ~DYR:name,B,P and recalled with ^IMR:name.PNG. This is how the
+ * printer has always been sent badges.
+ */
+public class EpsonZplPngGraphicEncoder implements EpsonZplGraphicEncoder{
+
+	public static final String NAME = "PNG";
+
+	private final EpsonZplPngEncoder pngEncoder;
+
+
+	/**
+	 * @param pngEncoder null to use ImageIO
+	 */
+	public EpsonZplPngGraphicEncoder(EpsonZplPngEncoder pngEncoder){
+		this.pngEncoder = pngEncoder;
+	}
+
+
+	/**
+	 * PNG plus the compression level and filter, or PNG/imageio for the fallback, so graphics
+	 * cached or left on the printer with one setting aren't reused for another
+	 */
+	@Override
+	public String getName() {
+		if(pngEncoder == null) {
+			return NAME + "/imageio";
+		}
+		return NAME + "/" + pngEncoder.getCompressionLevel() + "/" + pngEncoder.getFilter();
+	}
+
+	@Override
+	public EpsonZplGraphic encode(BufferedImage image, String name) throws IOException {
+
+		byte[] upload;
+
+		if(pngEncoder != null) {
+			//the encoder puts the ~DY command in front of the PNG itself, so the upload is built in place
+			upload = pngEncoder.encode(image, length -> uploadCommand(name, length));
+		}else {
+			byte[] pngBytes = encodePng(image);
+			byte[] command = uploadCommand(name, pngBytes.length);
+			upload = Arrays.copyOf(command, command.length + pngBytes.length);
+			System.arraycopy(pngBytes, 0, upload, command.length, pngBytes.length);
+		}
+
+		return new EpsonZplGraphic("R:" + name + ".PNG", upload, "^IMR:" + name + ".PNG", NAME);
+	}
+
+	/**
+	 * ~DYR:name,B,P,length,0, the PNG follows straight after it
+	 * @param name
+	 * @param length
+	 * @return
+	 */
+	private static byte[] uploadCommand(String name, int length) {
+		return new EpsonZplCommandBuilder(32).append("~DYR:").append(name).append(",B,P,").append(length).append(",0,").toByteArray();//send the image to the printer memory
+	}
+
+	/**
+	 * Writes the image as a PNG to memory with ImageIO
+	 * @param image
+	 * @return
+	 * @throws IOException
+	 */
+	private byte[] encodePng(BufferedImage image) throws IOException {
+
+		ByteArrayOutputStream pngBaos = new ByteArrayOutputStream();
+		if(!ImageIO.write(image, "png", pngBaos)) {//write the image as a PNG to memory
+			throw new IOException("No PNG writer for image type " + image.getType());
+		}
+		pngBaos.flush();
+
+		byte[] pngBytes = pngBaos.toByteArray();
+		pngBaos.close();
+
+		return pngBytes;
+	}
+
+	public EpsonZplPngEncoder getPngEncoder() {return pngEncoder;}
+
+}
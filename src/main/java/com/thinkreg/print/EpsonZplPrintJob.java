@@ -29,28 +29,47 @@
 package com.thinkreg.print;
 
 import java.awt.image.BufferedImage;
-import java.io.BufferedOutputStream;
-import java.io.BufferedReader;
 import java.io.ByteArrayOutputStream;
-import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.net.ConnectException;
-import java.nio.charset.StandardCharsets;
-import java.net.Socket;
 import java.net.SocketTimeoutException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
-import javax.imageio.ImageIO;
 
 
+public class EpsonZplPrintJob{
 
+	public static final byte[] COMMAND_SAVE_TO_NON_VOLATILE_MEMORY = EpsonZplCommandBuilder.ascii("^JUS\r");
 
-public class EpsonZplPrintJob{
+	private static final byte[] CR = EpsonZplCommandBuilder.CR;
+	private static final byte[] CALIBRATE = EpsonZplCommandBuilder.ascii("^XA~JC^XZ\r");
+	private static final byte[] PAUSE = EpsonZplCommandBuilder.ascii("^XA^PP^XZ\r");
+	private static final byte[] CANCEL_PAUSE = EpsonZplCommandBuilder.ascii("^XA~PS^XZ\r");
+	private static final byte[] PURGE = EpsonZplCommandBuilder.ascii(EpsonZplResidentGraphics.getPurgeZPL());
+	//what older versions of this class left behind
+	private static final byte[] PURGE_LEGACY = EpsonZplCommandBuilder.ascii("^XA^IDR:BADGE.*^FS^IDR:VAR*.*^FS^XZ\r");
+	private static final byte[] STATUS_QUERIES = buildStatusQueries();
 
-	public static final byte[] COMMAND_SAVE_TO_NON_VOLATILE_MEMORY = "^JUS\r".getBytes();
+	//~HS is answered straight away, nothing is queued ahead of it on a new socket
+	private static final int HOST_STATUS_TIMEOUT_MS = 2000;
+
+	//settings the printer has no query for, as last saved on each printer (ip:port)
+	private static final ConcurrentMap<String, Map<String, String>> APPLIED_SETTINGS = new ConcurrentHashMap<String, Map<String, String>>();
 
 
 	private DPI dpi = null;
@@ -68,6 +87,15 @@ public class EpsonZplPrintJob{
 	private BigDecimal labelWidth = null;
 	private Integer cloggedNozzles;
 	private Integer nozzleCheckLabel;
+	private Executor executor = null;
+	private EpsonZplPayloadCache payloadCache = EpsonZplPayloadCache.getDefault();
+	private EpsonZplPngEncoder pngEncoder = EpsonZplPngEncoder.getDefault();
+	private GRAPHIC_ENCODING graphicEncoding = GRAPHIC_ENCODING.PNG;
+	private EpsonZplBatchPreparer batchPreparer = EpsonZplBatchPreparer.getDefault();
+	private EpsonZplGraphicEncoder graphicEncoder = null;
+	private EpsonZplSpool spool = null;
+	private long replyTimeoutMillis = EpsonZplReplyReader.DEFAULT_FIRST_REPLY_TIMEOUT_MS;
+	private int idleReadTimeoutMillis = EpsonZplReplyReader.DEFAULT_IDLE_READ_TIMEOUT_MS;
 
 
 	public EpsonZplPrintJob(String ip, int port){
@@ -85,113 +113,636 @@ public class EpsonZplPrintJob{
 
 
 	/**
-	 * If you have buffered images set, this will send them to the printer. 
+	 * If you have buffered images set, this will send them to the printer. All of the images go out
+	 * together as one batch, see {@link #printBatch()} if you need to know how each label did.
 	 * @return 
 	 * @throws IOException
 	 */
 	public EpsonZplPrinterResponse print() throws Exception {
 		//long start = System.currentTimeMillis();
 
+		return toResponse(printBatch());
+	}
+
+	/**
+	 * Folds the per-label results of a batch back into the single response print() has always returned.
+	 * @param results
+	 * @return
+	 * @throws Exception if nothing was sent
+	 */
+	private EpsonZplPrinterResponse toResponse(List<EpsonZplLabelResult> results) throws Exception {
+
 		EpsonZplPrinterResponse response = null;
+		int failed = 0;
 
-		for(BufferedImage image: images) {
-			//int width = image.getWidth();
-			//int height = image.getHeight();
+		for(EpsonZplLabelResult result: results) {
+			if(response == null && result.getResponse() != null) {
+				response = result.getResponse();
+			}
+			if(!result.isSuccess()) {
+				failed++;
+			}
+		}
 
-			//height = height - 100;
+		if(response == null) {
+			response = new EpsonZplPrinterResponse();
+			response.setErrorCode(EpsonZplPrinterResponse.ERROR_CODE.UNKNOWN);
+			throw new Exception("Printer response was null");
 
-			ByteArrayOutputStream pngBaos = new ByteArrayOutputStream();
-			ImageIO.write(image, "png", pngBaos);//write the image as a PNG to memory
-			pngBaos.flush();
+		}
 
-			byte[] pngBytes = pngBaos.toByteArray();
-			pngBaos.close();
+		if(failed > 0 && response.getSuccess() != null && response.getSuccess()) {
+			response.setSuccess(false);
+			response.setMessage((response.getMessage() == null ? "" : response.getMessage() + " ") + failed + " of " + results.size() + " labels failed");
+		}
 
-			//System.out.println("IMAGE WIDTH: " + width + " HEIGHT: " + height);
+		return response;
+	}
 
-			ByteArrayOutputStream baos = new ByteArrayOutputStream();
-			baos.writeBytes("^XA^IDR:*.*^FS^XZ".getBytes()); //1. Delete the files from the printer in case we have stuff left over.
-			baos.writeBytes("\r".getBytes());
+	/**
+	 * Sends every image as one batch: all of the labels are written in a single stream on one
+	 * connection, and the printer status is asked for once at the end. Labels are encoded in parallel
+	 * ahead of the one being sent by the job's {@link EpsonZplBatchPreparer}, so the printer is
+	 * receiving label N while the labels after it are being encoded.
+	 * A label that can't be encoded is skipped and reported, it doesn't stop the rest of the batch.
+	 * Badges already on the printer from an earlier batch are recalled, not sent again, see
+	 * {@link EpsonZplResidentGraphics}.
+	 * @return one result per image, in the same order as {@link #getImages()}
+	 * @throws Exception
+	 */
+	public List<EpsonZplLabelResult> printBatch() throws Exception {
+		return printBatch(this.images);
+	}
 
-			//set paper size, cutter, dpi, save it
-			baos.writeBytes("^XA".getBytes());
-			//Set BOTH rendering and print resolution to the job's dpi. The image below is placed
-			//against the rendering-resolution grid, so a lower-dpi (fewer pixel, less data) render
-			//still fills the full physical label instead of shrinking — only print quality drops.
-			//Setting print resolution alone leaves rendering at 600 and makes the badge print small.
-			if(this.getDpi() != null) {
-				baos.writeBytes(("^S(CLR,R," + this.getDpi().getResolution() + "\r").getBytes()); //rendering resolution [dpi]
-				baos.writeBytes(("^S(CLR,P," + this.getDpi().getResolution() + "\r").getBytes()); //print resolution [dpi]
+	private List<EpsonZplLabelResult> printBatch(List<BufferedImage> images) throws Exception {
+
+		if(images == null || images.isEmpty()) {
+			return new ArrayList<EpsonZplLabelResult>();
+		}
+
+		//each label goes in the spool once it's encoded, and comes out once the batch has its results
+		EpsonZplSpool.Batch spooled = this.getSpool() == null ? null : this.getSpool().startBatch();
+		int dpi = this.getDpi() == null ? 0 : this.getDpi().getResolution();
+
+		List<EpsonZplLabelResult> results = null;
+		try {
+			results = printBatch(images.size(), index -> {
+				EncodedGraphic label = encodeResidentGraphic(images.get(index));
+				if(spooled != null) {
+					spooled.append(index, this.getIp(), this.getPort(), dpi, label);
+				}
+				return label;
+			}, images);
+		}finally {
+			if(spooled != null) {
+				try {
+					spooled.close();
+				}catch(IOException ex) {
+					//still in the journal, it'll be sent again by the next replay
+					if(results != null) {
+						for(EpsonZplLabelResult result: results) {
+							addMessage(result, "Spool: " + ex.getMessage());
+						}
+					}
+				}
+			}
+		}
+
+		if(spooled != null) {
+			for(Map.Entry<Integer, IOException> failure: spooled.getFailures().entrySet()) {
+				addMessage(results.get(failure.getKey()), "Not spooled: " + failure.getValue().getMessage());
 			}
+		}
 
+		return results;
+	}
 
+	private static void addMessage(EpsonZplLabelResult result, String message) {
+		result.setMessage(result.getMessage() == null ? message : result.getMessage() + " " + message);
+	}
+
+	/**
+	 * Sends labels read back from a spool, see {@link EpsonZplSpool#replay()}
+	 * @param entries
+	 * @return
+	 * @throws Exception
+	 */
+	List<EpsonZplLabelResult> printSpooled(List<EpsonZplSpool.Entry> entries) throws Exception {
+		return printBatch(entries.size(), index -> entries.get(index).getLabel(), Collections.<BufferedImage>emptyList());
+	}
 
-			baos.writeBytes("^XZ".getBytes());
+	/**
+	 * @param count
+	 * @param encode the upload for the label at an index, run on the batch preparer
+	 * @param images what the labels were made from, for the job event
+	 * @return
+	 * @throws Exception
+	 */
+	private List<EpsonZplLabelResult> printBatch(int count, EpsonZplBatchPreparer.Task<EncodedGraphic> encode, List<BufferedImage> images) throws Exception {
 
-			baos.writeBytes("\r".getBytes());
-			baos.writeBytes("~DYR:BADGE,B,P,".getBytes());//send the image to the printer memory
-			baos.writeBytes(String.valueOf(pngBytes.length).getBytes());
-			baos.writeBytes(",0,".getBytes());
-			baos.writeBytes(pngBytes);
+		List<EpsonZplLabelResult> results = new ArrayList<EpsonZplLabelResult>();
+		List<EpsonZplLabelResult> sent = new ArrayList<EpsonZplLabelResult>();
 
+		for(int i = 0; i < count; i++) {
+			results.add(new EpsonZplLabelResult(i));
+		}
 
-			baos.writeBytes("\r".getBytes());
-			baos.writeBytes("^XA".getBytes());
-			// baos.writeBytes("^MMC".getBytes()); //Media command to cut label after print
-			//	    baos.writeBytes("\r".getBytes());
+		EpsonZplJobEvent event = new EpsonZplJobEvent();
+		event.begin();
+		long[] payloadBytes = new long[1];	//added to from inside the body
+		EpsonZplPrinterResponse response = null;
 
-			baos.writeBytes("^FO0,0^IMR:BADGE.PNG^FS".getBytes());	// 3. Arrange the graphic in the position (0,0).
-			baos.writeBytes("^XZ".getBytes());
-			baos.writeBytes("\r".getBytes());
+		EpsonZplBatchPreparer.Batch<EncodedGraphic> pipeline = this.getBatchPreparer().start(count, encode, label -> label.graphic.getSize());
 
-			baos.writeBytes("^XA ^IDR:*.*^FS^XZ".getBytes()); 		//4. Delete the files from the printer.
+		try {
+			//don't take the printer's turn in the queue until there's something to send
+			pipeline.awaitFirst();
 
+			//the stream is only put together once we hold the connection, since what has to be uploaded
+			//depends on what's still on the printer
+			response = sendBatch((out, resident) -> {
 
+				writeBatchHeader(out, resident);
 
-			//	        File badgeAsFileZpl = new File("D:\\BadgeAsFile.zpl");
+				for(int i = 0; pipeline.hasNext(); i++) {
 
+					EncodedGraphic label;
+					try {
+						label = pipeline.next();
+					}catch(Exception ex) {
+						ex.printStackTrace();
+						results.get(i).setSuccess(false);
+						results.get(i).setMessage("Unable to encode label " + i + ": " + ex.getMessage());
+						continue;
+					}
 
-			try /*(BufferedOutputStream fos = new BufferedOutputStream(new FileOutputStream(badgeAsFileZpl));
-    		)*/{
+					writeLabel(out, resident, label);
+					sent.add(results.get(i));
+					payloadBytes[0] += label.graphic.getSize();
 
-				byte[] zplBytes = null;
-				if(baos != null) {
-					zplBytes = baos.toByteArray();
+					//the next label is still encoding, let the printer have this one now rather than
+					//leaving its last few bytes sitting in the buffer
+					if(!pipeline.isNextReady()) {
+						out.flush();
+					}
 				}
-				//fos.write(zplBytes);
-				//					long currentTime = System.currentTimeMillis();
+			}, sent);
 
-				return sendZpl(zplBytes, this.getIp(), 9100);
-			}catch(Exception ex) {
-				response = new EpsonZplPrinterResponse();
-				response.setSuccess(false);
-				response.setErrorCode(EpsonZplPrinterResponse.ERROR_CODE.UNKNOWN);
-				response.setMessage(ex.getMessage());
-				ex.printStackTrace();
+			//anything the body never got to, the connection failed before it was written
+			for(EpsonZplLabelResult result: results) {
+				if(result.getResponse() == null && result.getMessage() == null) {
+					result.setMessage(response.getMessage());
+				}
 			}
+		}finally {
+			pipeline.cancel();
+		}
 
-			baos = null;
-
+		event.end();
+		if(event.shouldCommit()) {
+			event.set(this, "PRINT", response);
+			event.labels = count;
+			event.payloadBytes = payloadBytes[0];
+			for(BufferedImage image: images) {
+				event.imageWidth = Math.max(event.imageWidth, image.getWidth());
+				event.imageHeight = Math.max(event.imageHeight, image.getHeight());
+			}
+			for(EpsonZplLabelResult result: results) {
+				if(!result.isSuccess()) {
+					event.failedLabels++;
+				}
+			}
+			event.commit();
 		}
 
-		if(response == null) {
+		return results;
+	}
+
+	/**
+	 * Sends a batch and gives every label in it the one status reply we get back.
+	 * @param body builds the batch once the connection is ours
+	 * @param sent the labels that are in the batch
+	 * @return the printer's response, or an UNKNOWN one if it couldn't be sent
+	 */
+	private EpsonZplPrinterResponse sendBatch(ZplBody body, List<EpsonZplLabelResult> sent) {
+
+		EpsonZplPrinterResponse response = null;
+
+		try {
+			response = sendZpl(body, this.getIp(), this.getPort());
+		}catch(Exception ex) {
 			response = new EpsonZplPrinterResponse();
+			response.setSuccess(false);
 			response.setErrorCode(EpsonZplPrinterResponse.ERROR_CODE.UNKNOWN);
-			throw new Exception("Printer response was null");
+			response.setMessage(ex.getMessage());
+			ex.printStackTrace();
+		}
+
+		//one status reply for the whole batch, so every label we sent shares it
+		boolean printed = response.getSuccess() != null && response.getSuccess() &&
+				(response.getErrorCode() == null || !response.getErrorCode().isBlocksPrinting());
 
+		for(EpsonZplLabelResult result: sent) {
+			result.setResponse(response);
+			result.setSuccess(printed);
+			if(!printed) {
+				result.setMessage(response.getErrorCode() != null && response.getErrorCode().isBlocksPrinting() ? 
+						response.getErrorCode().getMessage() : response.getMessage());
+			}
 		}
 
 		return response;
 	}
 
+	/**
+	 * Stores the template's background on the printer. It stays there until deleted with
+	 * {@link #deleteTemplate}, print jobs only ever evict their own badge graphics.
+	 * {@link #printWithTemplate} calls this the first time a template is used on a printer.
+	 * @param template
+	 * @return
+	 * @throws Exception
+	 */
+	public EpsonZplPrinterResponse uploadTemplate(EpsonZplBadgeTemplate template) throws Exception {
+
+		EpsonZplJobEvent event = new EpsonZplJobEvent();
+		event.begin();
+
+		EpsonZplGraphic background = encodeGraphic(template.getBackground(), template.getName());
+		EpsonZplPrinterResponse response = null;
+
+		try {
+			response = sendZpl((out, resident) -> writeTemplateUpload(out, resident, template, background), this.getIp(), this.getPort());
+		}finally {
+			event.end();
+			if(event.shouldCommit()) {
+				event.set(this, "UPLOAD_TEMPLATE", response);
+				event.payloadBytes = background.getSize();
+				event.imageWidth = template.getBackground().getWidth();
+				event.imageHeight = template.getBackground().getHeight();
+				event.commit();
+			}
+		}
+
+		return response;
+	}
+
+	/**
+	 * Removes the template's background from the printer
+	 * @param template
+	 * @return
+	 * @throws Exception
+	 */
+	public EpsonZplPrinterResponse deleteTemplate(EpsonZplBadgeTemplate template) throws Exception {
+
+		EpsonZplJobEvent event = new EpsonZplJobEvent();
+		event.begin();
+
+		EpsonZplPrinterResponse response = null;
+
+		try {
+			response = sendZpl((out, resident) -> {
+				resident.removeTemplate(template.getName());
+				EpsonZplCommandBuilder.forStream(out).append("^XA^IDR:").append(template.getName()).append(".*^FS^XZ\r").writeTo(out);
+			}, this.getIp(), this.getPort());
+		}finally {
+			event.end();
+			if(event.shouldCommit()) {
+				event.set(this, "DELETE_TEMPLATE", response);
+				event.commit();
+			}
+		}
+
+		return response;
+	}
+
+	/**
+	 * Prints one badge per list of overlays, each one the template's background with the overlays
+	 * on top. Only the overlays go over the wire per badge: text and QR codes as a few bytes of ZPL
+	 * each, overlay images as their own small uploads unless the printer already has them. Everything
+	 * goes in one batch like {@link #printBatch()}, and the template is uploaded first if this printer
+	 * hasn't had it yet.
+	 * @param template
+	 * @param badges the overlays for each badge
+	 * @return one result per badge, in order
+	 * @throws Exception
+	 */
+	public List<EpsonZplLabelResult> printWithTemplate(EpsonZplBadgeTemplate template, List<List<EpsonZplOverlay>> badges) throws Exception {
+
+		List<EpsonZplLabelResult> results = new ArrayList<EpsonZplLabelResult>();
+
+		if(badges == null || badges.isEmpty()) {
+			return results;
+		}
+
+		EpsonZplJobEvent event = new EpsonZplJobEvent();
+		event.begin();
+		long[] payloadBytes = new long[1];	//added to from inside the body
+		EpsonZplPrinterResponse response = null;
+
+		try {
+			response = printWithTemplate(template, badges, results, payloadBytes);
+		}finally {
+			event.end();
+			if(event.shouldCommit()) {
+				event.set(this, "PRINT_TEMPLATE", response);
+				event.labels = badges.size();
+				event.payloadBytes = payloadBytes[0];
+				event.imageWidth = template.getBackground().getWidth();
+				event.imageHeight = template.getBackground().getHeight();
+				for(EpsonZplLabelResult result: results) {
+					if(!result.isSuccess()) {
+						event.failedLabels++;
+					}
+				}
+				event.commit();
+			}
+		}
+
+		return results;
+	}
+
+	/**
+	 * Encodes the badges and sends them, filling in results as it goes
+	 * @param template
+	 * @param badges
+	 * @param results one is added per badge
+	 * @param payloadBytes what went over the wire for the badges, for the job event
+	 * @return the printer's response, null if nothing was sent
+	 * @throws Exception
+	 */
+	private EpsonZplPrinterResponse printWithTemplate(EpsonZplBadgeTemplate template, List<List<EpsonZplOverlay>> badges, 
+			List<EpsonZplLabelResult> results, long[] payloadBytes) throws Exception {
+
+		List<EpsonZplLabelResult> sent = new ArrayList<EpsonZplLabelResult>();
+
+		EpsonZplGraphic background = encodeGraphic(template.getBackground(), template.getName());
+
+		//overlay images and the ZPL that places them, per badge
+		List<List<EncodedGraphic>> badgeImages = new ArrayList<List<EncodedGraphic>>();
+		List<String> badgeFields = new ArrayList<String>();
+
+		for(int i = 0; i < badges.size(); i++) {
+
+			EpsonZplLabelResult result = new EpsonZplLabelResult(i);
+			results.add(result);
+
+			try {
+				List<EncodedGraphic> images = new ArrayList<EncodedGraphic>();
+				StringBuilder fields = new StringBuilder();
+
+				for(EpsonZplOverlay overlay: badges.get(i)) {
+					if(overlay.getType() == EpsonZplOverlay.TYPE.IMAGE) {
+						EncodedGraphic image = encodeResidentGraphic(overlay.getImage());
+						images.add(image);
+						fields.append(image.graphic.getRecallZPL(overlay.getX(), overlay.getY()));
+					}else {
+						fields.append(overlay.getFieldZPL());
+					}
+				}
+
+				badgeImages.add(images);
+				badgeFields.add(fields.toString());
+				sent.add(result);
+			}catch(Exception ex) {
+				ex.printStackTrace();
+				result.setSuccess(false);
+				result.setMessage("Unable to encode badge " + i + ": " + ex.getMessage());
+			}
+		}
+
+		if(sent.isEmpty()) {
+			return null;
+		}
+
+		return sendBatch((out, resident) -> {
+			writeBatchHeader(out, resident);
+
+			if(!resident.isTemplateResident(template.getName())) {
+				writeTemplateUpload(out, resident, template, background);
+				payloadBytes[0] += background.getSize();
+			}
+
+			for(int i = 0; i < badgeFields.size(); i++) {
+
+				List<EncodedGraphic> oversized = new ArrayList<EncodedGraphic>();
+				for(EncodedGraphic image: badgeImages.get(i)) {
+					if(writeUpload(out, resident, image)) {
+						oversized.add(image);
+					}
+					payloadBytes[0] += image.graphic.getSize();
+				}
+
+				EpsonZplCommandBuilder zpl = EpsonZplCommandBuilder.forStream(out);
+				zpl.append(EpsonZplCommandBuilder.START_FORMAT).append(EpsonZplCommandBuilder.UTF8_FIELD_DATA);	//UTF-8 field data
+				background.appendRecallZPL(zpl, 0, 0);
+				zpl.appendUtf8(badgeFields.get(i));
+				zpl.append(EpsonZplCommandBuilder.END_FORMAT).append(CR);
+
+				for(EncodedGraphic image: oversized) {
+					image.graphic.appendDeleteZPL(zpl).append(CR);
+				}
+				payloadBytes[0] += zpl.length();
+				zpl.writeTo(out);
+			}
+		}, sent);
+	}
+
+	private void writeTemplateUpload(OutputStream out, EpsonZplResidentGraphics resident, EpsonZplBadgeTemplate template, EpsonZplGraphic background) throws IOException {
+		out.write(background.getUpload());
+		out.write(CR);
+		resident.addTemplate(template.getName(), background.getStoredSize());
+	}
+
+	/**
+	 * Encodes an image to be kept on the printer under the name that goes with its pixels, see
+	 * {@link EpsonZplResidentGraphics#nameFor}.
+	 * @param image
+	 * @return
+	 * @throws IOException
+	 */
+	EncodedGraphic encodeResidentGraphic(BufferedImage image) throws IOException {
+
+		EpsonZplGraphicEncoder encoder = this.getGraphicEncoder();
+		EpsonZplPayloadCache.Key key = EpsonZplPayloadCache.keyFor(image, this.getDpi(), encoder.getName());
+
+		return new EncodedGraphic(encodeGraphic(image, EpsonZplResidentGraphics.nameFor(key), key), key);
+	}
+
+	/**
+	 * The upload for this image stored as R:name, used for templates
+	 * @param image
+	 * @param name
+	 * @return
+	 * @throws IOException
+	 */
+	private EpsonZplGraphic encodeGraphic(BufferedImage image, String name) throws IOException {
+		//the name is inside the upload, so the same image stored under another name is another entry
+		return encodeGraphic(image, name, EpsonZplPayloadCache.keyFor(image, this.getDpi(), this.getGraphicEncoder().getName() + "/" + name));
+	}
+
+	/**
+	 * The upload for this image, from the payload cache if we've already encoded a badge that
+	 * looks exactly the same the same way, otherwise encoded now and added to the cache.
+	 * @param image
+	 * @param name stored on the printer as R:name
+	 * @param key the payload cache key for image and name
+	 * @return
+	 * @throws IOException
+	 */
+	private EpsonZplGraphic encodeGraphic(BufferedImage image, String name, EpsonZplPayloadCache.Key key) throws IOException {
+
+		EpsonZplPayloadCache cache = this.getPayloadCache();
+
+		if(cache != null) {
+			EpsonZplGraphic cached = cache.get(key);
+			if(cached != null) {
+				return cached;
+			}
+		}
+
+		EpsonZplGraphicEncoder encoder = this.getGraphicEncoder();
+		EpsonZplEncodeEvent event = new EpsonZplEncodeEvent();
+		event.begin();
+
+		long encodeStart = System.nanoTime();
+		EpsonZplGraphic graphic = encoder.encode(image, name);
+		this.getMetrics().record(EpsonZplMetrics.PHASE.ENCODE, System.nanoTime() - encodeStart);
+
+		event.end();
+		if(event.shouldCommit()) {
+			event.printer = EpsonZplConnectionPool.key(ip, port);
+			event.graphic = name;
+			event.encoder = encoder.getName();
+			event.imageWidth = image.getWidth();
+			event.imageHeight = image.getHeight();
+			event.dpi = this.getDpi() == null ? 0 : this.getDpi().getResolution();
+			event.bytes = graphic.getSize();
+			event.commit();
+		}
+
+		if(cache != null) {
+			cache.put(key, graphic);
+		}
+
+		return graphic;
+	}
+
+	/**
+	 * Sets the resolution once for the whole batch, after clearing out our old graphics if the
+	 * printer may have restarted since we last sent it any
+	 * @param out
+	 * @param resident
+	 */
+	void writeBatchHeader(OutputStream out, EpsonZplResidentGraphics resident) throws IOException {
+
+		//1. Delete our files from the printer in case we have stuff left over. Only the job's own
+		//graphics, anything else on R: (badge templates) is meant to stay there. BADGE and VAR are
+		//what older versions of this class left behind.
+		if(resident.takePurgeNeeded()) {
+			out.write(PURGE);
+			out.write(PURGE_LEGACY);
+		}
+
+		//set paper size, cutter, dpi, save it
+		EpsonZplCommandBuilder zpl = EpsonZplCommandBuilder.forStream(out);
+		zpl.append(EpsonZplCommandBuilder.START_FORMAT);
+		//Set BOTH rendering and print resolution to the job's dpi. The image below is placed
+		//against the rendering-resolution grid, so a lower-dpi (fewer pixel, less data) render
+		//still fills the full physical label instead of shrinking — only print quality drops.
+		//Setting print resolution alone leaves rendering at 600 and makes the badge print small.
+		if(this.getDpi() != null) {
+			zpl.append(EpsonZplCommandBuilder.RENDERING_RESOLUTION).append(this.getDpi().getResolution()).append(CR); //rendering resolution [dpi]
+			zpl.append(EpsonZplCommandBuilder.PRINT_RESOLUTION).append(this.getDpi().getResolution()).append(CR); //print resolution [dpi]
+		}
+
+		zpl.append(EpsonZplCommandBuilder.END_FORMAT).append(CR);
+		zpl.writeTo(out);
+	}
+
+	/**
+	 * Uploads the graphic unless the printer already has it, evicting whatever it takes to make room.
+	 * @param out
+	 * @param resident
+	 * @param encoded
+	 * @return true if it's too big to keep and has to be deleted again once printed
+	 */
+	private boolean writeUpload(OutputStream out, EpsonZplResidentGraphics resident, EncodedGraphic encoded) throws IOException {
+
+		if(resident.isResident(encoded.graphic, encoded.key)) {
+			return false;
+		}
+
+		List<String> deletes = resident.add(encoded.graphic, encoded.key);
+		if(!deletes.isEmpty()) {
+			EpsonZplCommandBuilder zpl = EpsonZplCommandBuilder.forStream(out);
+			for(String delete: deletes) {
+				zpl.append(delete);
+			}
+			zpl.writeTo(out);
+		}
+
+		out.write(encoded.graphic.getUpload());
+		out.write(CR);
+
+		return !resident.fits(encoded.graphic.getStoredSize());
+	}
+
+	/**
+	 * Uploads one label (if it isn't on the printer already) and prints it. The printer works
+	 * through the stream in order, so a later label can evict an earlier one's graphic.
+	 * @param out
+	 * @param resident
+	 * @param label from {@link #encodeResidentGraphic(BufferedImage)}
+	 */
+	void writeLabel(OutputStream out, EpsonZplResidentGraphics resident, EncodedGraphic label) throws IOException {
+
+		boolean oversized = writeUpload(out, resident, label);
+
+		EpsonZplCommandBuilder zpl = EpsonZplCommandBuilder.forStream(out);
+		zpl.append(EpsonZplCommandBuilder.START_FORMAT);
+		// out.write("^MMC".getBytes()); //Media command to cut label after print
+		//	    out.write(CR);
+
+		label.graphic.appendRecallZPL(zpl, 0, 0);	// 3. Arrange the graphic in the position (0,0).
+		zpl.append(EpsonZplCommandBuilder.END_FORMAT).append(CR);
+
+		if(oversized) {
+			label.graphic.appendDeleteZPL(zpl).append(CR);	//4. Too big to keep, delete it from the printer.
+		}
+		zpl.writeTo(out);
+	}
+
+	/**
+	 * Asks the printer for its status. If an {@link EpsonZplStatusMonitor} is running for this
+	 * printer, its last snapshot is returned instead as long as it's no older than the monitor's
+	 * max age.
+	 * @return
+	 * @throws IOException
+	 */
 	public EpsonZplPrinterResponse getPrinterStatus() throws IOException {
 
+		EpsonZplStatusMonitor monitor = EpsonZplStatusMonitor.getIfRunning(this.ip, this.port);
+		if(monitor != null) {
+			EpsonZplPrinterResponse snapshot = monitor.getSnapshot(monitor.getMaxAgeMillis());
+			if(snapshot != null) {
+				return snapshot;
+			}
+		}
+
+		return queryPrinterStatus();
+	}
+
+	/**
+	 * Always asks the printer, never the monitor's snapshot
+	 * @return
+	 */
+	EpsonZplPrinterResponse queryPrinterStatus() {
 
 		EpsonZplPrinterResponse response = null;
 
 		try {
 
-			response = sendZpl(null, this.ip, this.port);
+			response = sendZpl((byte[]) null, this.ip, this.port);
 
 		}catch(Exception ex) {
 			ex.printStackTrace();
@@ -209,10 +760,12 @@ public class EpsonZplPrintJob{
 
 	public EpsonZplPrinterResponse calibrate() throws IOException {
 
+		EpsonZplJobEvent event = new EpsonZplJobEvent();
+		event.begin();
+
 		ByteArrayOutputStream baos = new ByteArrayOutputStream();
 
-		baos.writeBytes("^XA~JC^XZ".getBytes()); 
-		baos.writeBytes("\r".getBytes());
+		baos.writeBytes(CALIBRATE);
 
 		EpsonZplPrinterResponse response = null;
 
@@ -227,13 +780,20 @@ public class EpsonZplPrintJob{
 		}
 
 
-		baos = null;
-
 		if(response == null) {
 			response = new EpsonZplPrinterResponse();
 			response.setErrorCode(EpsonZplPrinterResponse.ERROR_CODE.UNKNOWN);
 		}
 
+		event.end();
+		if(event.shouldCommit()) {
+			event.set(this, "CALIBRATE", response);
+			event.payloadBytes = baos.size();
+			event.commit();
+		}
+
+		baos = null;
+
 		return response;
 
 	}
@@ -248,8 +808,7 @@ public class EpsonZplPrintJob{
 
 		ByteArrayOutputStream baos = new ByteArrayOutputStream();
 
-		baos.writeBytes("^XA^PP^XZ".getBytes()); 
-		baos.writeBytes("\r".getBytes());
+		baos.writeBytes(PAUSE);
 
 		try {
 
@@ -274,8 +833,7 @@ public class EpsonZplPrintJob{
 
 		ByteArrayOutputStream baos = new ByteArrayOutputStream();
 
-		baos.writeBytes("^XA~PS^XZ".getBytes()); 
-		baos.writeBytes("\r".getBytes());
+		baos.writeBytes(CANCEL_PAUSE);
 
 		try {
 
@@ -293,16 +851,32 @@ public class EpsonZplPrintJob{
 
 
 	/**
-	 * pushes mark type, left edge, top edge adjustments to printer
+	 * pushes mark type, left edge, top edge adjustments to printer. The printer is asked what it has
+	 * first, and only the settings that are different are sent. ^JUS (the slow write to non-volatile
+	 * memory) is left off when nothing changed, so re-applying the same settings every shift costs
+	 * one status check per printer.
 	 * @return
 	 * @throws Exception
 	 */
 	public EpsonZplPrinterResponse updatePrinterSettings() throws Exception {
+		return updatePrinterSettings(false);
+	}
+
+	/**
+	 * Same as {@link #updatePrinterSettings()}
+	 * @param force send every setting and save them whatever the printer says it has, the way this
+	 * always used to work
+	 * @return
+	 * @throws Exception
+	 */
+	public EpsonZplPrinterResponse updatePrinterSettings(boolean force) throws Exception {
 		//long start = System.currentTimeMillis();
 
-		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		EpsonZplJobEvent event = new EpsonZplJobEvent();
+		event.begin();
 
-		baos.writeBytes("^XA\r".getBytes()); 
+		//one per line, sent in this order, minus whatever the printer already has
+		List<String> commands = new ArrayList<String>();
 
 		//https://files.support.epson.com/pdf/pos/bulk/cw-c4000_esclabel_crg_en_revc.pdf
 		//~H(CLE,b
@@ -311,7 +885,7 @@ public class EpsonZplPrintJob{
 		//		b=T: Physical label leading edge
 		//		position adjustment [dot]
 		//baos.writeBytes("^S(CMP,U,I \r".getBytes()); //1. Sets units to inches
-		baos.writeBytes(UNITS_OF_MEASUREMENT.DOTS.getZPL(dpi).getBytes()); //1. Sets units to dots
+		commands.add(UNITS_OF_MEASUREMENT.DOTS.getZPL(dpi)); //1. Sets units to dots
 
 		//https://files.support.epson.com/pdf/pos/bulk/cw-c4000_esclabel_crg_en_revc.pdf
 		if(this.getLeadingEdgeAdjustment() != null/*&& 
@@ -320,43 +894,43 @@ public class EpsonZplPrintJob{
 			//int dots = AWTUtils.inchesToPoints(Float.valueOf(job.getLeadingEdgeAdjustemnet()), DPI);
 			//			baos.writeBytes(("~H(CLE,T" + dots +  "\r").getBytes()); //2. top edge adjustment
 			//baos.writeBytes(("~H(CLE,T" + 10 +  "\r").getBytes()); //2. top edge adjustment
-			baos.writeBytes(("^S(CLE,T," + this.getLeadingEdgeAdjustment() +  "\r").getBytes()); //T: Physical label leading edge	position adjustment [dot]
+			commands.add("^S(CLE,T," + this.getLeadingEdgeAdjustment() +  "\r"); //T: Physical label leading edge	position adjustment [dot]
 			//+/-258
 		}
 
 		if(this.getLeftEdgeAdj() != null) {
 
-			baos.writeBytes(("^S(CLE,M," + this.getLeftEdgeAdj() +  "\r").getBytes()); //M: Physical label left edge position adjustment [dot]
+			commands.add("^S(CLE,M," + this.getLeftEdgeAdj() +  "\r"); //M: Physical label left edge position adjustment [dot]
 			//+/-36
 		}
 
 		if(this.getNozzleCheckLabel() != null && this.getNozzleCheckLabel() > 0) {
-			baos.writeBytes(("^S(CMV,I," + this.getNozzleCheckLabel()  +  "\r").getBytes()); //M: Physical label left edge position adjustment [dot]
+			commands.add("^S(CMV,I," + this.getNozzleCheckLabel()  +  "\r"); //M: Physical label left edge position adjustment [dot]
 		}
 
 		if(this.getCloggedNozzles() != null && this.getCloggedNozzles() > 0) {
-			baos.writeBytes(("^S(CMV,C," + this.getCloggedNozzles()  +  "\r").getBytes()); //M: Physical label left edge position adjustment [dot]
+			commands.add("^S(CMV,C," + this.getCloggedNozzles()  +  "\r"); //M: Physical label left edge position adjustment [dot]
 		}
 
 		if(this.getFeedAndCutMode() != null) {
 
-			baos.writeBytes(this.getFeedAndCutMode().getZPL().getBytes()); 
+			commands.add(this.getFeedAndCutMode().getZPL()); 
 		}
 
 		if(this.getDpi() != null) {
-			baos.writeBytes(this.getDpi().getZPL().getBytes());
+			commands.add(this.getDpi().getZPL());
 		}
 
 		if(this.getPrintQuality() !=null) {
-			baos.writeBytes(this.getPrintQuality().getZPL().getBytes()); //Q: Print quality
+			commands.add(this.getPrintQuality().getZPL()); //Q: Print quality
 		}
 
 		if(this.getLabelEdgeDetection() != null) {
-			baos.writeBytes(this.getLabelEdgeDetection().getZPL().getBytes()); //1. Set label detection to gap, blackmark, or none
+			commands.add(this.getLabelEdgeDetection().getZPL()); //1. Set label detection to gap, blackmark, or none
 		}
 
 		if(this.getUnitsOfMeasurement() != null) {
-			baos.writeBytes(this.getUnitsOfMeasurement().getZPL(dpi).getBytes()); 
+			commands.add(this.getUnitsOfMeasurement().getZPL(dpi)); 
 		}
 
 		//		if(this.getUnitsOfMeasurement() == null) {
@@ -371,19 +945,19 @@ public class EpsonZplPrintJob{
 				this.getUnitsOfMeasurement() != null) {
 
 			//baos.writeBytes(this.getUnitsOfMeasurement().getZPL()).getBytes()); 
-			baos.writeBytes(UNITS_OF_MEASUREMENT.DOTS.getZPL().getBytes());
+			commands.add(UNITS_OF_MEASUREMENT.DOTS.getZPL());
 			//b=L: Label width [dot]
 
 			if(this.getUnitsOfMeasurement() == UNITS_OF_MEASUREMENT.INCHES && this.getDpi() != null) {
 				int dots = new BigDecimal(this.getDpi().getResolution()).multiply(this.getLabelHeight()).intValue();
-				baos.writeBytes(("^S(CLS,L," + dots + "\r").getBytes()); //Sets label length in inches
+				commands.add("^S(CLS,L," + dots + "\r"); //Sets label length in inches
 			}else if(this.getUnitsOfMeasurement() == UNITS_OF_MEASUREMENT.MILLIMETERS && this.getDpi() != null) {
 
 				BigDecimal dots = new BigDecimal(this.getDpi().getResolution()).multiply(this.getLabelHeight());
 				dots = dots.divide(new BigDecimal(25.4));
-				baos.writeBytes(("^S(CLS,L," + dots + "\r").getBytes()); //Sets label length in inches
+				commands.add("^S(CLS,L," + dots + "\r"); //Sets label length in inches
 			}else{
-				baos.writeBytes(("^S(CLS,L," + this.getLabelHeight() + "\r").getBytes()); //Sets label length in inches
+				commands.add("^S(CLS,L," + this.getLabelHeight() + "\r"); //Sets label length in inches
 			}
 		}
 
@@ -391,44 +965,55 @@ public class EpsonZplPrintJob{
 				this.getUnitsOfMeasurement() != null) {
 
 			//baos.writeBytes(this.getUnitsOfMeasurement().getZPL().getBytes()); 
-			baos.writeBytes(UNITS_OF_MEASUREMENT.DOTS.getZPL().getBytes());
+			commands.add(UNITS_OF_MEASUREMENT.DOTS.getZPL());
 			//b=P: Label width [dot]
 
 			if(this.getUnitsOfMeasurement() == UNITS_OF_MEASUREMENT.INCHES && this.getDpi() != null) {
 				int dots = new BigDecimal(this.getDpi().getResolution()).multiply(this.getLabelWidth()).intValue();
-				baos.writeBytes(("^S(CLS,P," + dots + "\r").getBytes()); //Sets label length in inches
+				commands.add("^S(CLS,P," + dots + "\r"); //Sets label length in inches
 			}else if(this.getUnitsOfMeasurement() == UNITS_OF_MEASUREMENT.MILLIMETERS && this.getDpi() != null) {
 
 				BigDecimal dots = new BigDecimal(this.getDpi().getResolution()).multiply(this.getLabelWidth());
 				dots = dots.divide(new BigDecimal(25.4));
-				baos.writeBytes(("^S(CLS,P," + dots + "\r").getBytes()); //Sets label length in inches
+				commands.add("^S(CLS,P," + dots + "\r"); //Sets label length in inches
 			}else{
-				baos.writeBytes(("^S(CLS,P," + this.getLabelWidth() + "\r").getBytes()); //Sets label length in inches
+				commands.add("^S(CLS,P," + this.getLabelWidth() + "\r"); //Sets label length in inches
 			}
 
 		}
 
 
-		baos.writeBytes(COMMAND_SAVE_TO_NON_VOLATILE_MEMORY);
+		EpsonZplPrinterResponse response = null;
+		EpsonZplCommandBuilder zpl = new EpsonZplCommandBuilder();
 
-		baos.writeBytes("^XZ\r".getBytes()); 
+		try {
 
-		baos.writeBytes("\r".getBytes());
+			//what the printer has now, null if it couldn't tell us, then everything is sent
+			EpsonZplPrinterResponse current = force ? null : readPrinterSettings(commands);
+			List<String> changes = getChangedSettings(commands, current);
 
-		//	    File badgeAsFileZpl = new File("D:\\BadgeAsFile.zpl");
+			if(changes.isEmpty()) {
+				response = current;	//already set up, and that call checked its status too
+			}else {
+				zpl.append(EpsonZplCommandBuilder.START_FORMAT).append(CR);
 
-		EpsonZplPrinterResponse response = null;
+				for(String command: changes) {
+					zpl.append(command);
+				}
 
-		try /*(BufferedOutputStream fos = new BufferedOutputStream(new FileOutputStream(badgeAsFileZpl));
-	        		)*/{
+				zpl.append(COMMAND_SAVE_TO_NON_VOLATILE_MEMORY);
 
-			byte[] zplBytes = baos.toByteArray();
-			//fos.write(zplBytes);
-			//			long currentTime = System.currentTimeMillis();
-			//			long progress = 0;
+				zpl.append(EpsonZplCommandBuilder.END_FORMAT).append(CR);
 
-			response = sendZpl(zplBytes, this.getIp(), 9100);
-			//	        		printerDAO.doSave(printer);
+				zpl.append(CR);
+
+				response = sendZpl(zpl.toByteArray(), this.getIp(), this.getPort());
+				//	        		printerDAO.doSave(printer);
+
+				if(response != null && response.getSuccess() != null && response.getSuccess()) {
+					rememberSettings(changes);
+				}
+			}
 		}catch(Exception ex) {
 			ex.printStackTrace();
 		}
@@ -439,31 +1024,208 @@ public class EpsonZplPrintJob{
 			response.setErrorCode(EpsonZplPrinterResponse.ERROR_CODE.UNKNOWN);
 		}
 
+		event.end();
+		if(event.shouldCommit()) {
+			event.set(this, "UPDATE_SETTINGS", response);
+			event.payloadBytes = zpl.length();
+			event.commit();
+		}
+
 		return response;
 
 	}
 
+	/**
+	 * Asks the printer for the current value of every ^S( setting in commands, along with its status
+	 * @param commands
+	 * @return the response with {@link EpsonZplPrinterResponse#getSettings()} filled in, null if the
+	 * printer couldn't be asked
+	 */
+	private EpsonZplPrinterResponse readPrinterSettings(List<String> commands) {
 
+		Set<String> keys = new LinkedHashSet<String>();
+		for(String command: commands) {
+			String key = getSettingKey(command);
+			if(key != null) {
+				keys.add(key);
+			}
+		}
 
-	private EpsonZplPrinterResponse sendZpl(byte[] zpl, String ip, int port) throws Exception {
+		if(keys.isEmpty()) {
+			return null;
+		}
 
-		//System.out.println("ABOUT TO TRY TO SEND ZPL: " + ip +":" + port);
+		EpsonZplCommandBuilder queries = new EpsonZplCommandBuilder();
+		queries.append(EpsonZplCommandBuilder.START_FORMAT).append(CR);
+		for(String key: keys) {
+			queries.append(EpsonZplCommandBuilder.QUERY).append(key).append(CR);	//printer replies ^S(key,value
+		}
+		queries.append(EpsonZplCommandBuilder.END_FORMAT).append(CR);
+		byte[] zpl = queries.toByteArray();
 
-		//		String str = new String(zpl, StandardCharsets.UTF_8); 
-		//		System.out.println("ZPL BEING SENT " + ip +":" + port + "\r" + str);
+		try {
+			EpsonZplPrinterResponse response = sendZpl((out, resident) -> out.write(zpl), keys, this.getIp(), this.getPort());
+			return response.getSuccess() != null && response.getSuccess() ? response : null;
+		}catch(Exception ex) {
+			ex.printStackTrace();
+			return null;
+		}
+	}
 
-		//^PP Pause the printer
-		//~PS Cancel Pause
+	/**
+	 * The commands that need sending. Anything that isn't a setting (^MU units) goes along with the
+	 * changes so they mean the same thing they always did.
+	 * @param commands
+	 * @param current from {@link #readPrinterSettings}, null to send everything
+	 * @return empty if the printer already has every setting
+	 */
+	private List<String> getChangedSettings(List<String> commands, EpsonZplPrinterResponse current) {
 
-		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		if(current == null) {
+			return commands;
+		}
+
+		Map<String, String> applied = APPLIED_SETTINGS.get(EpsonZplConnectionPool.key(ip, port));
+		List<String> changes = new ArrayList<String>();
+		boolean changed = false;
+
+		for(String command: commands) {
+
+			String key = getSettingKey(command);
+			if(key != null) {
+				//^S(key,value, the printer can tell us what it has
+				if(!isSameSetting(command.substring(key.length() + 4).trim(), current.getSettings().get(key))) {
+					changes.add(command);
+					changed = true;
+				}
+			}else if(command.startsWith("^MM")) {
+				//no way to ask for the cut mode, go by what we last saved on it
+				if(applied == null || !command.equals(applied.get("^MM"))) {
+					changes.add(command);
+					changed = true;
+				}
+			}else {
+				changes.add(command);
+			}
+		}
+
+		return changed ? changes : new ArrayList<String>();
+	}
+
+	/**
+	 * Keeps what couldn't be read back (the cut mode) once the printer has saved it
+	 * @param sent
+	 */
+	private void rememberSettings(List<String> sent) {
+		for(String command: sent) {
+			if(command.startsWith("^MM")) {
+				APPLIED_SETTINGS.computeIfAbsent(EpsonZplConnectionPool.key(ip, port), k -> new ConcurrentHashMap<String, String>()).put("^MM", command);
+			}
+		}
+	}
+
+	/**
+	 * CLE,T from ^S(CLE,T,25.0
+	 * @param command
+	 * @return null if it isn't a ^S( setting
+	 */
+	private static String getSettingKey(String command) {
+		if(!command.startsWith("^S(")) {
+			return null;
+		}
+		int first = command.indexOf(',');
+		int second = first < 0 ? -1 : command.indexOf(',', first + 1);
+		return second < 0 ? null : command.substring(3, second);
+	}
+
+	/**
+	 * Numbers compare by value, the printer answers 25 to 25.0
+	 * @param wanted
+	 * @param current null if the printer didn't say
+	 * @return
+	 */
+	private static boolean isSameSetting(String wanted, String current) {
+
+		if(current == null) {
+			return false;
+		}
+
+		try {
+			return new BigDecimal(wanted).compareTo(new BigDecimal(current.trim())) == 0;
+		}catch(NumberFormatException notNumbers) {
+			return wanted.equalsIgnoreCase(current.trim());
+		}
+	}
 
-		if(zpl == null || zpl.length == 0) {
-			baos.write(zpl);
+
+
+	/**
+	 * Same as {@link #print()}, but runs on the job's executor and returns straight away. The list
+	 * of images is copied when this is called, the printer settings are read when the job runs.
+	 * @return
+	 */
+	public CompletableFuture<EpsonZplPrinterResponse> printAsync() {
+		List<BufferedImage> snapshot = images == null ? null : new ArrayList<BufferedImage>(images);
+		return supplyAsync(() -> toResponse(printBatch(snapshot)));
+	}
+
+	/**
+	 * Same as {@link #printBatch()}, but runs on the job's executor and returns straight away.
+	 * @return
+	 */
+	public CompletableFuture<List<EpsonZplLabelResult>> printBatchAsync() {
+		List<BufferedImage> snapshot = images == null ? null : new ArrayList<BufferedImage>(images);
+		return supplyAsync(() -> printBatch(snapshot));
+	}
+
+	public CompletableFuture<EpsonZplPrinterResponse> getPrinterStatusAsync() {
+		return supplyAsync(this::getPrinterStatus);
+	}
+
+	public CompletableFuture<EpsonZplPrinterResponse> calibrateAsync() {
+		return supplyAsync(this::calibrate);
+	}
+
+	public CompletableFuture<EpsonZplPrinterResponse> updatePrinterSettingsAsync() {
+		return supplyAsync(this::updatePrinterSettings);
+	}
+
+	/**
+	 * Runs the call on the job's executor, completing the future exceptionally if it throws.
+	 * @param call
+	 * @return
+	 */
+	private <T> CompletableFuture<T> supplyAsync(Callable<T> call) {
+
+		CompletableFuture<T> future = new CompletableFuture<T>();
+
+		try {
+			getExecutor().execute(() -> {
+				try {
+					future.complete(call.call());
+				}catch(Throwable ex) {
+					future.completeExceptionally(ex);
+				}
+			});
+		}catch(RejectedExecutionException ex) {
+			future.completeExceptionally(ex);
 		}
 
+		return future;
+	}
+
 
-		baos.writeBytes("^XA\r".getBytes()); //1. 
-		baos.writeBytes("~H(SEA,E\r".getBytes()); //Sends the printer error status
+	/**
+	 * The status queries that follow everything we send, one framed reply comes back for each. They
+	 * never change, so they're built once.
+	 * @return
+	 */
+	private static byte[] buildStatusQueries() {
+
+		EpsonZplCommandBuilder zpl = new EpsonZplCommandBuilder();
+
+		zpl.append("^XA\r"); //1. 
+		zpl.append(EpsonZplReplyReader.STATUS_QUERY.SEA.getZPL()); //Sends the printer error status
 
 		//		baos.writeBytes("~H(CLS,L\r".getBytes()); //Printer replies with length
 		//		baos.writeBytes("~H(CLS,P\r".getBytes()); //Printer replies with width
@@ -479,11 +1241,11 @@ public class EpsonZplPrintJob{
 		//		 CL: Head maintenance
 		//		 FC: Factory shipment state
 		//		 UP: Firmware updating
-		baos.writeBytes("~H(CPC,C\r".getBytes()); //gets the color correction
-		baos.writeBytes("~H(QIQ\r".getBytes()); //sends the remaining ink for all colors in the printer.
-		baos.writeBytes("~H(QMN\r".getBytes()); //sends the remaining Maintenance kit life.
-		baos.writeBytes("~H(IMF,V\r".getBytes()); //sends the firmware version (~H(IMF,V per CW-C4000 ESC/Label, SHEET 17)
-		baos.writeBytes("~H(IMP,S\r".getBytes()); //sends the serial number   (~H(IMF,S)
+		zpl.append(EpsonZplReplyReader.STATUS_QUERY.CPC.getZPL()); //gets the color correction
+		zpl.append(EpsonZplReplyReader.STATUS_QUERY.QIQ.getZPL()); //sends the remaining ink for all colors in the printer.
+		zpl.append(EpsonZplReplyReader.STATUS_QUERY.QMN.getZPL()); //sends the remaining Maintenance kit life.
+		zpl.append(EpsonZplReplyReader.STATUS_QUERY.IMF.getZPL()); //sends the firmware version (~H(IMF,V per CW-C4000 ESC/Label, SHEET 17)
+		zpl.append(EpsonZplReplyReader.STATUS_QUERY.IMP.getZPL()); //sends the serial number   (~H(IMF,S)
 
 
 		//		baos.writeBytes("~H(S".getBytes()); //(Get printer operation status) command to get the printer error status.
@@ -506,207 +1268,177 @@ public class EpsonZplPrintJob{
 
 		//baos.writeBytes("~H(SMA,S".getBytes()); //ER (error status) is returned
 
-		baos.writeBytes("^XZ\r".getBytes()); //1. Delete the files from the printer.
-
-		zpl = baos.toByteArray();
-
-
-
-		//        File badgeAsFileZpl = new File("D:\\BadgeAsFile" + this.getIp() + ".zpl");
-		//        
-		//        try (BufferedOutputStream fos = new BufferedOutputStream(new FileOutputStream(badgeAsFileZpl));){
-		//        				
-		//        	fos.write(zpl);
-		//		
-		//        }catch(Exception ex) {
-		//        	ex.printStackTrace();
-		//        }
-
-
-
-		long start = System.currentTimeMillis();
-		EpsonZplPrinterResponse response = new EpsonZplPrinterResponse();
-		//set to false, set to true if we were successful.
-
-		//		response.setSuccessfulConnection(false);
-
-		try (Socket clientSocket = new Socket(ip, port);
-				BufferedReader in =  new BufferedReader(new InputStreamReader(clientSocket.getInputStream(), StandardCharsets.ISO_8859_1));
-				DataOutputStream outToServer =  new DataOutputStream(new BufferedOutputStream(clientSocket.getOutputStream()));
-				/*BufferedWriter out = new BufferedWriter(clientSocket.getOutputStream()));*/){
-
-			//Short per-read timeout. There is no end-of-data marker and the printer keeps port 9100
-			//open (no EOF), so we detect "done" by the printer going idle for this long after it has
-			//started replying. The overall deadline below still allows time for it to start.
-			final int IDLE_READ_TIMEOUT_MS = 500;
-			clientSocket.setSoTimeout(IDLE_READ_TIMEOUT_MS);
+		zpl.append("^XZ\r"); //1. Delete the files from the printer.
 
-			System.out.println("SOCKET IS CONNECTED: " + clientSocket.isConnected() + " " + ip + ":" + port);
-			response.setSuccessfulConnection(clientSocket.isConnected());
+		return zpl.toByteArray();
+	}
 
+	/**
+	 * Everything sent to a printer goes through that printer's queue, so however many threads and
+	 * jobs are printing to it, only one of them is on the wire at a time and they go in order.
+	 * @param zpl
+	 * @param ip
+	 * @param port
+	 * @return
+	 * @throws Exception
+	 */
+	private EpsonZplPrinterResponse sendZpl(byte[] zpl, String ip, int port) throws Exception {
+		return sendZpl((out, resident) -> {
 			if(!isEmpty(zpl)) {
-				outToServer.write(zpl);
+				out.write(zpl);
 			}
-			//Flush so the query actually reaches the printer now. Without this it stays in the
-			//BufferedOutputStream until the socket closes, so readLine() below waits on a reply the
-			//printer never received and blocks until the socket timeout.
-			outToServer.flush();
-
-
-			String fromPrinter = null;
-
-			//System.out.println("Read Start");
-
-			//Thread.sleep(100);
-
-			char STX = (char) Integer.parseInt("02", 16);//STX
-			char ETX = (char) Integer.parseInt("03", 16);//ETX
-
-			//start = System.currentTimeMillis();
-
-			//boolean readIq = false;
-			//last command is Mn
-			//boolean readMn = false;
-//			System.out.println("ABOUT TO GET PRINTER RESPONSE");
+		}, ip, port);
+	}
 
-			//Read until the printer goes idle. A readLine timeout after we've received at least one
-			//line means all replies are in; a timeout before any data (until the overall deadline)
-			//just means the printer is still processing the job, so keep waiting. This also lets
-			//replies sent after QMN (e.g. firmware version, serial number) be read.
-			int linesRead = 0;
-			long firstReplyDeadline = System.currentTimeMillis() + 10000L;
-			while (true) {
+	private EpsonZplPrinterResponse sendZpl(ZplBody body, String ip, int port) throws Exception {
+		return sendZpl(body, Collections.<String>emptyList(), ip, port);
+	}
 
-				try {
-					fromPrinter = in.readLine();
-				}catch(SocketTimeoutException idle) {
-					if(linesRead > 0) {
-						break;   //printer has gone quiet — all data received
-					}
-					if(System.currentTimeMillis() >= firstReplyDeadline) {
-						throw idle;   //never started replying — genuine failure
-					}
-					continue;   //still processing the job — keep waiting
-				}
+	/**
+	 * @param body
+	 * @param settingQueries ~H( setting queries the body sends, their replies are waited for along with the status
+	 * @param ip
+	 * @param port
+	 * @return
+	 * @throws Exception
+	 */
+	private EpsonZplPrinterResponse sendZpl(ZplBody body, Collection<String> settingQueries, String ip, int port) throws Exception {
+
+		//A printer that has stopped answering would otherwise cost every call the full connect or reply
+		//timeout, one after another through the queue. Fail now and let the breaker find out when it's back.
+		EpsonZplCircuitBreaker breaker = EpsonZplCircuitBreaker.forPrinter(ip, port);
+		EpsonZplCircuitBreaker.PERMIT permit = breaker.acquire();
+		if(permit == EpsonZplCircuitBreaker.PERMIT.DENIED) {
+			throw circuitOpen(ip, port);
+		}
 
-				if(fromPrinter == null) {
-					break;   //printer closed the connection (EOF)
+		try {
+			return EpsonZplPrintQueue.forPrinter(ip, port).run(() -> {
+				//calls already queued when it opened don't wait out the timeout one by one either
+				if(breaker.isOpen()) {
+					throw circuitOpen(ip, port);
 				}
+				return sendZplNow(body, settingQueries, ip, port);
+			});
+		}finally {
+			breaker.release(permit);	//if this was the half open trial, however far it got
+		}
+	}
 
-				linesRead++;
-
-				fromPrinter = fromPrinter.replace(String.valueOf(STX), "");
-				fromPrinter = fromPrinter.replace(String.valueOf(ETX), "");
-
-//				System.out.println("fromPrinter: " + fromPrinter);
+	/**
+	 * Asks the printer how many graphics it has stored and keeps the index only if none of ours can be
+	 * missing, see {@link EpsonZplResidentGraphics}. An index with nothing in it is just started over.
+	 * @param connection
+	 * @param resident
+	 * @throws IOException
+	 */
+	private static void confirmResident(EpsonZplConnection connection, EpsonZplResidentGraphics resident) throws IOException {
 
-				if(fromPrinter.startsWith("^S(SEA,E,")) {//It's the error status
-					fromPrinter = fromPrinter.replace("^S(SEA,E,", "");
-					response.setErrorCode(fromPrinter);
+		if(!resident.needsConfirming()) {
+			resident.reset();
+			return;
+		}
 
-				}else if(fromPrinter.startsWith("IQ,")) {//It's ink levels
-					fromPrinter = fromPrinter.replace("IQ,", "");
+		OutputStream out = connection.getOutputStream();
+		out.write(EpsonZplReplyReader.HOST_STATUS_QUERY);
+		out.flush();
+		resident.confirm(EpsonZplReplyReader.readStoredGraphicCount(connection, HOST_STATUS_TIMEOUT_MS));
+	}
 
-					String[] inkLevels = fromPrinter.split(",");
-					//<STX> IQ, <remaining black ink>, <remaining cyan ink>,<remaining magenta ink>, <remaining
-					//yellow ink><ETX><CR><LF>
-					//			    	RH Enough ink in cartridge
-					//			    	RM Moderate ink in cartridge
-					//			    	RL Small ink in cartridge
-					//			    	RN Ink cartridge low
-					//			    	RR Replace Ink cartridge
-					//			    	NA Ink cartridge not installed
-					//			    	CI Ink cartridge installed
+	private static ConnectException circuitOpen(String ip, int port) {
+		EpsonZplMetrics.forPrinter(ip, port).recordConnectFailure();
+		ConnectException ex = new ConnectException("Printer " + ip + ":" + port + " is not answering, not trying again until it is back");
 
+		EpsonZplPrinterResponse response = new EpsonZplPrinterResponse();
+		response.setIp(ip);
+		response.setPort(port);
+		response.setSuccess(false);
+		response.setErrorCode(EpsonZplPrinterResponse.ERROR_CODE.UNKNOWN);
+		response.setMessage(ex.getMessage());
+		EpsonZplStatusMonitor.forPrinter(ip, port).update(response);
+
+		return ex;
+	}
 
-					if(!isEmpty(inkLevels)) {
-						//black = inkLevels[0];
-						response.setBlack(inkLevels[0]);
+	private EpsonZplPrinterResponse sendZplNow(ZplBody body, Collection<String> settingQueries, String ip, int port) throws Exception {
 
-						if(inkLevels.length > 1) {
-							response.setCyan(inkLevels[1]);
-						}
+		//System.out.println("ABOUT TO TRY TO SEND ZPL: " + ip +":" + port);
 
-						if(inkLevels.length > 2) {
-							response.setMagenta(inkLevels[2]);
-						}
+		//		String str = new String(zpl, StandardCharsets.UTF_8); 
+		//		System.out.println("ZPL BEING SENT " + ip +":" + port + "\r" + str);
 
-						if(inkLevels.length > 3) {
-							response.setYellow(inkLevels[3]);
-						}
-					}
+		//^PP Pause the printer
+		//~PS Cancel Pause
 
-					//			    	System.out.println("BLACK: " + black + " Cyan: " + cyan + " Magenta: " + magenenta + 
-					//			    			" Yellow: " + yellow);
-
-					//readIq = true;
-				}else if(fromPrinter.startsWith("MN,")) {//It's ink levels
-					fromPrinter = fromPrinter.replace("MN,", "");
-
-					//<STX> IQ, <remaining black ink>, <remaining cyan ink>,<remaining magenta ink>, <remaining
-					//yellow ink><ETX><CR><LF>
-					//			    	RH Enough ink in cartridge
-					//			    	RM Moderate ink in cartridge
-					//			    	RL Small ink in cartridge
-					//			    	RN Ink cartridge low
-					//			    	RR Replace Ink cartridge
-					//			    	NA Ink cartridge not installed
-					//			    	CI Ink cartridge installed
-
-					if(!isEmpty(fromPrinter)) {
-						response.setMaintenance(fromPrinter);
-					}
+		EpsonZplPrinterResponse response = new EpsonZplPrinterResponse();
+		response.setIp(ip);
+		response.setPort(port);
+		//set to false, set to true if we were successful.
 
-					//			    	if(!WRPUtils.isEmpty(fromPrinter)) {
-					//				    	System.out.println("Maintinance Box: " + fromPrinter);
-					//
-					//			    	}
-					//no longer the loop terminator — the idle-timeout read above ends the loop, so
-					//replies sent after QMN (firmware version, serial number) are still read.
-					//			    	readMn = true;
-				}else if(fromPrinter.startsWith("^S(IMF,V,")) {//firmware version (~H(IMF,V)
-					String fw = fromPrinter.replace("^S(IMF,V,", "");
-					response.setMessage((response.getMessage() == null ? "" : response.getMessage() + " ") + "FW:" + fw);
-
-				}else if(fromPrinter.startsWith("^S(IMP,S,")) {//serial number (~H(IMP,S)
-					String sn = fromPrinter.replace("^S(IMP,S,", "");
-					response.setMessage((response.getMessage() == null ? "" : response.getMessage() + " ") + "SN:" + sn);
-
-				}/*else if(fromPrinter.startsWith("MN,")) {//It's ink levels
-					fromPrinter = fromPrinter.replace("MN,", "");
-
-					//<STX> IQ, <remaining black ink>, <remaining cyan ink>,<remaining magenta ink>, <remaining
-					//yellow ink><ETX><CR><LF>
-					//			    	RH Enough ink in cartridge
-					//			    	RM Moderate ink in cartridge
-					//			    	RL Small ink in cartridge
-					//			    	RN Ink cartridge low
-					//			    	RR Replace Ink cartridge
-					//			    	NA Ink cartridge not installed
-					//			    	CI Ink cartridge installed
-
-					if(!isEmpty(fromPrinter)) {
-						response.setMaintenance(fromPrinter);
-					}
+		//		response.setSuccessfulConnection(false);
 
-					//			    	if(!WRPUtils.isEmpty(fromPrinter)) {
-					//				    	System.out.println("Maintinance Box: " + fromPrinter);
-					//
-					//			    	}
-					//this is the last item we get
-					done = true;
-					//			    	readMn = true;
-				}*/
+		//Sockets are shared per printer through the pool, so we borrow one here and give it back once
+		//all the replies are read. A socket that fails part way through is closed, never reused.
+		EpsonZplConnectionPool pool = EpsonZplConnectionPool.forPrinter(ip, port);
+		EpsonZplResidentGraphics resident = EpsonZplResidentGraphics.forPrinter(ip, port);
+		EpsonZplMetrics metrics = EpsonZplMetrics.forPrinter(ip, port);
+		EpsonZplCircuitBreaker breaker = EpsonZplCircuitBreaker.forPrinter(ip, port);
+		EpsonZplConnection connection = null;
+		long bytesBefore = -1L;
+		long bytesSent = 0L;
 
+		EpsonZplRoundTripEvent event = new EpsonZplRoundTripEvent();
+		event.begin();
 
+		try {
 
-				//		    	System.out.println("readIq: " +readIq + " readMn: " + readMn);
+			long phaseStart = System.nanoTime();
+			connection = pool.borrow();
+			event.connect = System.nanoTime() - phaseStart;
+			event.reused = connection.isReused();
+			metrics.record(EpsonZplMetrics.PHASE.CONNECT, event.connect);
+			bytesBefore = connection.getBytesWritten();
+			OutputStream outToServer = connection.getOutputStream();
+
+			//A new socket is usually just the pool having closed an idle one, but the printer may also
+			//have been restarted in between. Check before the body decides what to upload.
+			if(!connection.isReused()) {
+				confirmResident(connection, resident);
+			}
 
-				//			    if(/*readIq &&*/ readMn) {
-				//			    	done = true;
-				////			    	System.out.println("Read Complete in " + (System.currentTimeMillis() - start));
-				//			    }
+			response.setSuccessfulConnection(connection.getSocket().isConnected());
 
+			//The body and the status queries go straight onto the socket's buffered stream, uploads
+			//included, so the batch is never copied into one big array first.
+			phaseStart = System.nanoTime();
+			body.write(outToServer, resident);
+			outToServer.write(STATUS_QUERIES);
+			//Flush so the query actually reaches the printer now. Without this it stays in the
+			//BufferedOutputStream until the socket closes, so the reply reader below waits on a reply the
+			//printer never received and blocks until the socket timeout.
+			outToServer.flush();
+			long written = System.nanoTime();
+			event.write = written - phaseStart;
+			metrics.record(EpsonZplMetrics.PHASE.WRITE, event.write);
+			bytesSent = connection.getBytesWritten() - bytesBefore;
+
+
+			//One framed reply is expected per query in the status block above. The reader stops as
+			//soon as the last one is in, and only falls back to waiting for the printer to go idle
+			//if one of them never gets answered.
+			EpsonZplReplyReader replyReader = new EpsonZplReplyReader(EnumSet.allOf(EpsonZplReplyReader.STATUS_QUERY.class));
+			replyReader.expectSettings(settingQueries);
+			replyReader.setFirstReplyTimeoutMillis(replyTimeoutMillis);
+			replyReader.setIdleReadTimeoutMillis(idleReadTimeoutMillis);
+			replyReader.read(connection, response);
+			breaker.recordSuccess();
+
+			long firstReplyAt = replyReader.getFirstReplyAt();
+			if(firstReplyAt != 0L) {
+				event.firstReply = firstReplyAt - written;
+				event.reply = System.nanoTime() - firstReplyAt;
+				metrics.record(EpsonZplMetrics.PHASE.FIRST_REPLY, event.firstReply);
+				metrics.record(EpsonZplMetrics.PHASE.REPLY, event.reply);
 			}
 
 
@@ -719,29 +1451,73 @@ public class EpsonZplPrintJob{
 			response.setSuccessfulConnection(true);
 			response.setSuccess(true);
 
-			//clientSocket.close();
+			//all replies read, the socket is clean for the next call to this printer. If we gave up on
+			//one, a late reply could still arrive and be read as the next call's, so don't reuse it.
+			if(replyReader.isComplete()) {
+				EpsonZplStatusMonitor.forPrinter(ip, port).update(response);	//as good as a poll
+				pool.release(connection);
+				connection = null;
+			}
 		}catch(ConnectException c1) {
+			metrics.recordConnectFailure();
+			breaker.recordFailure();
 			c1.printStackTrace();
+			response.setSuccess(false);
+			response.setErrorCode(EpsonZplPrinterResponse.ERROR_CODE.UNKNOWN);
 			response.setSuccessfulConnection(false);
 
 			response.setMessage("Cannot connect to printer:  " + ip + ":" + port + " " + c1.getLocalizedMessage());
 			//			throw new Exception("Cannot connect to printer: " + ip + ":" + port, c1);
 		}catch (SocketTimeoutException s1) {
-			System.out.println("SocketTimeoutException: no reply from printer " + ip + ":" + port);
+			metrics.recordTimeout();
+			breaker.recordFailure();
 			s1.printStackTrace();
+			response.setSuccess(false);
+			response.setErrorCode(EpsonZplPrinterResponse.ERROR_CODE.UNKNOWN);
 			response.setSuccessfulConnection(false);
 
 			response.setMessage("SOCKET TIMED OUT: " + ip + ":" + port + " " + s1.getLocalizedMessage());
 			//			throw new Exception("Cannot print label on this printer : " + ip + ":" + port, e1);
 		}catch (Exception e1) {
+			metrics.recordFailure();
+			if(e1 instanceof IOException) {
+				breaker.recordFailure();	//took the connection, then reset or broke it part way through
+			}
 			e1.printStackTrace();
+			response.setSuccess(false);
+			response.setErrorCode(EpsonZplPrinterResponse.ERROR_CODE.UNKNOWN);
 			response.setSuccessfulConnection(false);
 
 			response.setMessage(e1.getMessage());
 			throw new Exception("Cannot print label on this printer : " + ip + ":" + port, e1);
+		}finally {
+			//didn't get all the way through, some uploads the index counts on may not have made it
+			if(connection != null) {
+				resident.reset();
+				bytesSent = connection.getBytesWritten() - bytesBefore;
+			}
+			pool.invalidate(connection);
+
+			//the last good status no longer holds, don't let the monitor (and the fleet) keep handing it out
+			if(response.getSuccess() == null || !response.getSuccess()) {
+				EpsonZplStatusMonitor.forPrinter(ip, port).update(response);
+			}
+
+			if(bytesBefore >= 0L) {
+				metrics.recordCall(bytesSent, response.getErrorCode());
+			}
+
+			event.end();
+			if(event.shouldCommit()) {
+				event.printer = EpsonZplConnectionPool.key(ip, port);
+				event.bytesSent = bytesSent;
+				event.errorCode = response.getErrorCode() == null ? null : response.getErrorCode().getCode();
+				event.success = response.getSuccess() != null && response.getSuccess();
+				event.message = response.getMessage();
+				event.commit();
+			}
 		}
 
-		System.out.println((System.currentTimeMillis() - start) + " millis to connect to printer and transmits data.");
 		return response;
 
 	}
@@ -752,6 +1528,96 @@ public class EpsonZplPrintJob{
 		this.images = images;
 	}
 
+	/**
+	 * The executor the async methods run on, {@link EpsonZplExecutors#getDefaultExecutor()} unless one is set.
+	 * @return
+	 */
+	public Executor getExecutor() {
+		return executor == null ? EpsonZplExecutors.getDefaultExecutor() : executor;
+	}
+	public void setExecutor(Executor executor) {this.executor = executor;}
+
+	/**
+	 * Where finished uploads are kept so repeat badges skip the PNG encode. Every job shares
+	 * {@link EpsonZplPayloadCache#getDefault()} unless given its own, null turns caching off.
+	 * @return
+	 */
+	public EpsonZplPayloadCache getPayloadCache() {return payloadCache;}
+	public void setPayloadCache(EpsonZplPayloadCache payloadCache) {this.payloadCache = payloadCache;}
+
+	/**
+	 * Encodes the badges as PNG, {@link EpsonZplPngEncoder#getDefault()} unless given another.
+	 * Set it to null to go back to ImageIO.
+	 * @return
+	 */
+	public EpsonZplPngEncoder getPngEncoder() {return pngEncoder;}
+	public void setPngEncoder(EpsonZplPngEncoder pngEncoder) {this.pngEncoder = pngEncoder;}
+
+	/**
+	 * Encodes batch labels in parallel ahead of the one being sent. Shared by every job unless set.
+	 * @return
+	 */
+	public EpsonZplBatchPreparer getBatchPreparer() {return batchPreparer;}
+	public void setBatchPreparer(EpsonZplBatchPreparer batchPreparer) {this.batchPreparer = batchPreparer;}
+
+	/**
+	 * Where labels are kept on disk until their batch has its results, so a restart doesn't lose
+	 * them. Null (the default) keeps them in memory only.
+	 * @return
+	 */
+	public EpsonZplSpool getSpool() {return spool;}
+	public void setSpool(EpsonZplSpool spool) {this.spool = spool;}
+
+	/**
+	 * Timings and counters for this job's printer, shared with every other job aimed at it
+	 * @return
+	 */
+	public EpsonZplMetrics getMetrics() {return EpsonZplMetrics.forPrinter(ip, port);}
+
+	/**
+	 * Fails calls to this job's printer straight away while it isn't answering, shared with every
+	 * other job aimed at it
+	 * @return
+	 */
+	public EpsonZplCircuitBreaker getCircuitBreaker() {return EpsonZplCircuitBreaker.forPrinter(ip, port);}
+
+	public long getReplyTimeoutMillis() {return replyTimeoutMillis;}
+
+	/**
+	 * How long the printer has to start answering once a call is sent. A big batch is processed before
+	 * the replies start, so this has to allow for that.
+	 * @param replyTimeoutMillis
+	 */
+	public void setReplyTimeoutMillis(long replyTimeoutMillis) {this.replyTimeoutMillis = replyTimeoutMillis;}
+
+	public int getIdleReadTimeoutMillis() {return idleReadTimeoutMillis;}
+
+	/**
+	 * Once the printer has started answering, how long it can go quiet before the replies still
+	 * outstanding are given up on
+	 * @param idleReadTimeoutMillis
+	 */
+	public void setIdleReadTimeoutMillis(int idleReadTimeoutMillis) {this.idleReadTimeoutMillis = idleReadTimeoutMillis;}
+
+	public GRAPHIC_ENCODING getGraphicEncoding() {return graphicEncoding;}
+	/**
+	 * Which built in format badges are sent in. Clears any encoder set with {@link #setGraphicEncoder}.
+	 * @param graphicEncoding
+	 */
+	public void setGraphicEncoding(GRAPHIC_ENCODING graphicEncoding) {
+		this.graphicEncoding = graphicEncoding == null ? GRAPHIC_ENCODING.PNG : graphicEncoding;
+		this.graphicEncoder = null;
+	}
+
+	/**
+	 * The encoder set with {@link #setGraphicEncoder}, otherwise the one for the graphic encoding
+	 * @return
+	 */
+	public EpsonZplGraphicEncoder getGraphicEncoder() {
+		return graphicEncoder != null ? graphicEncoder : graphicEncoding.getEncoder(this.getPngEncoder());
+	}
+	public void setGraphicEncoder(EpsonZplGraphicEncoder graphicEncoder) {this.graphicEncoder = graphicEncoder;}
+
 	public String getIp() {return ip;}
 	public void setIp(String ip) {this.ip = ip;}
 
@@ -972,6 +1838,30 @@ public class EpsonZplPrintJob{
 	}
 
 
+	/**
+	 * How badge images are sent to the printer
+	 */
+	public enum GRAPHIC_ENCODING {
+		PNG,	//full colour PNG, ~DY and ^IM
+		Z64,	//black and white only, ~DG with Z64 compression and ^XG
+		AUTO;	//Z64 when the image is pure black and white and it comes out smaller, otherwise PNG
+
+		private static final EpsonZplGraphicEncoder Z64_ENCODER = new EpsonZplZ64GraphicEncoder();
+
+		public EpsonZplGraphicEncoder getEncoder(EpsonZplPngEncoder pngEncoder) {
+			switch(this) {
+			case Z64:
+				return Z64_ENCODER;
+			case AUTO:
+				return new EpsonZplAutoGraphicEncoder(new EpsonZplPngGraphicEncoder(pngEncoder), Z64_ENCODER);
+			case PNG:
+			default:
+				return new EpsonZplPngGraphicEncoder(pngEncoder);
+			}
+		}
+	}
+
+
 	public enum PRINT_QUALITY {
 		//^S(CPC,Q,
 		//		 D: Max Speed
@@ -1008,6 +1898,33 @@ public class EpsonZplPrintJob{
 
 	//~H(CLP,b    Sends paper feed amount, or cut position adjustment.
 
+	/**
+	 * Writes a call's ZPL straight onto the borrowed connection, once the printer's resident graphics
+	 * are known to be up to date.
+	 */
+	private interface ZplBody{
+		void write(OutputStream out, EpsonZplResidentGraphics resident) throws Exception;
+	}
+
+	/**
+	 * A graphic with the payload cache key of the image it came from, what the resident index needs
+	 * to tell it apart from another image that hashes to the same name. Package visible for the benchmarks.
+	 */
+	static final class EncodedGraphic{
+
+		private final EpsonZplGraphic graphic;
+		private final EpsonZplPayloadCache.Key key;
+
+		EncodedGraphic(EpsonZplGraphic graphic, EpsonZplPayloadCache.Key key){
+			this.graphic = graphic;
+			this.key = key;
+		}
+
+		EpsonZplGraphic getGraphic() {return graphic;}
+
+		EpsonZplPayloadCache.Key getKey() {return key;}
+	}
+
 	private boolean isEmpty(byte[] s) {
 		return (s == null || s.length == 0);
 	}
@@ -0,0 +1,375 @@
+/*
+ * Copyright 2025 Robert James Drabant II, ThinkREG
+ * https://www.linkedin.com/in/robert-drabant/
+ *
+ * This code was independently developed by ThinkREG for use with Epson printer ColorWorks CW-C4000.
+ * Neither ThinkREG or Epson America, Inc. provide any warranties or support for this code.
+ * “Epson” is the registered trademark of Epson America, Inc. and its affiliates in the
+ * United States and other countries. Epson reserves all rights to its trademarks.
+ * Epson and ThinkREG are independent companies.
+ *
+ * From the author, this was created because I wanted a cleaner way to print to our Epsons we use in
+ * conference and event management. We have mostly 4000s, but this should
+ * work with any Epson that supports ZPLII/ESC. I also want to thank team
+ * members at Epson for their support.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thinkreg.print;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+
+/**
+ * One queue per printer (ip:port) that everything sent to that printer goes through. A single writer
+ * drains it in the order jobs were submitted, so the printer only ever has one job coming at it no
+ * matter how many threads are printing, and the queue's capacity stops callers piling up more work
+ * than it can get through. What happens when it's full is up to the {@link OVERFLOW_POLICY}.
+ */
+public class EpsonZplPrintQueue{
+
+	public static final int DEFAULT_CAPACITY = 100;
+	public static final long DEFAULT_OFFER_TIMEOUT_MS = 5000L;
+
+	private static final ConcurrentMap<String, EpsonZplPrintQueue> QUEUES = new ConcurrentHashMap<String, EpsonZplPrintQueue>();
+
+	private final String ip;
+	private final int port;
+
+	private final ReentrantLock lock = new ReentrantLock(true);
+	private final Condition notFull = lock.newCondition();
+	private final Deque<QueuedTask<?>> tasks = new ArrayDeque<QueuedTask<?>>();
+	private boolean draining = false;
+	private volatile Thread writer = null;
+
+	private volatile int capacity = DEFAULT_CAPACITY;
+	private volatile OVERFLOW_POLICY overflowPolicy = OVERFLOW_POLICY.BLOCK;
+	private volatile long offerTimeoutMillis = DEFAULT_OFFER_TIMEOUT_MS;
+	private volatile Executor executor = null;
+
+	private final AtomicLong submitted = new AtomicLong();
+	private final AtomicLong completed = new AtomicLong();
+	private final AtomicLong rejected = new AtomicLong();
+	private final AtomicLong totalWaitMillis = new AtomicLong();
+	private final AtomicLong maxWaitMillis = new AtomicLong();
+	private volatile long lastWaitMillis = 0L;
+
+
+	private EpsonZplPrintQueue(String ip, int port){
+		this.ip = ip;
+		this.port = port;
+	}
+
+
+	/**
+	 * Returns the queue for this printer, creating it the first time it is asked for.
+	 * @param ip
+	 * @param port
+	 * @return
+	 */
+	public static EpsonZplPrintQueue forPrinter(String ip, int port) {
+		return QUEUES.computeIfAbsent(EpsonZplConnectionPool.key(ip, port), k -> new EpsonZplPrintQueue(ip, port));
+	}
+
+
+	/**
+	 * Adds the task to the end of the queue. If the queue is full this rejects, blocks or waits up
+	 * to the offer timeout depending on the overflow policy. A rejected task comes back as a future
+	 * completed with a RejectedExecutionException.
+	 * @param task
+	 * @return completes with the task's result once the writer has run it
+	 */
+	public <T> CompletableFuture<T> submit(Callable<T> task) {
+
+		QueuedTask<T> queued = new QueuedTask<T>(task);
+
+		try {
+			if(!offer(queued)) {
+				rejected.incrementAndGet();
+				queued.future.completeExceptionally(new RejectedExecutionException("Print queue for " + 
+						EpsonZplConnectionPool.key(ip, port) + " is full (" + capacity + " jobs)"));
+				return queued.future;
+			}
+		}catch(InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			rejected.incrementAndGet();
+			queued.future.completeExceptionally(ex);
+			return queued.future;
+		}
+
+		submitted.incrementAndGet();
+		startWriter();
+
+		return queued.future;
+	}
+
+	/**
+	 * Runs the task through the queue and waits for it. If this is already the queue's writer (a job
+	 * that sends more than one thing to the printer) it runs straight away, it's already its turn.
+	 * @param task
+	 * @return
+	 * @throws Exception whatever the task threw, or RejectedExecutionException if the queue was full
+	 */
+	public <T> T run(Callable<T> task) throws Exception {
+
+		if(Thread.currentThread() == writer) {
+			return task.call();
+		}
+
+		try {
+			return submit(task).get();
+		}catch(ExecutionException ex) {
+			if(ex.getCause() instanceof Exception) {
+				throw (Exception) ex.getCause();
+			}
+			throw ex;
+		}
+	}
+
+	private boolean offer(QueuedTask<?> queued) throws InterruptedException {
+
+		lock.lockInterruptibly();
+		try {
+
+			long remaining = TimeUnit.MILLISECONDS.toNanos(offerTimeoutMillis);
+
+			while(tasks.size() >= capacity) {
+				switch(overflowPolicy) {
+				case REJECT:
+					return false;
+
+				case TIMEOUT:
+					if(remaining <= 0L) {
+						return false;
+					}
+					remaining = notFull.awaitNanos(remaining);
+					break;
+
+				case BLOCK:
+				default:
+					notFull.await();
+					break;
+				}
+			}
+
+			queued.enqueuedAt = System.currentTimeMillis();
+			tasks.offerLast(queued);
+			return true;
+
+		}finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Hands the drain loop to the executor unless it is already running. Only one drain loop runs at
+	 * a time, that's what makes it the single writer.
+	 */
+	private void startWriter() {
+
+		lock.lock();
+		try {
+			if(draining || tasks.isEmpty()) {
+				return;
+			}
+			draining = true;
+		}finally {
+			lock.unlock();
+		}
+
+		try {
+			getExecutor().execute(this::drain);
+		}catch(RejectedExecutionException ex) {
+			lock.lock();
+			try {
+				draining = false;
+			}finally {
+				lock.unlock();
+			}
+			failAll(ex);
+		}
+	}
+
+	private void drain() {
+
+		writer = Thread.currentThread();
+
+		try {
+			while(true) {
+
+				QueuedTask<?> queued;
+				lock.lock();
+				try {
+					queued = tasks.pollFirst();
+					if(queued == null) {
+						//both under the lock, a submit that gets in after this starts a new writer,
+						//and it must not find this one still named as the writer
+						writer = null;
+						draining = false;
+						return;
+					}
+					notFull.signal();
+				}finally {
+					lock.unlock();
+				}
+
+				long waited = System.currentTimeMillis() - queued.enqueuedAt;
+				lastWaitMillis = waited;
+				totalWaitMillis.addAndGet(waited);
+				maxWaitMillis.accumulateAndGet(waited, Math::max);
+
+				queued.run();
+				completed.incrementAndGet();
+			}
+		}finally {
+			if(writer == Thread.currentThread()) {
+				writer = null;
+			}
+		}
+	}
+
+	private void failAll(Throwable ex) {
+
+		lock.lock();
+		try {
+			QueuedTask<?> queued;
+			while((queued = tasks.pollFirst()) != null) {
+				queued.future.completeExceptionally(ex);
+			}
+			notFull.signalAll();
+		}finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Jobs waiting for the writer, not counting the one it is sending now
+	 * @return
+	 */
+	public int getDepth() {
+		lock.lock();
+		try {
+			return tasks.size();
+		}finally {
+			lock.unlock();
+		}
+	}
+
+	public String getIp() {return ip;}
+
+	public int getPort() {return port;}
+
+	public int getCapacity() {return capacity;}
+	public void setCapacity(int capacity) {
+		if(capacity < 1) {
+			throw new IllegalArgumentException("capacity must be at least 1");
+		}
+		this.capacity = capacity;
+
+		lock.lock();
+		try {
+			notFull.signalAll();
+		}finally {
+			lock.unlock();
+		}
+	}
+
+	public OVERFLOW_POLICY getOverflowPolicy() {return overflowPolicy;}
+	public void setOverflowPolicy(OVERFLOW_POLICY overflowPolicy) {this.overflowPolicy = overflowPolicy;}
+
+	/**
+	 * How long a submit waits for room under {@link OVERFLOW_POLICY#TIMEOUT}
+	 * @return
+	 */
+	public long getOfferTimeoutMillis() {return offerTimeoutMillis;}
+	public void setOfferTimeoutMillis(long offerTimeoutMillis) {this.offerTimeoutMillis = offerTimeoutMillis;}
+
+	/**
+	 * Where the writer runs, {@link EpsonZplExecutors#getDefaultExecutor()} unless one is set.
+	 * @return
+	 */
+	public Executor getExecutor() {
+		return executor == null ? EpsonZplExecutors.getDefaultExecutor() : executor;
+	}
+	public void setExecutor(Executor executor) {this.executor = executor;}
+
+	public long getSubmitted() {return submitted.get();}
+
+	public long getCompleted() {return completed.get();}
+
+	public long getRejected() {return rejected.get();}
+
+	/**
+	 * Time the last job spent in the queue before the writer picked it up
+	 * @return
+	 */
+	public long getLastWaitMillis() {return lastWaitMillis;}
+
+	public long getMaxWaitMillis() {return maxWaitMillis.get();}
+
+	public double getAverageWaitMillis() {
+		long count = completed.get();
+		return count == 0 ? 0 : (double) totalWaitMillis.get() / count;
+	}
+
+	@Override
+	public String toString(){
+		return EpsonZplConnectionPool.key(ip, port) + " depth=" + getDepth() + "/" + capacity + 
+				" avgWait=" + Math.round(getAverageWaitMillis()) + "ms maxWait=" + getMaxWaitMillis() + "ms rejected=" + getRejected();
+	}
+
+
+
+	/**
+	 * What submit does when the queue is already at capacity
+	 */
+	public enum OVERFLOW_POLICY {
+		REJECT,		//fail straight away
+		BLOCK,		//wait as long as it takes for room
+		TIMEOUT;	//wait up to the offer timeout, then fail
+	}
+
+
+	private static class QueuedTask<T>{
+
+		private final Callable<T> task;
+		private final CompletableFuture<T> future = new CompletableFuture<T>();
+		private long enqueuedAt;
+
+		QueuedTask(Callable<T> task){
+			this.task = task;
+		}
+
+		void run() {
+			try {
+				future.complete(task.call());
+			}catch(Throwable ex) {
+				future.completeExceptionally(ex);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,352 @@
+/*
+ * Copyright 2025 Robert James Drabant II, ThinkREG
+ * https://www.linkedin.com/in/robert-drabant/
+ *
+ * This code was independently developed by ThinkREG for use with Epson printer ColorWorks CW-C4000.
+ * Neither ThinkREG or Epson America, Inc. provide any warranties or support for this code.
+ * “Epson” is the registered trademark of Epson America, Inc. and its affiliates in the
+ * United States and other countries. Epson reserves all rights to its trademarks.
+ * Epson and ThinkREG are independent companies.
+ *
+ * From the author, this was created because I wanted a cleaner way to print to our Epsons we use in
+ * conference and event management. We have mostly 4000s, but this should
+ * work with any Epson that supports ZPLII/ESC. I also want to thank team
+ * members at Epson for their support.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.thinkreg.print;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+
+/**
+ * Finds the ESC/Label printers on a subnet, so a venue can be set up without typing in IP addresses.
+ * Every address in the range is tried at once (up to parallelism), each with a short connect timeout,
+ * so a /24 is done in about the time one unanswered address takes.
+ *
+ * Whatever accepts a connection on the port is sent the firmware and serial queries (~H(IMF,V and
+ * ~H(IMP,S) and only counts as a printer if it answers them the way an Epson does. Those get asked
+ * the rest of the status block on the same socket, so each one found comes back as a full
+ * {@link EpsonZplPrinterResponse}. Bear in mind a non Epson printer listening on 9100 may print the
+ * two queries as text.
+ */
+public class EpsonZplPrinterDiscovery{
+
+	public static final int DEFAULT_PORT = 9100;
+
+	//Printers on the LAN answer a SYN in a few milliseconds, most addresses in a range have nothing on them
+	public static final int DEFAULT_CONNECT_TIMEOUT_MS = 250;
+	public static final long DEFAULT_REPLY_TIMEOUT_MS = 1000L;
+	public static final int DEFAULT_PARALLELISM = 256;
+
+	//Without virtual threads each probe in flight is a platform thread, keep it to this many
+	public static final int MAX_PLATFORM_THREADS = 64;
+
+	//Smallest prefix we'll scan, a /16 is already 65534 addresses
+	private static final int MIN_PREFIX = 16;
+
+	private static final EnumSet<EpsonZplReplyReader.STATUS_QUERY> IDENTIFY = EnumSet.of(EpsonZplReplyReader.STATUS_QUERY.IMF, EpsonZplReplyReader.STATUS_QUERY.IMP);
+	private static final EnumSet<EpsonZplReplyReader.STATUS_QUERY> STATUS = EnumSet.complementOf(IDENTIFY);
+	private static final byte[] IDENTIFY_ZPL = buildQueries(IDENTIFY);
+	private static final byte[] STATUS_ZPL = buildQueries(STATUS);
+
+	private volatile int port = DEFAULT_PORT;
+	private volatile int connectTimeoutMillis = DEFAULT_CONNECT_TIMEOUT_MS;
+	private volatile long replyTimeoutMillis = DEFAULT_REPLY_TIMEOUT_MS;
+	private volatile int parallelism = DEFAULT_PARALLELISM;
+	private volatile Executor executor = null;
+
+
+	public EpsonZplPrinterDiscovery(){
+	}
+
+	public EpsonZplPrinterDiscovery(int port){
+		this.port = port;
+	}
+
+
+	/**
+	 * Scans every host address in an IPv4 range, 192.168.1.0/24 for example. A plain address is just
+	 * that one host.
+	 * @param cidr
+	 * @return one response per printer found, in address order
+	 * @throws InterruptedException
+	 */
+	public List<EpsonZplPrinterResponse> scan(String cidr) throws InterruptedException {
+
+		List<String> addresses = getAddresses(cidr);
+		EpsonZplPrinterResponse[] found = new EpsonZplPrinterResponse[addresses.size()];
+
+		Semaphore permits = new Semaphore(Math.max(1, parallelism));
+		CountDownLatch done = new CountDownLatch(addresses.size());
+
+		//Probes sit blocked on connects, they get their own threads rather than the ones print jobs use
+		ExecutorService own = this.executor == null ? EpsonZplExecutors.newBoundedExecutor("EpsonZplPrinterDiscovery-", MAX_PLATFORM_THREADS) : null;
+		Executor executor = own != null ? own : this.executor;
+
+		try {
+			for(int i = 0; i < addresses.size(); i++) {
+				int index = i;
+				String ip = addresses.get(i);
+				permits.acquire();
+
+				Runnable probe = () -> {
+					try {
+						found[index] = probe(ip);
+					}finally {
+						permits.release();
+						done.countDown();
+					}
+				};
+
+				try {
+					executor.execute(probe);
+				}catch(RejectedExecutionException ex) {
+					probe.run();
+				}
+			}
+
+			done.await();
+		}finally {
+			if(own != null) {
+				own.shutdown();
+			}
+		}
+
+		List<EpsonZplPrinterResponse> printers = new ArrayList<EpsonZplPrinterResponse>();
+		for(EpsonZplPrinterResponse response: found) {
+			if(response != null) {
+				printers.add(response);
+			}
+		}
+		return printers;
+	}
+
+	/**
+	 * {@link #scan} on a thread of its own. The scan waits on its probes, so it isn't run on the
+	 * executor they need.
+	 * @param cidr
+	 * @return
+	 */
+	public CompletableFuture<List<EpsonZplPrinterResponse>> scanAsync(String cidr) {
+
+		CompletableFuture<List<EpsonZplPrinterResponse>> future = new CompletableFuture<List<EpsonZplPrinterResponse>>();
+		Thread scanner = new Thread(() -> {
+			try {
+				future.complete(scan(cidr));
+			}catch(Throwable ex) {
+				future.completeExceptionally(ex);
+			}
+		}, "EpsonZplPrinterDiscovery-scan");
+		scanner.setDaemon(true);
+		scanner.start();
+		return future;
+	}
+
+	/**
+	 * Asks one address whether it is an ESC/Label printer.
+	 * @param ip
+	 * @return its status, or null if nothing answered or it isn't one
+	 */
+	public EpsonZplPrinterResponse probe(String ip) {
+
+		Socket socket;
+		try {
+			socket = EpsonZplConnectionPool.connect(ip, port, connectTimeoutMillis);
+		}catch(IOException ex) {
+			return null;	//nothing there, the usual case
+		}
+
+		//Not handed to the pool, most of what a scan finds is never printed to by this JVM
+		EpsonZplConnection connection = null;
+		try {
+			connection = new EpsonZplConnection(socket);
+			OutputStream out = connection.getOutputStream();
+
+			EpsonZplPrinterResponse response = new EpsonZplPrinterResponse();
+			response.setIp(ip);
+			response.setPort(port);
+
+			out.write(IDENTIFY_ZPL);
+			out.flush();
+			EpsonZplReplyReader identify = new EpsonZplReplyReader(IDENTIFY);
+			identify.setFirstReplyTimeoutMillis(replyTimeoutMillis);
+			identify.read(connection, response);
+
+			if(response.getFirmware() == null && response.getSerialNumber() == null) {
+				return null;	//something else listening on the port
+			}
+
+			response.setSuccessfulConnection(true);
+			response.setSuccess(true);
+
+			out.write(STATUS_ZPL);
+			out.flush();
+			EpsonZplReplyReader status = new EpsonZplReplyReader(STATUS);
+			status.setFirstReplyTimeoutMillis(replyTimeoutMillis);
+			try {
+				status.read(connection, response);
+			}catch(IOException ex) {
+				//it's a printer, it just didn't give us its status in time
+				response.setMessage((response.getMessage() == null ? "" : response.getMessage() + " ") + "No status: " + ex.getMessage());
+			}
+
+			return response;
+
+		}catch(Exception ex) {
+			return null;	//didn't answer, or hung up on us
+		}finally {
+			if(connection != null) {
+				connection.close();
+			}else {
+				try {
+					socket.close();
+				}catch(IOException ex) {
+					//going away anyway
+				}
+			}
+		}
+	}
+
+	/**
+	 * The host addresses in an IPv4 range. The network and broadcast addresses are left out, except
+	 * in a /31 or /32 where there aren't any.
+	 * @param cidr 192.168.1.0/24, or a single address
+	 * @return
+	 */
+	public static List<String> getAddresses(String cidr) {
+
+		if(cidr == null) {
+			throw new IllegalArgumentException("No address range given");
+		}
+
+		String[] parts = cidr.trim().split("/");
+		if(parts.length > 2) {
+			throw new IllegalArgumentException("Not an IPv4 range: " + cidr);
+		}
+
+		int prefix = 32;
+		if(parts.length == 2) {
+			try {
+				prefix = Integer.parseInt(parts[1].trim());
+			}catch(NumberFormatException ex) {
+				throw new IllegalArgumentException("Not an IPv4 range: " + cidr);
+			}
+			if(prefix < MIN_PREFIX || prefix > 32) {
+				throw new IllegalArgumentException("Prefix has to be /" + MIN_PREFIX + " to /32: " + cidr);
+			}
+		}
+
+		long address = parseAddress(parts[0].trim(), cidr);
+		long mask = (0xFFFFFFFFL << (32 - prefix)) & 0xFFFFFFFFL;
+		long first = address & mask;
+		long last = first | (~mask & 0xFFFFFFFFL);
+
+		if(prefix < 31) {
+			first++;
+			last--;
+		}
+
+		List<String> addresses = new ArrayList<String>((int) (last - first + 1));
+		for(long host = first; host <= last; host++) {
+			addresses.add(((host >> 24) & 0xFF) + "." + ((host >> 16) & 0xFF) + "." + ((host >> 8) & 0xFF) + "." + (host & 0xFF));
+		}
+		return Collections.unmodifiableList(addresses);
+	}
+
+	private static long parseAddress(String ip, String cidr) {
+
+		String[] octets = ip.split("\\.");
+		if(octets.length != 4) {
+			throw new IllegalArgumentException("Not an IPv4 range: " + cidr);
+		}
+
+		long address = 0L;
+		for(String octet: octets) {
+			int value;
+			try {
+				value = Integer.parseInt(octet);
+			}catch(NumberFormatException ex) {
+				throw new IllegalArgumentException("Not an IPv4 range: " + cidr);
+			}
+			if(value < 0 || value > 255) {
+				throw new IllegalArgumentException("Not an IPv4 range: " + cidr);
+			}
+			address = (address << 8) | value;
+		}
+		return address;
+	}
+
+	private static byte[] buildQueries(EnumSet<EpsonZplReplyReader.STATUS_QUERY> queries) {
+		StringBuilder zpl = new StringBuilder("^XA\r");
+		for(EpsonZplReplyReader.STATUS_QUERY query: queries) {
+			zpl.append(query.getZPL());
+		}
+		zpl.append("^XZ\r");
+		return zpl.toString().getBytes(StandardCharsets.ISO_8859_1);
+	}
+
+	public int getPort() {return port;}
+	public void setPort(int port) {this.port = port;}
+
+	public int getConnectTimeoutMillis() {return connectTimeoutMillis;}
+
+	/**
+	 * How long each address gets to accept a connection. Most addresses have nothing on them, so this
+	 * is about how long a scan takes.
+	 * @param connectTimeoutMillis
+	 */
+	public void setConnectTimeoutMillis(int connectTimeoutMillis) {this.connectTimeoutMillis = connectTimeoutMillis;}
+
+	public long getReplyTimeoutMillis() {return replyTimeoutMillis;}
+
+	/**
+	 * How long something that took the connection gets to answer the queries before it's passed over
+	 * @param replyTimeoutMillis
+	 */
+	public void setReplyTimeoutMillis(long replyTimeoutMillis) {this.replyTimeoutMillis = replyTimeoutMillis;}
+
+	public int getParallelism() {return parallelism;}
+
+	/**
+	 * Most addresses being tried at once
+	 * @param parallelism
+	 */
+	public void setParallelism(int parallelism) {this.parallelism = Math.max(1, parallelism);}
+
+	/**
+	 * The executor probes run on, null unless one is set, in which case each scan starts its own
+	 * (virtual threads, or at most {@link #MAX_PLATFORM_THREADS} threads without them) and shuts it
+	 * down when it's done. One that is set needs room for parallelism probes blocked at once.
+	 * @return
+	 */
+	public Executor getExecutor() {return executor;}
+	public void setExecutor(Executor executor) {this.executor = executor;}
+
+}
@@ -0,0 +1,254 @@
+/*
+ * Copyright 2025 Robert James Drabant II, ThinkREG
+ * https://www.linkedin.com/in/robert-drabant/
+ *
+ * This code was independently developed by ThinkREG for use with Epson printer ColorWorks CW-C4000.
+ * Neither ThinkREG or Epson America, Inc. provide any warranties or support for this code.
+ * “Epson” is the registered trademark of Epson America, Inc. and its affiliates in the
+ * United States and other countries. Epson reserves all rights to its trademarks.
+ * Epson and ThinkREG are independent companies.
+ *
+ * From the author, this was created because I wanted a cleaner way to print to our Epsons we use in
+ * conference and event management. We have mostly 4000s, but this should
+ * work with any Epson that supports ZPLII/ESC. I also want to thank team
+ * members at Epson for their support.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thinkreg.print;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+
+/**
+ * Spreads badge jobs over every printer on the floor. Each job goes to the healthy printer with the
+ * lowest load score (jobs in flight, then ink and maintenance box level), so a printer that reports
+ * a jam, paper out, open cover or any other error that blocks printing stops getting work as soon
+ * as it tells us, and picks up again once a status check says it's clear.
+ */
+public class EpsonZplPrinterFleet{
+
+	//An unhealthy printer is asked for its status again on the next submit once this old
+	public static final long DEFAULT_RECHECK_INTERVAL_MS = 10000L;
+
+	private final List<EpsonZplFleetPrinter> printers = new CopyOnWriteArrayList<EpsonZplFleetPrinter>();
+	private EpsonZplPrintJob.DPI dpi = null;
+	private Executor executor = null;
+	private EpsonZplSpool spool = null;
+	private long recheckIntervalMillis = DEFAULT_RECHECK_INTERVAL_MS;
+
+
+	public EpsonZplPrinterFleet(){
+	}
+
+
+	/**
+	 * Adds a printer to the fleet, or returns the one already registered at this ip:port
+	 * @param ip
+	 * @param port
+	 * @return
+	 */
+	public synchronized EpsonZplFleetPrinter register(String ip, int port) {
+
+		EpsonZplFleetPrinter printer = getPrinter(ip, port);
+		if(printer == null) {
+			printer = new EpsonZplFleetPrinter(ip, port);
+			printers.add(printer);
+		}
+
+		return printer;
+	}
+
+	/**
+	 * Takes a printer out of the fleet. Jobs already sent to it still finish.
+	 * @param ip
+	 * @param port
+	 * @return
+	 */
+	public synchronized boolean unregister(String ip, int port) {
+		EpsonZplFleetPrinter printer = getPrinter(ip, port);
+		return printer != null && printers.remove(printer);
+	}
+
+	public EpsonZplFleetPrinter getPrinter(String ip, int port) {
+		for(EpsonZplFleetPrinter printer: printers) {
+			if(printer.getIp().equals(ip) && printer.getPort() == port) {
+				return printer;
+			}
+		}
+		return null;
+	}
+
+	public List<EpsonZplFleetPrinter> getPrinters() {
+		return Collections.unmodifiableList(printers);
+	}
+
+
+	/**
+	 * Prints one badge on the least loaded healthy printer.
+	 * @param image
+	 * @return completes with the printer's response, or exceptionally if no printer can take it
+	 */
+	public CompletableFuture<EpsonZplPrinterResponse> submit(BufferedImage image) {
+		List<BufferedImage> images = new ArrayList<BufferedImage>();
+		images.add(image);
+		return submit(images);
+	}
+
+	/**
+	 * Prints the images as one job on the least loaded healthy printer. All the images in the list
+	 * go to the same printer, submit them one at a time to have them spread across the fleet.
+	 * @param images
+	 * @return completes with the printer's response, or exceptionally if no printer can take it
+	 */
+	public CompletableFuture<EpsonZplPrinterResponse> submit(List<BufferedImage> images) {
+
+		recheckUnhealthy();
+
+		EpsonZplFleetPrinter printer = choosePrinter();
+		if(printer == null) {
+			CompletableFuture<EpsonZplPrinterResponse> failed = new CompletableFuture<EpsonZplPrinterResponse>();
+			failed.completeExceptionally(new Exception("No healthy printer available in the fleet of " + printers.size()));
+			return failed;
+		}
+
+		EpsonZplPrintJob job = newJob(printer);
+		job.setImages(images);
+
+		return job.printAsync().whenComplete((response, ex) -> {
+			if(ex != null) {
+				printer.recordStatus(unreachable(ex));
+				printer.jobFinished(false);
+			}else {
+				printer.recordStatus(response);
+				printer.jobFinished(response.getSuccess() != null && response.getSuccess());
+			}
+		});
+	}
+
+	/**
+	 * Picks the healthy printer with the lowest load score and counts the job against it. Done under
+	 * the fleet's lock so two submits at the same moment don't both see the same idle printer.
+	 * @return null if every printer is unhealthy or disabled
+	 */
+	synchronized EpsonZplFleetPrinter choosePrinter() {
+
+		EpsonZplFleetPrinter best = null;
+		double bestScore = Double.MAX_VALUE;
+
+		for(EpsonZplFleetPrinter printer: printers) {
+			if(!printer.isHealthy()) {
+				continue;
+			}
+
+			double score = printer.getLoadScore();
+			if(score < bestScore) {
+				best = printer;
+				bestScore = score;
+			}
+		}
+
+		if(best != null) {
+			best.jobStarted();
+		}
+
+		return best;
+	}
+
+	/**
+	 * Asks every printer for its status and updates what the fleet knows about them.
+	 * @return completes once every printer has answered or failed
+	 */
+	public CompletableFuture<Void> refreshStatus() {
+
+		List<CompletableFuture<EpsonZplPrinterResponse>> checks = new ArrayList<CompletableFuture<EpsonZplPrinterResponse>>();
+		for(EpsonZplFleetPrinter printer: printers) {
+			checks.add(refreshStatus(printer));
+		}
+
+		return CompletableFuture.allOf(checks.toArray(new CompletableFuture<?>[checks.size()]));
+	}
+
+	private CompletableFuture<EpsonZplPrinterResponse> refreshStatus(EpsonZplFleetPrinter printer) {
+
+		//stamp it now so the next few submits don't all ask the same dead printer again
+		printer.recordStatus(printer.getLastStatus());
+
+		return newJob(printer).getPrinterStatusAsync().whenComplete((response, ex) -> {
+			printer.recordStatus(ex != null ? unreachable(ex) : response);
+		});
+	}
+
+	/**
+	 * Unhealthy printers don't get jobs, so nothing else would find out they've come back. Ask any
+	 * that haven't been checked for a while, the answer is used by later submits.
+	 */
+	private void recheckUnhealthy() {
+
+		long now = System.currentTimeMillis();
+
+		for(EpsonZplFleetPrinter printer: printers) {
+			if(printer.isEnabled() && !printer.isHealthy() && now - printer.getLastStatusAt() > recheckIntervalMillis) {
+				refreshStatus(printer);
+			}
+		}
+	}
+
+	private EpsonZplPrintJob newJob(EpsonZplFleetPrinter printer) {
+
+		EpsonZplPrintJob job = new EpsonZplPrintJob(printer.getIp(), printer.getPort());
+		job.setDpi(dpi);
+		if(executor != null) {
+			job.setExecutor(executor);
+		}
+		job.setSpool(spool);
+
+		return job;
+	}
+
+	private EpsonZplPrinterResponse unreachable(Throwable ex) {
+		EpsonZplPrinterResponse response = new EpsonZplPrinterResponse();
+		response.setSuccess(false);
+		response.setErrorCode(EpsonZplPrinterResponse.ERROR_CODE.UNKNOWN);
+		response.setMessage(ex.getMessage());
+		return response;
+	}
+
+	/**
+	 * The resolution every badge is printed at, null to leave the printer's setting alone
+	 * @return
+	 */
+	public EpsonZplPrintJob.DPI getDpi() {return dpi;}
+	public void setDpi(EpsonZplPrintJob.DPI dpi) {this.dpi = dpi;}
+
+	public Executor getExecutor() {return executor;}
+	public void setExecutor(Executor executor) {this.executor = executor;}
+
+	/**
+	 * Spool every badge submitted to the fleet, see {@link EpsonZplPrintJob#setSpool}
+	 * @return
+	 */
+	public EpsonZplSpool getSpool() {return spool;}
+	public void setSpool(EpsonZplSpool spool) {this.spool = spool;}
+
+	public long getRecheckIntervalMillis() {return recheckIntervalMillis;}
+	public void setRecheckIntervalMillis(long recheckIntervalMillis) {this.recheckIntervalMillis = recheckIntervalMillis;}
+
+}
@@ -28,6 +28,11 @@
  
 package com.thinkreg.print;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 
 public class EpsonZplPrinterResponse{
 	
@@ -41,6 +46,12 @@ public class EpsonZplPrinterResponse{
 	private Boolean success = false;
 	//private boolean errorBlocksPrinting = false;
 	private boolean successfulConnection = false;
+	//only filled in by calls that read settings back, "CLE,T" -> "25"
+	private Map<String, String> settings = null;
+	private String ip;
+	private int port;
+	private String firmware;
+	private String serialNumber;
 	
 
 	public String getBlack() {return black;}
@@ -81,18 +92,77 @@ public class EpsonZplPrinterResponse{
 		this.errorCode = errorCode;
 	}
 	
+	/**
+	 * Settings the printer reported with ~H(, "CLE,T" -> "25" for example. Empty unless the call
+	 * asked for them, see {@link EpsonZplPrintJob#updatePrinterSettings()}.
+	 * @return
+	 */
+	public Map<String, String> getSettings() {
+		return settings == null ? Collections.<String, String>emptyMap() : Collections.unmodifiableMap(settings);
+	}
+	void putSetting(String key, String value) {
+		if(settings == null) {
+			settings = new LinkedHashMap<String, String>();
+		}
+		settings.put(key, value);
+	}
+	
+	/**
+	 * The printer this response came from
+	 * @return
+	 */
+	public String getIp() {return ip;}
+	public void setIp(String ip) {this.ip = ip;}
+
+	public int getPort() {return port;}
+	public void setPort(int port) {this.port = port;}
+
+	/**
+	 * Firmware version from ~H(IMF,V, null if the printer didn't answer it
+	 * @return
+	 */
+	public String getFirmware() {return firmware;}
+	public void setFirmware(String firmware) {this.firmware = firmware;}
+
+	/**
+	 * Serial number from ~H(IMP,S, null if the printer didn't answer it
+	 * @return
+	 */
+	public String getSerialNumber() {return serialNumber;}
+	public void setSerialNumber(String serialNumber) {this.serialNumber = serialNumber;}
+
+	/**
+	 * A new response with the same values, for handing out one that's shared
+	 * @return
+	 */
+	public EpsonZplPrinterResponse copy() {
+		EpsonZplPrinterResponse copy = new EpsonZplPrinterResponse();
+		copy.black = black;
+		copy.cyan = cyan;
+		copy.magenta = magenta;
+		copy.yellow = yellow;
+		copy.maintenance = maintenance;
+		copy.message = message;
+		copy.errorCode = errorCode;
+		copy.success = success;
+		copy.successfulConnection = successfulConnection;
+		copy.settings = settings == null ? null : new LinkedHashMap<String, String>(settings);
+		copy.ip = ip;
+		copy.port = port;
+		copy.firmware = firmware;
+		copy.serialNumber = serialNumber;
+		return copy;
+	}
+	
 	public void setErrorCode(String errorCode) {
 //		if(errorCode == null || errorCode.trim().length() == 0) {
 //			this.errorCode = ERROR_CODE.NE;
 //			return;
 //		}
 		
-		if(errorCode != null) {
-			for(ERROR_CODE code: ERROR_CODE.values()) {
-				if(code.getCode().equals(errorCode)) {
-					this.errorCode = code;
-				}
-			}
+		ERROR_CODE code = ERROR_CODE.forCode(errorCode);
+		if(code != null) {
+			this.errorCode = code;
 		}
 		
 		if(this.errorCode == null) {
@@ -101,6 +171,24 @@ public class EpsonZplPrinterResponse{
 		
 	}
 	
+	/**
+	 * Same as {@link #setErrorCode(String)}, straight from the bytes of a reply
+	 * @param reply
+	 * @param offset
+	 * @param length
+	 */
+	void setErrorCode(byte[] reply, int offset, int length) {
+		
+		ERROR_CODE code = ERROR_CODE.forCode(reply, offset, length);
+		if(code != null) {
+			this.errorCode = code;
+		}
+		
+		if(this.errorCode == null) {
+			this.errorCode = ERROR_CODE.UNKNOWN;
+		}
+	}
+	
 	/**
 	 * 	Epson does not publish what these equate to in percent, so this is an educated guess 
 	 * for ink level or maintenance kit 
@@ -125,20 +213,46 @@ public class EpsonZplPrinterResponse{
 	//	RR Replace Ink cartridge
 	//	NA Ink cartridge not installed
 	//	CI Ink cartridge installed
-		if(code == null || code.trim().length() == 0){
+		if(code == null){
 			return null;
-		}else if(code.equals("RH")){
-			return 100;
-		}else if(code.equals("RM")){
-			return 60;
-		}else if(code.equals("RL")){
-			return 30;
-		}else if(code.equals("RN")){
-			return 10;
-		}else if(code.equals("RR")){
-			return 00;
 		}
 		
+		switch(code) {
+		case "RH": return 100;
+		case "RM": return 60;
+		case "RL": return 30;
+		case "RN": return 10;
+		case "RR": return 00;
+		default: return null;
+		}
+	}
+	
+	//the codes a reply can hold, so reading one doesn't need a new String each time
+	private static final String[] INK_CODES = {"RH", "RM", "RL", "RN", "RR", "NA", "CI"};
+	
+	/**
+	 * The ink or maintenance code in a reply, the same String every time for the known ones
+	 * @param reply
+	 * @param offset
+	 * @param length
+	 * @return null if it's blank
+	 */
+	static String getInkCode(byte[] reply, int offset, int length) {
+		
+		if(length == 2) {
+			for(String code: INK_CODES) {
+				if(reply[offset] == code.charAt(0) && reply[offset + 1] == code.charAt(1)) {
+					return code;
+				}
+			}
+		}
+		
+		for(int i = offset; i < offset + length; i++) {
+			if(reply[i] > ' ') {
+				//one we don't know, keep it as sent
+				return new String(reply, offset, length, StandardCharsets.ISO_8859_1);
+			}
+		}
 		return null;
 	}
 	
@@ -229,6 +343,55 @@ public class EpsonZplPrinterResponse{
 	       this.blocksPrinting = blocksPrinting;
 	       this.message = message;
 	    }
+		
+		//every code but UNKNOWN is two capital letters, indexed by them
+		private static final ERROR_CODE[] BY_LETTERS = new ERROR_CODE[26 * 26];
+		
+		static {
+			for(ERROR_CODE code: values()) {
+				if(code.code.length() == 2) {
+					BY_LETTERS[index(code.code.charAt(0), code.code.charAt(1))] = code;
+				}
+			}
+		}
+		
+		private static int index(int first, int second) {
+			if(first < 'A' || first > 'Z' || second < 'A' || second > 'Z') {
+				return -1;
+			}
+			return (first - 'A') * 26 + (second - 'A');
+		}
+		
+		/**
+		 * The code the printer sent
+		 * @param code
+		 * @return null if it isn't one we know
+		 */
+		public static ERROR_CODE forCode(String code) {
+			if(code == null) {
+				return null;
+			}
+			if(code.length() == 2) {
+				int index = index(code.charAt(0), code.charAt(1));
+				return index < 0 ? null : BY_LETTERS[index];
+			}
+			return UNKNOWN.code.equals(code) ? UNKNOWN : null;
+		}
+		
+		/**
+		 * Same as {@link #forCode(String)}, without making a String of it first
+		 * @param reply
+		 * @param offset
+		 * @param length
+		 * @return
+		 */
+		static ERROR_CODE forCode(byte[] reply, int offset, int length) {
+			if(length == 2) {
+				int index = index(reply[offset], reply[offset + 1]);
+				return index < 0 ? null : BY_LETTERS[index];
+			}
+			return length == UNKNOWN.code.length() ? forCode(new String(reply, offset, length, StandardCharsets.ISO_8859_1)) : null;
+		}
 
 		public String getCode() {return code;}
 
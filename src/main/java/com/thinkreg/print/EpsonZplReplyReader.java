@@ -0,0 +1,435 @@
+/*
+ * Copyright 2025 Robert James Drabant II, ThinkREG
+ * https://www.linkedin.com/in/robert-drabant/
+ *
+ * This code was independently developed by ThinkREG for use with Epson printer ColorWorks CW-C4000.
+ * Neither ThinkREG or Epson America, Inc. provide any warranties or support for this code.
+ * “Epson” is the registered trademark of Epson America, Inc. and its affiliates in the
+ * United States and other countries. Epson reserves all rights to its trademarks.
+ * Epson and ThinkREG are independent companies.
+ *
+ * From the author, this was created because I wanted a cleaner way to print to our Epsons we use in
+ * conference and event management. We have mostly 4000s, but this should
+ * work with any Epson that supports ZPLII/ESC. I also want to thank team
+ * members at Epson for their support.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thinkreg.print;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+
+/**
+ * Reads the printer's replies to the ~H( status queries sent at the end of every call. Each reply
+ * comes back framed as &lt;STX&gt;...&lt;ETX&gt;&lt;CR&gt;&lt;LF&gt;, so instead of waiting for the
+ * printer to go quiet we match every frame to the query it answers and stop as soon as the last
+ * one we asked for is in. The idle timeout is only a fallback for a printer that leaves a query
+ * unanswered (an older firmware that doesn't know ~H(IMP,S for example).
+ *
+ * Replies are parsed as bytes straight out of the connection's reusable buffers. Error and ink
+ * codes are looked up in tables, so a status check only allocates for the firmware and serial
+ * number strings.
+ */
+public class EpsonZplReplyReader{
+
+	public static final byte STX = 0x02;
+	public static final byte ETX = 0x03;
+
+	//There is no end-of-data marker and the printer keeps port 9100 open (no EOF). Once it has
+	//started replying, going quiet this long means any query still outstanding isn't going to be answered.
+	public static final int DEFAULT_IDLE_READ_TIMEOUT_MS = 500;
+
+	//A print job has to be processed before the replies start, so allow a lot longer for the first one.
+	public static final long DEFAULT_FIRST_REPLY_TIMEOUT_MS = 10000L;
+
+	//Host status, three frames, the second ending in the number of graphics stored on the printer
+	public static final byte[] HOST_STATUS_QUERY = EpsonZplCommandBuilder.ascii("~HS\r");
+
+	private final List<STATUS_QUERY> pending;
+	//~H( setting queries sent along with the status block, "CLE,T" etc.
+	private final List<String> pendingSettings = new ArrayList<String>();
+	private int expected;
+	private int idleReadTimeoutMillis = DEFAULT_IDLE_READ_TIMEOUT_MS;
+	private long firstReplyTimeoutMillis = DEFAULT_FIRST_REPLY_TIMEOUT_MS;
+	private int framesRead = 0;
+	private long firstReplyAt = 0L;
+
+
+	/**
+	 * @param sent the queries that were actually written to the printer, one reply is expected for each
+	 */
+	public EpsonZplReplyReader(Collection<STATUS_QUERY> sent){
+		this.pending = new ArrayList<STATUS_QUERY>(sent);
+		this.expected = this.pending.size();
+	}
+
+
+	/**
+	 * Also waits for the replies to these ~H( setting queries, sent ahead of the status block, and
+	 * puts them on the response, see {@link EpsonZplPrinterResponse#getSettings()}.
+	 * @param keys what followed ~H(, CLE,T for example
+	 */
+	public void expectSettings(Collection<String> keys) {
+		pendingSettings.addAll(keys);
+		expected += keys.size();
+	}
+
+	/**
+	 * Reads frames until every query we sent has been answered, the printer goes idle after it has
+	 * started replying, or it never starts replying before the first reply deadline.
+	 * @param connection
+	 * @param response filled in from the replies as they arrive
+	 * @throws IOException SocketTimeoutException if the printer never replied at all, EOFException if it
+	 * closed the connection before answering anything
+	 */
+	public void read(EpsonZplConnection connection, EpsonZplPrinterResponse response) throws IOException {
+
+		connection.setSoTimeout(idleReadTimeoutMillis);
+		InputStream in = connection.getInputStream();
+		byte[] buffer = connection.getReadBuffer();
+		byte[] frame = connection.getFrameBuffer();
+
+		long firstReplyDeadline = System.currentTimeMillis() + firstReplyTimeoutMillis;
+		int frameLength = 0;
+		boolean inFrame = false;
+
+		while (!isComplete()) {
+
+			int read;
+			try {
+				read = in.read(buffer, 0, buffer.length);
+			}catch(SocketTimeoutException idle) {
+				if(framesRead > 0) {
+					break;   //printer has gone quiet — whatever is still pending isn't coming
+				}
+				if(System.currentTimeMillis() >= firstReplyDeadline) {
+					throw idle;   //never started replying — genuine failure
+				}
+				continue;   //still processing the job — keep waiting
+			}
+
+			if(read < 0) {
+				if(framesRead == 0) {
+					//took the job and hung up, nothing says it printed
+					throw new EOFException("Printer closed the connection without answering");
+				}
+				break;   //printer closed the connection (EOF)
+			}
+
+			if(firstReplyAt == 0L && read > 0) {
+				firstReplyAt = System.nanoTime();
+			}
+
+			for(int i = 0; i < read && !isComplete(); i++) {
+
+				byte b = buffer[i];
+
+				if(b == STX) {
+					frameLength = 0;
+					inFrame = true;
+				}else if(b == ETX) {
+					if(inFrame) {
+						framesRead++;
+						onFrame(frame, frameLength, response);
+					}
+					inFrame = false;
+				}else if(inFrame) {
+					if(frameLength < frame.length) {
+						frame[frameLength++] = b;
+					}else {
+						inFrame = false;	//far longer than any reply we ask for, not one of ours
+					}
+				}
+				//anything outside a frame is the trailing <CR><LF>, nothing to do with it
+			}
+			//whatever is left in the buffer once the last reply is in is the <CR><LF> after it
+		}
+
+	}
+
+	/**
+	 * Reads the three frames a ~HS (host status) is answered with and returns the last field of the
+	 * second one, the number of graphics the printer has stored. Used to tell whether the printer
+	 * has been restarted since we last stored anything on it, see {@link EpsonZplResidentGraphics#confirm}.
+	 * @param connection the ~HS has already been written and flushed on it
+	 * @param timeoutMillis how long to wait for the whole reply
+	 * @return the count, -1 if the printer didn't answer in time or the reply isn't in that shape
+	 * @throws IOException
+	 */
+	public static int readStoredGraphicCount(EpsonZplConnection connection, int timeoutMillis) throws IOException {
+
+		connection.setSoTimeout(timeoutMillis);
+		InputStream in = connection.getInputStream();
+		byte[] buffer = connection.getReadBuffer();
+		byte[] frame = connection.getFrameBuffer();
+
+		long deadline = System.currentTimeMillis() + timeoutMillis;
+		int frames = 0;
+		int count = -1;
+		int frameLength = 0;
+		boolean inFrame = false;
+
+		while(frames < 3) {
+
+			int read;
+			try {
+				read = in.read(buffer, 0, buffer.length);
+			}catch(SocketTimeoutException quiet) {
+				return frames >= 2 ? count : -1;
+			}
+
+			if(read < 0) {
+				return -1;
+			}
+
+			for(int i = 0; i < read && frames < 3; i++) {
+
+				byte b = buffer[i];
+
+				if(b == STX) {
+					frameLength = 0;
+					inFrame = true;
+				}else if(b == ETX) {
+					if(inFrame && ++frames == 2) {
+						count = parseLastField(frame, frameLength);
+					}
+					inFrame = false;
+				}else if(inFrame && frameLength < frame.length) {
+					frame[frameLength++] = b;
+				}
+			}
+
+			if(frames < 3 && System.currentTimeMillis() >= deadline) {
+				return frames >= 2 ? count : -1;
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * The digits after the last comma, -1 if there is anything else there
+	 * @param frame
+	 * @param length
+	 * @return
+	 */
+	private static int parseLastField(byte[] frame, int length) {
+
+		int start = length;
+		while(start > 0 && frame[start - 1] != ',') {
+			start--;
+		}
+		if(start == 0 || start == length || length - start > 9) {
+			return -1;
+		}
+
+		int value = 0;
+		for(int i = start; i < length; i++) {
+			if(frame[i] < '0' || frame[i] > '9') {
+				return -1;
+			}
+			value = value * 10 + (frame[i] - '0');
+		}
+		return value;
+	}
+
+	/**
+	 * Matches a reply to the oldest outstanding query it answers and copies it onto the response.
+	 * @param frame the reply without STX/ETX
+	 * @param length
+	 * @param response
+	 */
+	private void onFrame(byte[] frame, int length, EpsonZplPrinterResponse response) {
+
+		for(int i = 0; i < pending.size(); i++) {
+			STATUS_QUERY query = pending.get(i);
+			if(query.matches(frame, length)) {
+				pending.remove(i);
+				int prefix = query.replyPrefixBytes.length;
+				query.apply(frame, prefix, length - prefix, response);
+				return;
+			}
+		}
+
+		//a setting we asked for, these are rare enough to just make a String of
+		if(!pendingSettings.isEmpty() && length > 3 && frame[0] == '^' && frame[1] == 'S' && frame[2] == '(') {
+			String reply = new String(frame, 3, length - 3, StandardCharsets.ISO_8859_1);
+			for(int i = 0; i < pendingSettings.size(); i++) {
+				String key = pendingSettings.get(i);
+				if(reply.startsWith(key + ",")) {
+					pendingSettings.remove(i);
+					response.putSetting(key, reply.substring(key.length() + 1).trim());
+					return;
+				}
+			}
+		}
+
+		//a reply we didn't ask for, ignore it
+	}
+
+	/**
+	 * True once every query sent has been answered, false if we gave up on the idle timeout.
+	 * @return
+	 */
+	public boolean isComplete() {return pending.isEmpty() && pendingSettings.isEmpty();}
+
+	public int getFramesRead() {return framesRead;}
+
+	/**
+	 * System.nanoTime() when the first byte of the reply came in, 0 if nothing did
+	 * @return
+	 */
+	public long getFirstReplyAt() {return firstReplyAt;}
+
+	public int getExpected() {return expected;}
+
+	public int getIdleReadTimeoutMillis() {return idleReadTimeoutMillis;}
+	public void setIdleReadTimeoutMillis(int idleReadTimeoutMillis) {this.idleReadTimeoutMillis = idleReadTimeoutMillis;}
+
+	public long getFirstReplyTimeoutMillis() {return firstReplyTimeoutMillis;}
+	public void setFirstReplyTimeoutMillis(long firstReplyTimeoutMillis) {this.firstReplyTimeoutMillis = firstReplyTimeoutMillis;}
+
+
+
+	/**
+	 * The ~H( queries sent at the end of every call, and what the reply to each starts with.
+	 * https://files.support.epson.com/pdf/pos/bulk/cw-c4000_esclabel_crg_en_revc.pdf
+	 */
+	public enum STATUS_QUERY {
+
+		SEA ("~H(SEA,E", "^S(SEA,E,"),	//Sends the printer error status
+		CPC ("~H(CPC,C", "^S(CPC,C,"),	//gets the color correction
+		QIQ ("~H(QIQ", "IQ,"),			//sends the remaining ink for all colors in the printer.
+		QMN ("~H(QMN", "MN,"),			//sends the remaining Maintenance kit life.
+		IMF ("~H(IMF,V", "^S(IMF,V,"),	//sends the firmware version (~H(IMF,V per CW-C4000 ESC/Label, SHEET 17)
+		IMP ("~H(IMP,S", "^S(IMP,S,");	//sends the serial number
+
+		private final String command;
+		private final String replyPrefix;
+		private final byte[] replyPrefixBytes;
+
+		STATUS_QUERY(String command, String replyPrefix) {
+			this.command = command;
+			this.replyPrefix = replyPrefix;
+			this.replyPrefixBytes = replyPrefix.getBytes(StandardCharsets.ISO_8859_1);
+		}
+
+		public String getCommand() {return command;}
+
+		public String getReplyPrefix() {return replyPrefix;}
+
+		public String getZPL() {
+			return this.getCommand() + "\r";
+		}
+
+		/**
+		 * True if the frame is a reply to this query
+		 * @param frame
+		 * @param length
+		 * @return
+		 */
+		boolean matches(byte[] frame, int length) {
+			if(length < replyPrefixBytes.length) {
+				return false;
+			}
+			for(int i = 0; i < replyPrefixBytes.length; i++) {
+				if(frame[i] != replyPrefixBytes[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Copies the reply onto the response
+		 * @param reply
+		 * @param offset where the value starts, just past the prefix
+		 * @param length
+		 * @param response
+		 */
+		void apply(byte[] reply, int offset, int length, EpsonZplPrinterResponse response) {
+
+			switch(this) {
+			case SEA:
+				response.setErrorCode(reply, offset, length);
+				break;
+
+			case QIQ:
+				//<STX> IQ, <remaining black ink>, <remaining cyan ink>,<remaining magenta ink>, <remaining
+				//yellow ink><ETX><CR><LF>
+				//			    	RH Enough ink in cartridge
+				//			    	RM Moderate ink in cartridge
+				//			    	RL Small ink in cartridge
+				//			    	RN Ink cartridge low
+				//			    	RR Replace Ink cartridge
+				//			    	NA Ink cartridge not installed
+				//			    	CI Ink cartridge installed
+				int end = offset + length;
+				int start = offset;
+				for(int color = 0; color < 4 && start < end; color++) {
+
+					int comma = start;
+					while(comma < end && reply[comma] != ',') {
+						comma++;
+					}
+
+					String level = EpsonZplPrinterResponse.getInkCode(reply, start, comma - start);
+					if(level != null) {
+						switch(color) {
+						case 0: response.setBlack(level); break;
+						case 1: response.setCyan(level); break;
+						case 2: response.setMagenta(level); break;
+						default: response.setYellow(level); break;
+						}
+					}
+					start = comma + 1;
+				}
+				break;
+
+			case QMN:
+				//same codes as the ink levels
+				String maintenance = EpsonZplPrinterResponse.getInkCode(reply, offset, length);
+				if(maintenance != null) {
+					response.setMaintenance(maintenance);
+				}
+				break;
+
+			case IMF:
+				String firmware = new String(reply, offset, length, StandardCharsets.ISO_8859_1);
+				response.setFirmware(firmware);
+				response.setMessage((response.getMessage() == null ? "" : response.getMessage() + " ") + "FW:" + firmware);
+				break;
+
+			case IMP:
+				String serialNumber = new String(reply, offset, length, StandardCharsets.ISO_8859_1);
+				response.setSerialNumber(serialNumber);
+				response.setMessage((response.getMessage() == null ? "" : response.getMessage() + " ") + "SN:" + serialNumber);
+				break;
+
+			default:
+				//asked for, but nothing on the response to put it in
+				break;
+			}
+		}
+	}
+
+}
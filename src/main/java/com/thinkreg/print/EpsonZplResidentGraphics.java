@@ -0,0 +1,333 @@
+/*
+ * Copyright 2025 Robert James Drabant II, ThinkREG
+ * https://www.linkedin.com/in/robert-drabant/
+ *
+ * This code was independently developed by ThinkREG for use with Epson printer ColorWorks CW-C4000.
+ * Neither ThinkREG or Epson America, Inc. provide any warranties or support for this code.
+ * “Epson” is the registered trademark of Epson America, Inc. and its affiliates in the
+ * United States and other countries. Epson reserves all rights to its trademarks.
+ * Epson and ThinkREG are independent companies.
+ *
+ * From the author, this was created because I wanted a cleaner way to print to our Epsons we use in
+ * conference and event management. We have mostly 4000s, but this should
+ * work with any Epson that supports ZPLII/ESC. I also want to thank team
+ * members at Epson for their support.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thinkreg.print;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+
+/**
+ * What this JVM has left stored on a printer's R: drive, so a badge or logo that's already there is
+ * recalled with ^IM instead of being sent again. There is one per printer (ip:port).
+ *
+ * Graphics are stored under names made from a hash of their pixels (RGxxxxxx), so the same image
+ * always lands under the same name. The index keeps the total size under a memory budget by deleting
+ * the least recently printed graphic with a targeted ^ID before uploading a new one. Templates are
+ * tracked here as well but never evicted, they are only ever removed by
+ * {@link EpsonZplPrintJob#deleteTemplate}.
+ *
+ * The printer can't list what it has stored, but R: is cleared when it restarts, and its host status
+ * (~HS) says how many graphics it is holding. The pool closes sockets that sit idle, so every time a
+ * new connection is opened the printer is asked for that count before anything is sent. As long as
+ * it still has at least as many as the index does, the index is kept, and a badge desk that goes
+ * quiet between prints doesn't upload everything again. If it has fewer (it was restarted or power
+ * cycled), doesn't answer ~HS, or a call fails part way through, the index is cleared, the next batch
+ * deletes everything in the RG namespace before it starts, and the index builds back up from what
+ * that batch uploads.
+ */
+public class EpsonZplResidentGraphics{
+
+	public static final long DEFAULT_MEMORY_BUDGET = 8L * 1024 * 1024;
+
+	/**
+	 * Graphics this class manages are stored as R:RGxxxxxx, templates can't use names starting with it.
+	 */
+	public static final String NAME_PREFIX = "RG";
+
+	private static final ConcurrentMap<String, EpsonZplResidentGraphics> PRINTERS = new ConcurrentHashMap<String, EpsonZplResidentGraphics>();
+
+	private final String ip;
+	private final int port;
+
+	//name on the printer (R:RG1A2B3C.PNG) -> what's stored there, least recently printed first
+	private final LinkedHashMap<String, Resident> graphics = new LinkedHashMap<String, Resident>(16, 0.75f, true);
+	//template name -> bytes, never evicted
+	private final Map<String, Long> templates = new HashMap<String, Long>();
+	private long usedBytes = 0L;
+	private boolean purgeNeeded = true;
+	//false once the printer has let a ~HS go unanswered, it won't be asked again
+	private boolean hostStatusAnswered = true;
+
+	private volatile long memoryBudget = DEFAULT_MEMORY_BUDGET;
+
+	private long hits = 0L;
+	private long uploads = 0L;
+	private long evictions = 0L;
+	private long resets = 0L;
+	private long confirmations = 0L;
+
+
+	private EpsonZplResidentGraphics(String ip, int port){
+		this.ip = ip;
+		this.port = port;
+	}
+
+
+	/**
+	 * Returns the index for this printer, creating it the first time it is asked for.
+	 * @param ip
+	 * @param port
+	 * @return
+	 */
+	public static EpsonZplResidentGraphics forPrinter(String ip, int port) {
+		return PRINTERS.computeIfAbsent(EpsonZplConnectionPool.key(ip, port), k -> new EpsonZplResidentGraphics(ip, port));
+	}
+
+	/**
+	 * The name (without drive or extension) a graphic with this content is stored under. Only 24 bits
+	 * of the hash fit in the 8 characters the printer allows, so the index also keeps the full key and
+	 * treats a different image under the same name as not resident.
+	 * @param key
+	 * @return
+	 */
+	public static String nameFor(EpsonZplPayloadCache.Key key) {
+		return NAME_PREFIX + String.format("%06X", (key.getHashHigh() ^ key.getHashLow()) & 0xFFFFFFL);
+	}
+
+	/**
+	 * Deletes every graphic this class manages from the printer, used when the index can't be trusted.
+	 * @return
+	 */
+	public static String getPurgeZPL() {
+		return "^XA^IDR:" + NAME_PREFIX + "*.*^FS^XZ\r";
+	}
+
+
+	/**
+	 * True if this exact graphic is on the printer, counting it as just used if it is.
+	 * @param graphic
+	 * @param key the content it was encoded from
+	 * @return
+	 */
+	public synchronized boolean isResident(EpsonZplGraphic graphic, EpsonZplPayloadCache.Key key) {
+		Resident resident = graphics.get(graphic.getName());
+		if(resident != null && resident.key.equals(key)) {
+			hits++;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Makes room for a graphic about to be uploaded and records it as resident. Returns the ^ID
+	 * deletes for whatever had to be evicted, which need to go to the printer before the upload.
+	 * A graphic bigger than the whole budget isn't kept, the caller should delete it once printed,
+	 * and {@link #isResident} won't find it.
+	 * @param graphic
+	 * @param key
+	 * @return the ^ID deletes to send first, least recently used first, empty if it fit
+	 */
+	public synchronized List<String> add(EpsonZplGraphic graphic, EpsonZplPayloadCache.Key key) {
+
+		List<String> evicted = new ArrayList<String>();
+		uploads++;
+
+		//same name, other content, the upload is about to overwrite it
+		Resident replaced = graphics.remove(graphic.getName());
+		if(replaced != null) {
+			usedBytes -= replaced.size;
+		}
+
+		long size = graphic.getStoredSize();
+		if(!fits(size)) {
+			return evicted;
+		}
+
+		Iterator<Map.Entry<String, Resident>> lru = graphics.entrySet().iterator();
+		while(usedBytes + size > memoryBudget - getTemplateBytes() && lru.hasNext()) {
+			Map.Entry<String, Resident> entry = lru.next();
+			lru.remove();
+			usedBytes -= entry.getValue().size;
+			evicted.add("^XA^ID" + entry.getKey() + "^FS^XZ\r");
+			evictions++;
+		}
+
+		graphics.put(graphic.getName(), new Resident(key, size));
+		usedBytes += size;
+
+		return evicted;
+	}
+
+	/**
+	 * True if a graphic this size can be kept on the printer at all, templates included
+	 * @param size
+	 * @return
+	 */
+	public synchronized boolean fits(long size) {
+		return size <= memoryBudget - getTemplateBytes();
+	}
+
+	public synchronized boolean isTemplateResident(String name) {
+		return templates.containsKey(name);
+	}
+
+	synchronized void addTemplate(String name, long size) {
+		templates.put(name, size);
+	}
+
+	synchronized void removeTemplate(String name) {
+		templates.remove(name);
+	}
+
+	/**
+	 * Forgets everything, the printer is assumed to have nothing of ours on it. The next batch
+	 * purges the RG namespace before uploading anything, see {@link #takePurgeNeeded()}.
+	 */
+	public synchronized void reset() {
+		graphics.clear();
+		templates.clear();
+		usedBytes = 0L;
+		purgeNeeded = true;
+		resets++;
+	}
+
+	/**
+	 * True if the index has anything to lose and it's worth asking the printer whether it still has it,
+	 * see {@link #confirm}
+	 * @return
+	 */
+	synchronized boolean needsConfirming() {
+		return hostStatusAnswered && !purgeNeeded && (!graphics.isEmpty() || !templates.isEmpty());
+	}
+
+	/**
+	 * Keeps the index if the printer still holds at least as many graphics as it has on record, and
+	 * clears it otherwise. Called on each new connection with what ~HS reported.
+	 * @param storedOnPrinter the printer's count, -1 if it didn't answer
+	 * @return true if the index was kept
+	 */
+	synchronized boolean confirm(int storedOnPrinter) {
+
+		if(storedOnPrinter < 0) {
+			hostStatusAnswered = false;
+		}
+
+		if(storedOnPrinter >= 0 && storedOnPrinter >= graphics.size() + templates.size()) {
+			confirmations++;
+			return true;
+		}
+
+		reset();
+		return false;
+	}
+
+	/**
+	 * True once after each {@link #reset()}, the caller is then expected to send {@link #getPurgeZPL()}
+	 * ahead of anything else.
+	 * @return
+	 */
+	synchronized boolean takePurgeNeeded() {
+		boolean needed = purgeNeeded;
+		purgeNeeded = false;
+		return needed;
+	}
+
+	/**
+	 * Drops just one graphic from the index, when it has been deleted from the printer by hand
+	 * @param name
+	 */
+	public synchronized void remove(String name) {
+		Resident resident = graphics.remove(name);
+		if(resident != null) {
+			usedBytes -= resident.size;
+		}
+	}
+
+	private long getTemplateBytes() {
+		long total = 0L;
+		for(Long size: templates.values()) {
+			total += size;
+		}
+		return total;
+	}
+
+	public String getIp() {return ip;}
+
+	public int getPort() {return port;}
+
+	public long getMemoryBudget() {return memoryBudget;}
+
+	/**
+	 * How much of the printer's R: drive we allow ourselves to fill, templates included. Lowering it
+	 * takes effect on the next upload.
+	 * @param memoryBudget
+	 */
+	public void setMemoryBudget(long memoryBudget) {this.memoryBudget = memoryBudget;}
+
+	/**
+	 * Bytes of R: in use by graphics and templates we've stored
+	 * @return
+	 */
+	public synchronized long getUsedBytes() {return usedBytes + getTemplateBytes();}
+
+	public synchronized int getResidentCount() {return graphics.size();}
+
+	/**
+	 * Uploads saved because the graphic was already on the printer
+	 * @return
+	 */
+	public synchronized long getHits() {return hits;}
+
+	public synchronized long getUploads() {return uploads;}
+
+	public synchronized long getEvictions() {return evictions;}
+
+	public synchronized long getResets() {return resets;}
+
+	/**
+	 * New connections where the printer still had everything and the index was kept
+	 * @return
+	 */
+	public synchronized long getConfirmations() {return confirmations;}
+
+	@Override
+	public synchronized String toString(){
+		return "Resident graphics " + ip + ":" + port + " " + graphics.size() + " graphics, " + templates.size() + " templates, " +
+				getUsedBytes() + "/" + memoryBudget + " bytes, hits=" + hits + " uploads=" + uploads + " evictions=" + evictions;
+	}
+
+
+	private static final class Resident{
+
+		private final EpsonZplPayloadCache.Key key;
+		private final long size;
+
+		Resident(EpsonZplPayloadCache.Key key, long size){
+			this.key = key;
+			this.size = size;
+		}
+	}
+
+}
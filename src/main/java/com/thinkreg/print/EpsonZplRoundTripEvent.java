@@ -0,0 +1,91 @@
+/*
+ * Copyright 2025 Robert James Drabant II, ThinkREG
+ * https://www.linkedin.com/in/robert-drabant/
+ *
+ * This code was independently developed by ThinkREG for use with Epson printer ColorWorks CW-C4000.
+ * Neither ThinkREG or Epson America, Inc. provide any warranties or support for this code.
+ * “Epson” is the registered trademark of Epson America, Inc. and its affiliates in the
+ * United States and other countries. Epson reserves all rights to its trademarks.
+ * Epson and ThinkREG are independent companies.
+ *
+ * From the author, this was created because I wanted a cleaner way to print to our Epsons we use in
+ * conference and event management. We have mostly 4000s, but this should
+ * work with any Epson that supports ZPLII/ESC. I also want to thank team
+ * members at Epson for their support.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thinkreg.print;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+
+/**
+ * Flight Recorder event for one trip to the printer: the socket borrowed, the job and status
+ * queries written, and the replies read. Its duration covers the whole trip, the fields break it
+ * down the same way {@link EpsonZplMetrics} does. Costs next to nothing unless a recording is on.
+ */
+@Name("com.thinkreg.print.RoundTrip")
+@Label("Printer Round Trip")
+@Category({"ThinkREG", "Printing"})
+@Description("One call to an Epson printer, from borrowing the connection to the last status reply")
+@StackTrace(false)
+final class EpsonZplRoundTripEvent extends Event{
+
+	@Label("Printer")
+	@Description("ip:port")
+	String printer;
+
+	@Label("Bytes Sent")
+	@DataAmount
+	long bytesSent;
+
+	@Label("Connection Reused")
+	boolean reused;
+
+	@Label("Connect")
+	@Timespan
+	long connect;
+
+	@Label("Write")
+	@Description("Writing the job, including any wait on labels still being encoded")
+	@Timespan
+	long write;
+
+	@Label("First Reply")
+	@Description("From the last byte sent to the first byte back")
+	@Timespan
+	long firstReply;
+
+	@Label("Reply")
+	@Description("From the first byte back to the last reply")
+	@Timespan
+	long reply;
+
+	@Label("Error Code")
+	String errorCode;
+
+	@Label("Success")
+	boolean success;
+
+	@Label("Message")
+	String message;
+
+}
@@ -0,0 +1,793 @@
+/*
+ * Copyright 2025 Robert James Drabant II, ThinkREG
+ * https://www.linkedin.com/in/robert-drabant/
+ *
+ * This code was independently developed by ThinkREG for use with Epson printer ColorWorks CW-C4000.
+ * Neither ThinkREG or Epson America, Inc. provide any warranties or support for this code.
+ * “Epson” is the registered trademark of Epson America, Inc. and its affiliates in the
+ * United States and other countries. Epson reserves all rights to its trademarks.
+ * Epson and ThinkREG are independent companies.
+ *
+ * From the author, this was created because I wanted a cleaner way to print to our Epsons we use in
+ * conference and event management. We have mostly 4000s, but this should
+ * work with any Epson that supports ZPLII/ESC. I also want to thank team
+ * members at Epson for their support.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.thinkreg.print;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+
+
+/**
+ * Keeps badges that are on their way to a printer on disk, so a JVM that dies part way through an
+ * event doesn't lose them. Turned on by giving a print job (or a fleet) a spool, see
+ * {@link EpsonZplPrintJob#setSpool}.
+ *
+ * Each label is written to the spool as soon as it's encoded, upload and all, and marked done once its
+ * batch has its results, printed or not, since from then on the caller knows how it went. Whatever is
+ * still pending when the spool is opened again is what was in flight when the JVM went down, and
+ * {@link #replay()} sends it. Closing the spool waits for the batches still printing, so their labels
+ * are marked done and don't get printed twice next time.
+ *
+ * The journal is a directory of segment files, each memory mapped, so an append is a copy into memory
+ * the OS writes out in the background. That survives the JVM being killed, not the machine losing
+ * power, unless sync is turned on (which costs a disk flush per label). A new segment is started when
+ * the current one is full, and a segment is deleted once it and every segment before it has nothing
+ * pending.
+ */
+public class EpsonZplSpool{
+
+	public static final long DEFAULT_SEGMENT_SIZE = 64L * 1024 * 1024;
+
+	private static final int MAGIC = 0x5A53504C;	//ZSPL
+	private static final int VERSION = 1;
+	private static final int SEGMENT_HEADER = 8;
+	private static final byte JOB = 1;
+	private static final byte DONE = 2;
+	private static final String PREFIX = "spool-";
+	private static final String SUFFIX = ".log";
+	//the next segment, zero filled in the background so appends only ever write to pages already on disk
+	private static final String NEXT = PREFIX + "next.tmp";
+
+	private static final ExecutorService PREALLOCATOR = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "EpsonZplSpool-preallocate");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final Path directory;
+	private final long segmentSize;
+
+	//oldest first, the last one is being appended to
+	private final Deque<Segment> segments = new ArrayDeque<Segment>();
+	private Segment active = null;
+	private MappedByteBuffer next = null;
+	private boolean preallocating = false;
+	//id -> entry, in the order they were added
+	private final Map<Long, Entry> pending = new LinkedHashMap<Long, Entry>();
+	//what was pending when the spool was opened and hasn't been replayed yet, labels added since are
+	//still on their way to the printer and aren't ours to send
+	private final List<Entry> replayable = new ArrayList<Entry>();
+	private final CRC32 crc = new CRC32();
+	private long nextId = 1L;
+	private long nextSegment = 1L;
+	private boolean closed = false;
+	private boolean closing = false;
+	private int openBatches = 0;
+
+	private volatile boolean sync = false;
+
+	private long appended = 0L;
+	private long completed = 0L;
+	private long recovered = 0L;
+
+
+	private EpsonZplSpool(Path directory, long segmentSize){
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+	}
+
+
+	/**
+	 * Opens the spool in this directory, creating it if it isn't there, and reads back whatever was
+	 * left pending.
+	 * @param directory
+	 * @return
+	 * @throws IOException
+	 */
+	public static EpsonZplSpool open(Path directory) throws IOException {
+		return open(directory, DEFAULT_SEGMENT_SIZE);
+	}
+
+	/**
+	 * @param directory
+	 * @param segmentSize bytes per segment file, a label bigger than this gets a segment of its own
+	 * @return
+	 * @throws IOException
+	 */
+	public static EpsonZplSpool open(Path directory, long segmentSize) throws IOException {
+		Files.createDirectories(directory);
+		EpsonZplSpool spool = new EpsonZplSpool(directory, Math.max(4096L, segmentSize));
+		synchronized(spool) {
+			spool.recover();
+			spool.preallocate();
+		}
+		return spool;
+	}
+
+
+	/**
+	 * Writes a label to the journal.
+	 * @param ip
+	 * @param port
+	 * @param dpi the resolution the batch was set to, 0 if none
+	 * @param label
+	 * @return the entry's id, to pass to {@link #complete}
+	 * @throws IOException
+	 */
+	synchronized long append(String ip, int port, int dpi, EpsonZplPrintJob.EncodedGraphic label) throws IOException {
+
+		if(closed || closing) {
+			throw new IOException("Spool " + directory + " is closed");
+		}
+
+		EpsonZplGraphic graphic = label.getGraphic();
+		EpsonZplPayloadCache.Key key = label.getKey();
+		byte[] ipBytes = bytes(ip);
+		byte[] name = bytes(graphic.getName());
+		byte[] recall = bytes(graphic.getRecallCommand());
+		byte[] encoding = bytes(graphic.getEncoding());
+		byte[] keyEncoding = bytes(key.getEncoding());
+		byte[] upload = graphic.getUpload();
+
+		int length = 1 + 8 + 8 + (2 + ipBytes.length) + 4 + 4 + (2 + name.length) + (2 + recall.length) + (2 + encoding.length) + 8 +
+				8 + 8 + 4 + 4 + 4 + 4 + (2 + keyEncoding.length) + 4 + upload.length;
+
+		long id = nextId++;
+		long createdAt = System.currentTimeMillis();
+
+		Segment segment = reserve(length);
+		MappedByteBuffer buffer = segment.buffer;
+		int start = buffer.position();
+		buffer.position(start + 4);
+
+		buffer.put(JOB);
+		buffer.putLong(id);
+		buffer.putLong(createdAt);
+		putString(buffer, ipBytes);
+		buffer.putInt(port);
+		buffer.putInt(dpi);
+		putString(buffer, name);
+		putString(buffer, recall);
+		putString(buffer, encoding);
+		buffer.putLong(graphic.getStoredSize());
+		buffer.putLong(key.getHashHigh());
+		buffer.putLong(key.getHashLow());
+		buffer.putInt(key.getWidth());
+		buffer.putInt(key.getHeight());
+		buffer.putInt(key.getType());
+		buffer.putInt(key.getDpi());
+		putString(buffer, keyEncoding);
+		buffer.putInt(upload.length);
+		buffer.put(upload);
+
+		commit(segment, start, length);
+
+		Entry entry = new Entry(id, ip, port, dpi, createdAt, label, segment);
+		pending.put(id, entry);
+		segment.pending++;
+		appended++;
+
+		if(buffer.position() > buffer.capacity() / 2) {
+			preallocate();
+		}
+
+		return id;
+	}
+
+	/**
+	 * Marks an entry done, it won't be replayed.
+	 * @param id
+	 * @throws IOException if the spool is closed, the entry is then still pending when it's opened again
+	 */
+	public synchronized void complete(long id) throws IOException {
+
+		if(closed) {
+			throw new IOException("Spool " + directory + " is closed, label " + id + " is still pending");
+		}
+
+		Entry entry = pending.remove(id);
+		if(entry == null) {
+			return;
+		}
+
+		Segment segment = reserve(1 + 8);
+		MappedByteBuffer buffer = segment.buffer;
+		int start = buffer.position();
+		buffer.position(start + 4);
+		buffer.put(DONE);
+		buffer.putLong(id);
+		commit(segment, start, 1 + 8);
+
+		entry.segment.pending--;
+		completed++;
+		deleteFinished();
+	}
+
+	/**
+	 * Sends what was pending when the spool was opened, grouped into one batch per printer in the order
+	 * it was added. Labels spooled since then belong to batches that are still printing and are left
+	 * alone. Labels that print are marked done, the rest are kept for the next replay, since there's
+	 * nobody left holding the images to send them again.
+	 * @return the results of every batch, one per entry, grouped by printer
+	 * @throws Exception
+	 */
+	public List<EpsonZplLabelResult> replay() throws Exception {
+
+		//taken out so two replays can't both send the same label, anything that doesn't print goes back
+		Map<Long, Entry> unprinted = new LinkedHashMap<Long, Entry>();
+		Map<String, List<Entry>> byPrinter = new LinkedHashMap<String, List<Entry>>();
+		synchronized(this) {
+			for(Entry entry: replayable) {
+				if(pending.containsKey(entry.id)) {
+					unprinted.put(entry.id, entry);
+					byPrinter.computeIfAbsent(EpsonZplConnectionPool.key(entry.ip, entry.port) + "/" + entry.dpi, k -> new ArrayList<Entry>()).add(entry);
+				}
+			}
+			replayable.clear();
+		}
+
+		List<EpsonZplLabelResult> results = new ArrayList<EpsonZplLabelResult>();
+		try {
+			for(List<Entry> entries: byPrinter.values()) {
+
+				Entry first = entries.get(0);
+				EpsonZplPrintJob job = new EpsonZplPrintJob(first.ip, first.port);
+				for(EpsonZplPrintJob.DPI dpi: EpsonZplPrintJob.DPI.values()) {
+					if(dpi.getResolution() == first.dpi) {
+						job.setDpi(dpi);
+					}
+				}
+
+				List<EpsonZplLabelResult> printed = job.printSpooled(entries);
+				for(int i = 0; i < printed.size(); i++) {
+					if(printed.get(i).isSuccess()) {
+						complete(entries.get(i).id);
+						unprinted.remove(entries.get(i).id);
+					}
+				}
+				results.addAll(printed);
+			}
+		}finally {
+			synchronized(this) {
+				replayable.addAll(0, unprinted.values());
+			}
+		}
+
+		return results;
+	}
+
+	/**
+	 * What's waiting to be printed, oldest first. This includes labels in batches that are printing
+	 * now, not just what {@link #replay()} would send.
+	 * @return
+	 */
+	public synchronized List<Entry> getPending() {
+		return new ArrayList<Entry>(pending.values());
+	}
+
+	public synchronized int getPendingCount() {return pending.size();}
+
+	/**
+	 * Writes everything out to disk now
+	 */
+	public synchronized void force() {
+		if(active != null) {
+			active.buffer.force();
+		}
+	}
+
+	/**
+	 * Stops taking entries, waits for the batches still printing to mark their labels done, and
+	 * flushes. What's pending stays in the journal for next time. If the wait is interrupted the spool
+	 * closes anyway, and the labels those batches were printing are replayed next time.
+	 */
+	public synchronized void close() {
+
+		closing = true;
+
+		boolean interrupted = false;
+		while(openBatches > 0 && !interrupted) {
+			try {
+				wait();
+			}catch(InterruptedException ex) {
+				interrupted = true;
+			}
+		}
+
+		force();
+		closed = true;
+
+		if(interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * The segment the next record goes into, a new one if it doesn't fit in the current one
+	 * @param length
+	 * @return
+	 * @throws IOException
+	 */
+	private Segment reserve(int length) throws IOException {
+
+		int size = 4 + length + 4;	//length, record, crc
+		if(active == null || active.buffer.remaining() < size) {
+			active = newSegment(Math.max(segmentSize, SEGMENT_HEADER + size));
+			segments.addLast(active);
+			deleteFinished();
+		}
+		return active;
+	}
+
+	/**
+	 * Adds the crc and then the length in front, the length going in last is what makes the record
+	 * count when the journal is read back.
+	 */
+	private void commit(Segment segment, int start, int length) {
+
+		MappedByteBuffer buffer = segment.buffer;
+
+		ByteBuffer record = buffer.duplicate();
+		record.position(start + 4);
+		record.limit(start + 4 + length);
+		crc.reset();
+		crc.update(record);
+
+		buffer.putInt((int) crc.getValue());
+		buffer.putInt(start, length);
+
+		if(sync) {
+			buffer.force();
+		}
+	}
+
+	private Segment newSegment(long size) throws IOException {
+
+		long sequence = nextSegment++;
+		Path path = directory.resolve(String.format(PREFIX + "%016x" + SUFFIX, sequence));
+
+		MappedByteBuffer buffer;
+		if(next != null && next.capacity() >= size) {
+			Files.move(directory.resolve(NEXT), path);	//the mapping goes with the file
+			buffer = next;
+			next = null;
+		}else {
+			buffer = map(path, size, false);	//not ready yet, or a label too big for it
+		}
+
+		buffer.putInt(MAGIC);
+		buffer.putInt(VERSION);
+
+		return new Segment(path, buffer);
+	}
+
+	/**
+	 * Gets the next segment ready on the preallocate thread, unless it's already there or on its way
+	 */
+	private void preallocate() {
+
+		if(next != null || preallocating || closed || closing) {
+			return;
+		}
+
+		preallocating = true;
+		PREALLOCATOR.execute(() -> {
+			synchronized(EpsonZplSpool.this) {
+				if(closed || closing) {
+					preallocating = false;
+					return;	//queued behind other spools and closed in the meantime, its directory may be gone
+				}
+			}
+			MappedByteBuffer buffer = null;
+			try {
+				buffer = map(directory.resolve(NEXT), segmentSize, true);
+			}catch(IOException ex) {
+				ex.printStackTrace();	//segments get made when they're needed instead
+			}
+			synchronized(EpsonZplSpool.this) {
+				next = buffer;
+				preallocating = false;
+			}
+		});
+	}
+
+	/**
+	 * @param path
+	 * @param size
+	 * @param zero write the whole file out first, otherwise it's sparse and every page gets its disk
+	 * space the first time it's written to, in the middle of an append
+	 * @return
+	 * @throws IOException
+	 */
+	private static MappedByteBuffer map(Path path, long size, boolean zero) throws IOException {
+
+		try(FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, 
+				StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+
+			if(zero) {
+				ByteBuffer zeros = ByteBuffer.allocateDirect(1024 * 1024);
+				for(long offset = 0; offset < size; offset += zeros.capacity()) {
+					zeros.clear();
+					zeros.limit((int) Math.min(zeros.capacity(), size - offset));
+					while(zeros.hasRemaining()) {
+						channel.write(zeros, offset + zeros.position());
+					}
+				}
+			}
+
+			return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);	//new space reads as zero, a zero length is the end
+		}
+	}
+
+	/**
+	 * Deletes segments from the oldest up to the first one with something still pending. Going in
+	 * order matters, a later segment can hold the done record for an entry in an earlier one.
+	 */
+	private void deleteFinished() {
+		while(!segments.isEmpty() && segments.peekFirst() != active && segments.peekFirst().pending == 0) {
+			Segment segment = segments.pollFirst();
+			try {
+				Files.deleteIfExists(segment.path);
+			}catch(IOException ex) {
+				//still mapped on some platforms, it's tried again the next time the spool is opened
+				ex.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * Reads every segment back in order. A record that was only part written when the JVM died fails
+	 * its crc, and the segment is read up to there.
+	 * @throws IOException
+	 */
+	private void recover() throws IOException {
+
+		List<Path> paths = new ArrayList<Path>();
+		try(DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+			for(Path path: files) {
+				paths.add(path);
+			}
+		}
+		Collections.sort(paths);
+
+		for(Path path: paths) {
+
+			String fileName = path.getFileName().toString();
+			long sequence;
+			try {
+				sequence = Long.parseLong(fileName.substring(PREFIX.length(), fileName.length() - SUFFIX.length()), 16);
+			}catch(NumberFormatException ex) {
+				continue;	//not one of ours
+			}
+
+			MappedByteBuffer buffer;
+			try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+				buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			}
+
+			Segment segment = new Segment(path, null);
+			segments.addLast(segment);
+			nextSegment = Math.max(nextSegment, sequence + 1);
+
+			if(buffer.remaining() < SEGMENT_HEADER || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+				continue;
+			}
+
+			while(buffer.remaining() >= 4) {
+
+				int start = buffer.position();
+				int length = buffer.getInt();
+				if(length <= 0 || length + 4 > buffer.remaining()) {
+					break;
+				}
+
+				ByteBuffer record = buffer.duplicate();
+				record.limit(start + 4 + length);
+				crc.reset();
+				crc.update(record);
+				buffer.position(start + 4 + length);
+				if((int) crc.getValue() != buffer.getInt()) {
+					break;
+				}
+
+				buffer.position(start + 4);
+				byte type = buffer.get();
+				long id = buffer.getLong();
+				nextId = Math.max(nextId, id + 1);
+
+				if(type == JOB) {
+					pending.put(id, readEntry(buffer, id, segment));
+					segment.pending++;
+					recovered++;
+				}else if(type == DONE) {
+					Entry entry = pending.remove(id);
+					if(entry != null) {
+						entry.segment.pending--;
+						recovered--;
+					}
+				}
+
+				buffer.position(start + 4 + length + 4);
+			}
+		}
+
+		replayable.addAll(pending.values());
+		deleteFinished();
+	}
+
+	private Entry readEntry(MappedByteBuffer buffer, long id, Segment segment) {
+
+		long createdAt = buffer.getLong();
+		String ip = getString(buffer);
+		int port = buffer.getInt();
+		int dpi = buffer.getInt();
+		String name = getString(buffer);
+		String recall = getString(buffer);
+		String encoding = getString(buffer);
+		long storedSize = buffer.getLong();
+		long hashHigh = buffer.getLong();
+		long hashLow = buffer.getLong();
+		int width = buffer.getInt();
+		int height = buffer.getInt();
+		int type = buffer.getInt();
+		int keyDpi = buffer.getInt();
+		String keyEncoding = getString(buffer);
+		byte[] upload = new byte[buffer.getInt()];
+		buffer.get(upload);
+
+		EpsonZplGraphic graphic = new EpsonZplGraphic(name, upload, recall, encoding, storedSize);
+		EpsonZplPayloadCache.Key key = new EpsonZplPayloadCache.Key(hashHigh, hashLow, width, height, type, keyDpi, keyEncoding);
+
+		return new Entry(id, ip, port, dpi, createdAt, new EpsonZplPrintJob.EncodedGraphic(graphic, key), segment);
+	}
+
+	private static byte[] bytes(String value) {
+		return value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static void putString(ByteBuffer buffer, byte[] value) {
+		buffer.putShort((short) value.length);
+		buffer.put(value);
+	}
+
+	private static String getString(ByteBuffer buffer) {
+		byte[] value = new byte[buffer.getShort() & 0xFFFF];
+		buffer.get(value);
+		return new String(value, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * The entries one print batch adds, all completed together once the batch has its results.
+	 * Anything still encoding when that happens isn't spooled at all. {@link #close()} waits for every
+	 * batch started before it to be closed.
+	 * @return
+	 */
+	synchronized Batch startBatch() {
+		boolean counted = !closing && !closed;
+		if(counted) {
+			openBatches++;
+		}
+		return new Batch(counted);
+	}
+
+	private synchronized void batchClosed() {
+		openBatches--;
+		notifyAll();
+	}
+
+	public Path getDirectory() {return directory;}
+
+	public long getSegmentSize() {return segmentSize;}
+
+	public synchronized int getSegmentCount() {return segments.size();}
+
+	public boolean isSync() {return sync;}
+
+	/**
+	 * Flush each record to disk as it's written, so the spool survives the machine going down and
+	 * not just the JVM. Each label then costs a disk flush instead of a memory copy.
+	 * @param sync
+	 */
+	public void setSync(boolean sync) {this.sync = sync;}
+
+	public synchronized long getAppended() {return appended;}
+
+	public synchronized long getCompleted() {return completed;}
+
+	/**
+	 * Entries found pending when the spool was opened
+	 * @return
+	 */
+	public synchronized long getRecovered() {return recovered;}
+
+	@Override
+	public synchronized String toString(){
+		return "Spool " + directory + " " + pending.size() + " pending, " + segments.size() + " segments, appended=" + appended +
+				" completed=" + completed + " recovered=" + recovered;
+	}
+
+
+	/**
+	 * One label in the spool
+	 */
+	public static final class Entry{
+
+		private final long id;
+		private final String ip;
+		private final int port;
+		private final int dpi;
+		private final long createdAt;
+		private final EpsonZplPrintJob.EncodedGraphic label;
+		private final Segment segment;
+
+		private Entry(long id, String ip, int port, int dpi, long createdAt, EpsonZplPrintJob.EncodedGraphic label, Segment segment){
+			this.id = id;
+			this.ip = ip;
+			this.port = port;
+			this.dpi = dpi;
+			this.createdAt = createdAt;
+			this.label = label;
+			this.segment = segment;
+		}
+
+		public long getId() {return id;}
+
+		public String getIp() {return ip;}
+
+		public int getPort() {return port;}
+
+		/**
+		 * The resolution the label was printed at, 0 if the job didn't set one
+		 * @return
+		 */
+		public int getDpi() {return dpi;}
+
+		public long getCreatedAt() {return createdAt;}
+
+		public EpsonZplGraphic getGraphic() {return label.getGraphic();}
+
+		EpsonZplPrintJob.EncodedGraphic getLabel() {return label;}
+
+		@Override
+		public String toString(){
+			return "Spooled label " + id + " for " + ip + ":" + port + " " + label.getGraphic().getName() + " " + label.getGraphic().getSize() + " bytes";
+		}
+	}
+
+
+	/**
+	 * See {@link EpsonZplSpool#startBatch()}
+	 */
+	final class Batch{
+
+		private final boolean counted;
+		private final List<Long> ids = new ArrayList<Long>();
+		//label index -> why it couldn't be spooled
+		private final Map<Integer, IOException> failures = new LinkedHashMap<Integer, IOException>();
+		private boolean closed = false;
+
+		private Batch(boolean counted){
+			this.counted = counted;
+		}
+
+		/**
+		 * Spools a label. A spool that can't be written to doesn't stop the label printing, it's kept
+		 * for {@link #getFailures()}.
+		 * @param index the label's place in the batch
+		 * @param ip
+		 * @param port
+		 * @param dpi
+		 * @param label
+		 */
+		synchronized void append(int index, String ip, int port, int dpi, EpsonZplPrintJob.EncodedGraphic label) {
+			if(closed) {
+				return;	//the batch already has its results, this label was never sent
+			}
+			try {
+				ids.add(EpsonZplSpool.this.append(ip, port, dpi, label));
+			}catch(IOException ex) {
+				failures.put(index, ex);
+			}
+		}
+
+		/**
+		 * Labels that couldn't be written to the spool, by their index in the batch
+		 * @return
+		 */
+		synchronized Map<Integer, IOException> getFailures() {
+			return new LinkedHashMap<Integer, IOException>(failures);
+		}
+
+		/**
+		 * Marks every label the batch spooled done.
+		 * @throws IOException the first label that couldn't be, it and any after it will be replayed
+		 */
+		synchronized void close() throws IOException {
+
+			if(closed) {
+				return;
+			}
+			closed = true;
+
+			IOException error = null;
+			try {
+				for(Long id: ids) {
+					try {
+						complete(id);
+					}catch(IOException ex) {
+						if(error == null) {
+							error = ex;
+						}
+					}
+				}
+				ids.clear();
+			}finally {
+				if(counted) {
+					batchClosed();
+				}
+			}
+
+			if(error != null) {
+				throw error;
+			}
+		}
+	}
+
+
+	private static final class Segment{
+
+		private final Path path;
+		//null for segments read back at startup, only the active one is written to
+		private final MappedByteBuffer buffer;
+		private int pending = 0;
+
+		Segment(Path path, MappedByteBuffer buffer){
+			this.path = path;
+			this.buffer = buffer;
+		}
+	}
+
+}
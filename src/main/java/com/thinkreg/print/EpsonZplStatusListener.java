@@ -0,0 +1,46 @@
+/*
+ * Copyright 2025 Robert James Drabant II, ThinkREG
+ * https://www.linkedin.com/in/robert-drabant/
+ *
+ * This code was independently developed by ThinkREG for use with Epson printer ColorWorks CW-C4000.
+ * Neither ThinkREG or Epson America, Inc. provide any warranties or support for this code.
+ * “Epson” is the registered trademark of Epson America, Inc. and its affiliates in the
+ * United States and other countries. Epson reserves all rights to its trademarks.
+ * Epson and ThinkREG are independent companies.
+ *
+ * From the author, this was created because I wanted a cleaner way to print to our Epsons we use in
+ * conference and event management. We have mostly 4000s, but this should
+ * work with any Epson that supports ZPLII/ESC. I also want to thank team
+ * members at Epson for their support.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thinkreg.print;
+
+
+/**
+ * Told when a printer watched by an {@link EpsonZplStatusMonitor} changes: its error code, any of
+ * its ink levels, or its maintenance box level.
+ */
+public interface EpsonZplStatusListener{
+
+	/**
+	 * Called on a background thread, one change at a time in the order they were seen.
+	 * @param monitor the printer that changed
+	 * @param previous what it was before, null the first time it is seen
+	 * @param current what it is now
+	 */
+	void statusChanged(EpsonZplStatusMonitor monitor, EpsonZplPrinterResponse previous, EpsonZplPrinterResponse current);
+
+}
@@ -0,0 +1,330 @@
+/*
+ * Copyright 2025 Robert James Drabant II, ThinkREG
+ * https://www.linkedin.com/in/robert-drabant/
+ *
+ * This code was independently developed by ThinkREG for use with Epson printer ColorWorks CW-C4000.
+ * Neither ThinkREG or Epson America, Inc. provide any warranties or support for this code.
+ * “Epson” is the registered trademark of Epson America, Inc. and its affiliates in the
+ * United States and other countries. Epson reserves all rights to its trademarks.
+ * Epson and ThinkREG are independent companies.
+ *
+ * From the author, this was created because I wanted a cleaner way to print to our Epsons we use in
+ * conference and event management. We have mostly 4000s, but this should
+ * work with any Epson that supports ZPLII/ESC. I also want to thank team
+ * members at Epson for their support.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thinkreg.print;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+
+/**
+ * Keeps an eye on one printer (ip:port) in the background so dashboards don't have to. It asks
+ * for the printer's status every pollInterval through the same queue and pooled connection print
+ * jobs use, so a poll never lands in the middle of a badge. While it's running,
+ * {@link EpsonZplPrintJob#getPrinterStatus()} answers from the last status it saw as long as that's
+ * no older than maxAge, instead of asking the printer again.
+ *
+ * Every print job reads the full status back at the end anyway, and that counts as a poll too. A
+ * printer that is busy printing is never polled, the jobs keep the status fresh by themselves.
+ *
+ * Listeners are told when the error code, an ink level or the maintenance box level changes.
+ */
+public class EpsonZplStatusMonitor{
+
+	public static final long DEFAULT_POLL_INTERVAL_MS = 5000L;
+	public static final long DEFAULT_MAX_AGE_MS = 5000L;
+
+	private static final ConcurrentMap<String, EpsonZplStatusMonitor> MONITORS = new ConcurrentHashMap<String, EpsonZplStatusMonitor>();
+
+	private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "EpsonZplStatusMonitor");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final String ip;
+	private final int port;
+
+	private volatile long pollIntervalMillis = DEFAULT_POLL_INTERVAL_MS;
+	private volatile long maxAgeMillis = DEFAULT_MAX_AGE_MS;
+
+	private volatile EpsonZplPrinterResponse snapshot = null;
+	private volatile long snapshotAt = 0L;
+	private final Object snapshotLock = new Object();
+
+	private ScheduledFuture<?> schedule = null;
+	private final AtomicBoolean polling = new AtomicBoolean(false);
+	private volatile long polls = 0L;
+
+	private final List<EpsonZplStatusListener> listeners = new CopyOnWriteArrayList<EpsonZplStatusListener>();
+	private final Queue<Runnable> notifications = new ConcurrentLinkedQueue<Runnable>();
+	private final AtomicBoolean notifying = new AtomicBoolean(false);
+
+
+	private EpsonZplStatusMonitor(String ip, int port){
+		this.ip = ip;
+		this.port = port;
+	}
+
+
+	/**
+	 * Returns the monitor for this printer, creating it (not started) the first time it is asked for.
+	 * @param ip
+	 * @param port
+	 * @return
+	 */
+	public static EpsonZplStatusMonitor forPrinter(String ip, int port) {
+		return MONITORS.computeIfAbsent(EpsonZplConnectionPool.key(ip, port), k -> new EpsonZplStatusMonitor(ip, port));
+	}
+
+	/**
+	 * The monitor for this printer if one has been started, otherwise null
+	 * @param ip
+	 * @param port
+	 * @return
+	 */
+	public static EpsonZplStatusMonitor getIfRunning(String ip, int port) {
+		EpsonZplStatusMonitor monitor = MONITORS.get(EpsonZplConnectionPool.key(ip, port));
+		return monitor != null && monitor.isRunning() ? monitor : null;
+	}
+
+
+	/**
+	 * Starts polling, the first poll goes out straight away. Does nothing if it's already running.
+	 * @return this
+	 */
+	public synchronized EpsonZplStatusMonitor start() {
+		if(schedule == null) {
+			schedule = SCHEDULER.scheduleWithFixedDelay(this::pollInBackground, 0, Math.max(100L, pollIntervalMillis), TimeUnit.MILLISECONDS);
+		}
+		return this;
+	}
+
+	public synchronized void stop() {
+		if(schedule != null) {
+			schedule.cancel(false);
+			schedule = null;
+		}
+	}
+
+	public synchronized boolean isRunning() {
+		return schedule != null;
+	}
+
+	/**
+	 * The scheduler only has the one thread for every printer, so the poll itself, which waits on the
+	 * network, runs elsewhere.
+	 */
+	private void pollInBackground() {
+		try {
+			EpsonZplExecutors.getDefaultExecutor().execute(this::pollIfDue);
+		}catch(RejectedExecutionException ex) {
+			//shutting down
+		}
+	}
+
+	private void pollIfDue() {
+
+		if(!polling.compareAndSet(false, true)) {
+			return;	//last one still waiting on the printer
+		}
+
+		try {
+			//a print job just read the status, or is about to
+			if(System.currentTimeMillis() - snapshotAt < pollIntervalMillis || EpsonZplPrintQueue.forPrinter(ip, port).getDepth() > 0) {
+				return;
+			}
+			poll();
+		}catch(Exception ex) {
+			ex.printStackTrace();
+		}finally {
+			polling.set(false);
+		}
+	}
+
+	/**
+	 * Asks the printer now, whatever the age of the last status, and updates the snapshot.
+	 * @return what the printer said, UNKNOWN if it couldn't be reached
+	 */
+	public EpsonZplPrinterResponse poll() {
+		polls++;
+		EpsonZplPrinterResponse response = new EpsonZplPrintJob(ip, port).queryPrinterStatus();
+		update(response);
+		return response.copy();
+	}
+
+	/**
+	 * Records a status just read from the printer, by a poll or at the end of a print job, and lets
+	 * the listeners know if anything they care about changed. A call that couldn't reach the printer
+	 * or got no answer is recorded too, as UNKNOWN, so the last good status isn't handed out after
+	 * the printer has gone away.
+	 * @param response
+	 */
+	void update(EpsonZplPrinterResponse response) {
+
+		if(response == null) {
+			return;
+		}
+
+		EpsonZplPrinterResponse current = response.copy();
+		EpsonZplPrinterResponse previous;
+
+		synchronized(snapshotLock) {
+			previous = snapshot;
+			snapshot = current;
+			snapshotAt = System.currentTimeMillis();
+		}
+
+		if(!listeners.isEmpty() && isChanged(previous, current)) {
+			notifications.add(() -> {
+				for(EpsonZplStatusListener listener: listeners) {
+					try {
+						listener.statusChanged(this, previous == null ? null : previous.copy(), current.copy());
+					}catch(Exception ex) {
+						ex.printStackTrace();
+					}
+				}
+			});
+			deliver();
+		}
+	}
+
+	/**
+	 * Runs the queued notifications one after another on the default executor, never two at once,
+	 * so listeners see changes in the order they happened and a slow one doesn't hold up printing.
+	 */
+	private void deliver() {
+
+		if(!notifying.compareAndSet(false, true)) {
+			return;
+		}
+
+		try {
+			EpsonZplExecutors.getDefaultExecutor().execute(() -> {
+				try {
+					Runnable notification;
+					while((notification = notifications.poll()) != null) {
+						notification.run();
+					}
+				}finally {
+					notifying.set(false);
+				}
+				//one may have been queued after the loop ended but before the flag was cleared
+				if(!notifications.isEmpty()) {
+					deliver();
+				}
+			});
+		}catch(RejectedExecutionException ex) {
+			notifying.set(false);
+		}
+	}
+
+	static boolean isChanged(EpsonZplPrinterResponse previous, EpsonZplPrinterResponse current) {
+		return previous == null || previous.getErrorCode() != current.getErrorCode() ||
+				!Objects.equals(previous.getBlack(), current.getBlack()) ||
+				!Objects.equals(previous.getCyan(), current.getCyan()) ||
+				!Objects.equals(previous.getMagenta(), current.getMagenta()) ||
+				!Objects.equals(previous.getYellow(), current.getYellow()) ||
+				!Objects.equals(previous.getMaintenance(), current.getMaintenance());
+	}
+
+	/**
+	 * The last status seen, or null if there hasn't been one. A copy, so change it all you like.
+	 * @return
+	 */
+	public EpsonZplPrinterResponse getSnapshot() {
+		EpsonZplPrinterResponse current = snapshot;
+		return current == null ? null : current.copy();
+	}
+
+	/**
+	 * The last status seen if it's no older than maxAgeMillis, otherwise null
+	 * @param maxAgeMillis
+	 * @return
+	 */
+	public EpsonZplPrinterResponse getSnapshot(long maxAgeMillis) {
+		synchronized(snapshotLock) {
+			if(snapshot == null || System.currentTimeMillis() - snapshotAt > maxAgeMillis) {
+				return null;
+			}
+			return snapshot.copy();
+		}
+	}
+
+	/**
+	 * When the snapshot was taken, 0 if there isn't one
+	 * @return
+	 */
+	public long getSnapshotAt() {return snapshotAt;}
+
+	public void addListener(EpsonZplStatusListener listener) {listeners.add(listener);}
+	public void removeListener(EpsonZplStatusListener listener) {listeners.remove(listener);}
+
+	public String getIp() {return ip;}
+
+	public int getPort() {return port;}
+
+	public long getPollIntervalMillis() {return pollIntervalMillis;}
+
+	/**
+	 * How often to ask the printer. Takes effect straight away if the monitor is running.
+	 * @param pollIntervalMillis
+	 */
+	public synchronized void setPollIntervalMillis(long pollIntervalMillis) {
+		this.pollIntervalMillis = pollIntervalMillis;
+		if(schedule != null) {
+			stop();
+			start();
+		}
+	}
+
+	public long getMaxAgeMillis() {return maxAgeMillis;}
+
+	/**
+	 * Oldest snapshot {@link EpsonZplPrintJob#getPrinterStatus()} will answer with, older than this
+	 * and it asks the printer itself.
+	 * @param maxAgeMillis
+	 */
+	public void setMaxAgeMillis(long maxAgeMillis) {this.maxAgeMillis = maxAgeMillis;}
+
+	/**
+	 * Polls actually sent to the printer, not counting the ones skipped because a job had just
+	 * read the status
+	 * @return
+	 */
+	public long getPolls() {return polls;}
+
+	@Override
+	public String toString(){
+		EpsonZplPrinterResponse current = snapshot;
+		return "Status monitor " + ip + ":" + port + (isRunning() ? " running" : " stopped") + 
+				(current == null ? "" : ", " + current.getErrorCode() + " " + (System.currentTimeMillis() - snapshotAt) + "ms ago");
+	}
+
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2025 Robert James Drabant II, ThinkREG
+ * https://www.linkedin.com/in/robert-drabant/
+ *
+ * This code was independently developed by ThinkREG for use with Epson printer ColorWorks CW-C4000.
+ * Neither ThinkREG or Epson America, Inc. provide any warranties or support for this code.
+ * “Epson” is the registered trademark of Epson America, Inc. and its affiliates in the
+ * United States and other countries. Epson reserves all rights to its trademarks.
+ * Epson and ThinkREG are independent companies.
+ *
+ * From the author, this was created because I wanted a cleaner way to print to our Epsons we use in
+ * conference and event management. We have mostly 4000s, but this should
+ * work with any Epson that supports ZPLII/ESC. I also want to thank team
+ * members at Epson for their support.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thinkreg.print;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Base64;
+import java.util.zip.Deflater;
+
+
+/**
+ * One bit per dot, uploaded as a ZPL ~DG graphic with Z64 compression (zlib deflate, then base64,
+ * then a CRC-16 of the base64 text) and recalled with ^XG. Only black and white survive, anything
+ * darker than mid grey prints black, so this is for text only badges. 
+ * {@link EpsonZplAutoGraphicEncoder} only picks it for images that are already pure black and white.
+ *
+ * https://files.support.epson.com/pdf/pos/bulk/esclabel_crg_en_07.pdf (~DG, ^XG)
+ */
+public class EpsonZplZ64GraphicEncoder implements EpsonZplGraphicEncoder{
+
+	public static final String NAME = "Z64";
+
+	private final int compressionLevel;
+
+
+	public EpsonZplZ64GraphicEncoder(){
+		this(Deflater.BEST_COMPRESSION);
+	}
+
+	public EpsonZplZ64GraphicEncoder(int compressionLevel){
+		this.compressionLevel = compressionLevel;
+	}
+
+
+	/**
+	 * Z64 plus the compression level
+	 */
+	@Override
+	public String getName() {
+		return NAME + "/" + compressionLevel;
+	}
+
+	@Override
+	public EpsonZplGraphic encode(BufferedImage image, String name) throws IOException {
+
+		int bytesPerRow = (image.getWidth() + 7) / 8;
+		byte[] bits = toBits(image, bytesPerRow);
+
+		byte[] base64 = Base64.getEncoder().encode(deflate(bits));
+
+		EpsonZplCommandBuilder upload = new EpsonZplCommandBuilder(base64.length + 64);
+		upload.append("~DGR:").append(name).append(".GRF,").append(bits.length).append(',').append(bytesPerRow).append(",:Z64:");
+		upload.append(base64);
+		upload.append(':').appendHex(crc16(base64), 4);
+
+		//the printer keeps the graphic inflated, so it takes up the full bitmap on R:
+		return new EpsonZplGraphic("R:" + name + ".GRF", upload.toByteArray(), "^XGR:" + name + ".GRF,1,1", NAME, bits.length);
+	}
+
+	/**
+	 * True when every pixel is opaque pure black, opaque pure white or fully transparent, so nothing
+	 * is lost going down to one bit per dot. Half transparent black is really grey on the badge.
+	 * @param image
+	 * @return
+	 */
+	public static boolean isBlackAndWhite(BufferedImage image) {
+
+		int width = image.getWidth();
+		int[] row = new int[width];
+
+		for(int y = 0; y < image.getHeight(); y++) {
+			image.getRGB(0, y, width, 1, row, 0, width);
+			for(int x = 0; x < width; x++) {
+				int pixel = row[x];
+				int rgb = pixel & 0xFFFFFF;
+				int a = pixel >>> 24;
+				if((a != 0 && a != 0xFF) || (a == 0xFF && rgb != 0 && rgb != 0xFFFFFF)) {
+					return false;
+				}
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Packs the image one bit per dot, most significant bit first, 1 = black. Transparent prints white.
+	 */
+	private byte[] toBits(BufferedImage image, int bytesPerRow) {
+
+		int width = image.getWidth();
+		int height = image.getHeight();
+		byte[] bits = new byte[bytesPerRow * height];
+		int[] row = new int[width];
+
+		for(int y = 0; y < height; y++) {
+			image.getRGB(0, y, width, 1, row, 0, width);
+			int offset = y * bytesPerRow;
+
+			for(int x = 0; x < width; x++) {
+				int pixel = row[x];
+				if((pixel >>> 24) < 0x80) {
+					continue;
+				}
+				//integer luma, 0.299 R + 0.587 G + 0.114 B
+				int luma = (((pixel >> 16) & 0xFF) * 77 + ((pixel >> 8) & 0xFF) * 150 + (pixel & 0xFF) * 29) >> 8;
+				if(luma < 128) {
+					bits[offset + (x >> 3)] |= (byte) (0x80 >>> (x & 7));
+				}
+			}
+		}
+
+		return bits;
+	}
+
+	private byte[] deflate(byte[] data) {
+
+		Deflater deflater = new Deflater(compressionLevel);
+		try {
+			deflater.setInput(data);
+			deflater.finish();
+
+			ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+			byte[] chunk = new byte[16 * 1024];
+			while(!deflater.finished()) {
+				int n = deflater.deflate(chunk);
+				out.write(chunk, 0, n);
+			}
+			return out.toByteArray();
+		}finally {
+			deflater.end();
+		}
+	}
+
+	/**
+	 * CRC-16/XMODEM (CCITT polynomial 0x1021, starting at 0) the printer checks the Z64 data against
+	 */
+	static int crc16(byte[] data) {
+		int crc = 0;
+		for(byte b: data) {
+			crc ^= (b & 0xFF) << 8;
+			for(int i = 0; i < 8; i++) {
+				crc = (crc & 0x8000) != 0 ? (crc << 1) ^ 0x1021 : crc << 1;
+			}
+		}
+		return crc & 0xFFFF;
+	}
+
+	public int getCompressionLevel() {return compressionLevel;}
+
+}
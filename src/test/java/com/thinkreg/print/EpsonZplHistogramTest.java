@@ -0,0 +1,220 @@
+/*
+ * Copyright 2025 Robert James Drabant II, ThinkREG
+ * https://www.linkedin.com/in/robert-drabant/
+ *
+ * This code was independently developed by ThinkREG for use with Epson printer ColorWorks CW-C4000.
+ * Neither ThinkREG or Epson America, Inc. provide any warranties or support for this code.
+ * “Epson” is the registered trademark of Epson America, Inc. and its affiliates in the
+ * United States and other countries. Epson reserves all rights to its trademarks.
+ * Epson and ThinkREG are independent companies.
+ *
+ * From the author, this was created because I wanted a cleaner way to print to our Epsons we use in
+ * conference and event management. We have mostly 4000s, but this should
+ * work with any Epson that supports ZPLII/ESC. I also want to thank team
+ * members at Epson for their support.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.thinkreg.print;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Percentiles are only as exact as the buckets, 32 to each power of two, so anything past the first
+ * 64 values is checked to within 1/32 of the true value.
+ */
+public class EpsonZplHistogramTest{
+
+	private static final double PRECISION = 1.0 / 32;
+
+
+	@Test
+	void emptyHistogramReadsZero() {
+		EpsonZplHistogram.Snapshot snapshot = new EpsonZplHistogram().getSnapshot();
+		assertEquals(0, snapshot.getCount());
+		assertEquals(0, snapshot.getMin());
+		assertEquals(0, snapshot.getMax());
+		assertEquals(0, snapshot.getValueAtPercentile(50));
+		assertEquals(0.0, snapshot.getMean());
+	}
+
+	@Test
+	void smallValuesAreExact() {
+
+		EpsonZplHistogram histogram = new EpsonZplHistogram();
+		for(int i = 1; i <= 50; i++) {
+			histogram.record(i);
+		}
+
+		EpsonZplHistogram.Snapshot snapshot = histogram.getSnapshot();
+		assertEquals(1, snapshot.getValueAtPercentile(0));
+		assertEquals(1, snapshot.getValueAtPercentile(2));
+		assertEquals(25, snapshot.getValueAtPercentile(50));
+		assertEquals(45, snapshot.getValueAtPercentile(90));
+		assertEquals(50, snapshot.getValueAtPercentile(100));
+		assertEquals(25.5, snapshot.getMean());
+	}
+
+	@Test
+	void percentilesOfAUniformSpreadAreWithinABucket() {
+
+		EpsonZplHistogram histogram = new EpsonZplHistogram();
+		for(long i = 1; i <= 100000; i++) {
+			histogram.record(i * 1000);	//1 microsecond to 100 milliseconds
+		}
+
+		EpsonZplHistogram.Snapshot snapshot = histogram.getSnapshot();
+		for(double percentile: new double[] {1, 10, 50, 75, 90, 99, 99.9, 99.99}) {
+			long expected = (long) Math.ceil(percentile * 1000) * 1000;
+			assertWithinBucket(expected, snapshot.getValueAtPercentile(percentile), percentile);
+		}
+		assertEquals(100000L * 1000, snapshot.getValueAtPercentile(100));
+		assertEquals(1000, snapshot.getMin());
+		assertEquals(100000L * 1000, snapshot.getMax());
+	}
+
+	@Test
+	void percentilesOfRandomValuesMatchSorting() {
+
+		Random random = new Random(17);
+		EpsonZplHistogram histogram = new EpsonZplHistogram();
+		long[] values = new long[20000];
+		for(int i = 0; i < values.length; i++) {
+			//long tail, like round trips: mostly a few ms, sometimes seconds
+			values[i] = (long) (Math.exp(random.nextGaussian() * 1.5 + 15));
+			histogram.record(values[i]);
+		}
+		Arrays.sort(values);
+
+		EpsonZplHistogram.Snapshot snapshot = histogram.getSnapshot();
+		for(double percentile: new double[] {50, 90, 99, 99.9}) {
+			long expected = values[(int) Math.ceil(values.length * percentile / 100) - 1];
+			assertWithinBucket(expected, snapshot.getValueAtPercentile(percentile), percentile);
+		}
+	}
+
+	@Test
+	void percentileIsNeverOutsideMinAndMax() {
+
+		//both in the bucket that runs 999,424 to 1,015,807, its top end would be past anything recorded
+		EpsonZplHistogram histogram = new EpsonZplHistogram();
+		histogram.record(1_000_003);
+		histogram.record(1_000_007);
+
+		EpsonZplHistogram.Snapshot snapshot = histogram.getSnapshot();
+		assertEquals(1_000_007, snapshot.getValueAtPercentile(0));
+		assertEquals(1_000_007, snapshot.getValueAtPercentile(100));
+
+		//and a lone value at the bottom of its bucket doesn't come back lower than itself
+		histogram.reset();
+		histogram.record(999_500);
+		assertEquals(999_500, histogram.getSnapshot().getValueAtPercentile(50));
+	}
+
+	@Test
+	void negativeValuesCountAsZero() {
+
+		EpsonZplHistogram histogram = new EpsonZplHistogram();
+		histogram.record(-5);
+		histogram.record(10);
+
+		EpsonZplHistogram.Snapshot snapshot = histogram.getSnapshot();
+		assertEquals(0, snapshot.getMin());
+		assertEquals(0, snapshot.getValueAtPercentile(50));
+		assertEquals(10, snapshot.getTotal());
+	}
+
+	@Test
+	void resetStartsOver() {
+
+		EpsonZplHistogram histogram = new EpsonZplHistogram();
+		histogram.record(500);
+		histogram.reset();
+		histogram.record(7);
+
+		EpsonZplHistogram.Snapshot snapshot = histogram.getSnapshot();
+		assertEquals(1, snapshot.getCount());
+		assertEquals(7, snapshot.getMin());
+		assertEquals(7, snapshot.getMax());
+		assertEquals(7, snapshot.getValueAtPercentile(99));
+	}
+
+	@Test
+	void everyValueLandsInTheBucketThatHoldsIt() {
+
+		List<Long> values = new ArrayList<Long>();
+		for(long v = 0; v < 5000; v++) {
+			values.add(v);
+		}
+		for(int shift = 12; shift < 63; shift++) {
+			values.add(1L << shift);
+			values.add((1L << shift) - 1);
+			values.add((1L << shift) + 1);
+		}
+		values.add(Long.MAX_VALUE);
+
+		for(long value: values) {
+			int bucket = EpsonZplHistogram.bucketFor(value);
+			assertTrue(value <= EpsonZplHistogram.highestValueIn(bucket), value + " is above bucket " + bucket);
+			assertTrue(bucket == 0 || value > EpsonZplHistogram.highestValueIn(bucket - 1), value + " belongs in an earlier bucket than " + bucket);
+		}
+	}
+
+	@Test
+	void recordingFromManyThreadsLosesNothing() throws Exception {
+
+		EpsonZplHistogram histogram = new EpsonZplHistogram();
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<?>> futures = new ArrayList<Future<?>>();
+			for(int t = 0; t < 8; t++) {
+				futures.add(executor.submit(() -> {
+					for(int i = 1; i <= 10000; i++) {
+						histogram.record(i);
+					}
+				}));
+			}
+			for(Future<?> future: futures) {
+				future.get();
+			}
+		}finally {
+			executor.shutdownNow();
+		}
+
+		EpsonZplHistogram.Snapshot snapshot = histogram.getSnapshot();
+		assertEquals(80000, snapshot.getCount());
+		assertEquals(80000, histogram.getCount());
+		assertEquals(8L * 10000 * 10001 / 2, snapshot.getTotal());
+	}
+
+
+	private static void assertWithinBucket(long expected, long actual, double percentile) {
+		assertTrue(Math.abs(actual - expected) <= Math.max(1, expected * PRECISION), 
+				"p" + percentile + " was " + actual + ", expected about " + expected);
+	}
+
+}
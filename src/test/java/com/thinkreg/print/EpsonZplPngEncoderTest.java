@@ -0,0 +1,202 @@
+/*
+ * Copyright 2025 Robert James Drabant II, ThinkREG
+ * https://www.linkedin.com/in/robert-drabant/
+ *
+ * This code was independently developed by ThinkREG for use with Epson printer ColorWorks CW-C4000.
+ * Neither ThinkREG or Epson America, Inc. provide any warranties or support for this code.
+ * “Epson” is the registered trademark of Epson America, Inc. and its affiliates in the
+ * United States and other countries. Epson reserves all rights to its trademarks.
+ * Epson and ThinkREG are independent companies.
+ *
+ * From the author, this was created because I wanted a cleaner way to print to our Epsons we use in
+ * conference and event management. We have mostly 4000s, but this should
+ * work with any Epson that supports ZPLII/ESC. I also want to thank team
+ * members at Epson for their support.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.thinkreg.print;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+import java.util.zip.Adler32;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+
+/**
+ * Whatever the filter, pixel layout or number of deflate bands, ImageIO has to read back exactly the
+ * pixels we encoded.
+ */
+public class EpsonZplPngEncoderTest{
+
+	private static final int[] TYPES = {BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_3BYTE_BGR, 
+			BufferedImage.TYPE_4BYTE_ABGR, BufferedImage.TYPE_BYTE_GRAY, BufferedImage.TYPE_BYTE_INDEXED, BufferedImage.TYPE_USHORT_565_RGB};
+
+	private static ExecutorService executor;
+
+
+	@BeforeAll
+	static void startExecutor() {
+		executor = Executors.newFixedThreadPool(4);
+	}
+
+	@AfterAll
+	static void stopExecutor() {
+		executor.shutdownNow();
+	}
+
+
+	static Stream<Arguments> encodings() {
+		List<Arguments> arguments = new ArrayList<Arguments>();
+		for(EpsonZplPngEncoder.FILTER filter: EpsonZplPngEncoder.FILTER.values()) {
+			for(int type: TYPES) {
+				for(int bands: new int[] {1, 3, 4}) {
+					arguments.add(Arguments.of(filter, type, bands));
+				}
+			}
+		}
+		return arguments.stream();
+	}
+
+	@ParameterizedTest(name = "{0} type {1} bands {2}")
+	@MethodSource("encodings")
+	void decodesToTheSamePixels(EpsonZplPngEncoder.FILTER filter, int type, int bands) throws Exception {
+
+		//tall enough for every band to get its 64 rows, odd sizes so the last band is short
+		BufferedImage image = badge(type, 203, 257);
+
+		EpsonZplPngEncoder encoder = new EpsonZplPngEncoder(6, filter);
+		encoder.setParallelism(bands);
+		encoder.setExecutor(executor);
+
+		assertSamePixels(image, encoder.encode(image));
+
+		//the stream version has to write the same thing
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		encoder.encode(image, out);
+		assertSamePixels(image, out.toByteArray());
+	}
+
+	@Test
+	void prefixGoesInFrontOfThePng() throws Exception {
+
+		BufferedImage image = badge(BufferedImage.TYPE_INT_RGB, 40, 30);
+		int[] length = new int[1];
+		byte[] encoded = new EpsonZplPngEncoder().encode(image, pngLength -> {
+			length[0] = pngLength;
+			return "HEAD".getBytes();
+		});
+
+		assertEquals(4 + length[0], encoded.length);
+		assertEquals("HEAD", new String(encoded, 0, 4));
+		byte[] png = new byte[length[0]];
+		System.arraycopy(encoded, 4, png, 0, png.length);
+		assertSamePixels(image, png);
+	}
+
+	@Test
+	void subImageIsReadThroughItsParent() throws Exception {
+		BufferedImage parent = badge(BufferedImage.TYPE_INT_ARGB, 120, 90);
+		BufferedImage image = parent.getSubimage(13, 7, 61, 70);
+		assertSamePixels(image, new EpsonZplPngEncoder().encode(image));
+	}
+
+	@Test
+	void adlerCombineMatchesOneAdlerOverBoth() {
+
+		Random random = new Random(42);
+		for(int i = 0; i < 50; i++) {
+
+			byte[] data = new byte[random.nextInt(200000) + 1];
+			random.nextBytes(data);
+			int split = random.nextInt(data.length + 1);
+
+			Adler32 first = new Adler32();
+			first.update(data, 0, split);
+			Adler32 second = new Adler32();
+			second.update(data, split, data.length - split);
+			Adler32 whole = new Adler32();
+			whole.update(data);
+
+			assertEquals(whole.getValue(), EpsonZplPngEncoder.adlerCombine(first.getValue(), second.getValue(), data.length - split));
+		}
+	}
+
+
+	private static void assertSamePixels(BufferedImage expected, byte[] png) throws Exception {
+
+		BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(png));
+		assertNotNull(decoded, "ImageIO couldn't read the PNG");
+		assertEquals(expected.getWidth(), decoded.getWidth());
+		assertEquals(expected.getHeight(), decoded.getHeight());
+
+		for(int y = 0; y < expected.getHeight(); y++) {
+			for(int x = 0; x < expected.getWidth(); x++) {
+				if(expected.getType() == BufferedImage.TYPE_BYTE_GRAY) {
+					assertEquals(expected.getRaster().getSample(x, y, 0), decoded.getRaster().getSample(x, y, 0), "gray at " + x + "," + y);
+				}else {
+					assertEquals(expected.getRGB(x, y), decoded.getRGB(x, y), "pixel at " + x + "," + y);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gradients, text and noise, with some see through pixels when the type has alpha
+	 */
+	static BufferedImage badge(int type, int width, int height) {
+
+		BufferedImage image = new BufferedImage(width, height, type);
+		Graphics2D g = image.createGraphics();
+		g.setPaint(new GradientPaint(0, 0, Color.WHITE, width, height, new Color(20, 90, 200)));
+		g.fillRect(0, 0, width, height);
+		g.setColor(Color.BLACK);
+		g.drawString("Hello my name is", 10, 20);
+		g.setColor(new Color(200, 30, 30, 128));
+		g.fillOval(width / 4, height / 4, width / 2, height / 2);
+		g.dispose();
+
+		Random random = new Random(width * 31 + height);
+		for(int i = 0; i < width * height / 20; i++) {
+			int x = random.nextInt(width);
+			int y = random.nextInt(height);
+			image.setRGB(x, y, image.getColorModel().hasAlpha() ? random.nextInt() : random.nextInt() | 0xFF000000);
+		}
+
+		return image;
+	}
+
+}
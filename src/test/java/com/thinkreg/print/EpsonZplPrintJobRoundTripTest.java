@@ -0,0 +1,270 @@
+/*
+ * Copyright 2025 Robert James Drabant II, ThinkREG
+ * https://www.linkedin.com/in/robert-drabant/
+ *
+ * This code was independently developed by ThinkREG for use with Epson printer ColorWorks CW-C4000.
+ * Neither ThinkREG or Epson America, Inc. provide any warranties or support for this code.
+ * “Epson” is the registered trademark of Epson America, Inc. and its affiliates in the
+ * United States and other countries. Epson reserves all rights to its trademarks.
+ * Epson and ThinkREG are independent companies.
+ *
+ * From the author, this was created because I wanted a cleaner way to print to our Epsons we use in
+ * conference and event management. We have mostly 4000s, but this should
+ * work with any Epson that supports ZPLII/ESC. I also want to thank team
+ * members at Epson for their support.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.thinkreg.print;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Print jobs against {@link EpsonZplPrinterSimulator} on a loopback port, all the way through the
+ * queue, the connection pool, the circuit breaker and the status replies.
+ */
+public class EpsonZplPrintJobRoundTripTest{
+
+	private EpsonZplPrinterSimulator printer;
+	private String ip;
+	private int port;
+
+
+	@BeforeEach
+	void startPrinter() throws Exception {
+		printer = new EpsonZplPrinterSimulator(0).start();
+		ip = "127.0.0.1";
+		port = printer.getPort();
+	}
+
+	@AfterEach
+	void stopPrinter() {
+		printer.stop();
+		EpsonZplConnectionPool.forPrinter(ip, port).closeIdle();
+		EpsonZplCircuitBreaker.forPrinter(ip, port).reset();
+	}
+
+
+	@Test
+	void printsAndReadsTheStatusBack() throws Exception {
+
+		printer.setInk("RH", "RM", "RL", "RN");
+
+		EpsonZplPrinterResponse response = job(badge(1), badge(2)).print();
+
+		assertTrue(response.isSuccessfulConnection());
+		assertTrue(response.getSuccess());
+		assertEquals(EpsonZplPrinterResponse.ERROR_CODE.NE, response.getErrorCode());
+		assertEquals("RM", response.getCyan());
+		assertEquals("RN", response.getYellow());
+		assertEquals(2, printer.getLabelsPrinted());
+		assertEquals(0, printer.getMissingRecalls());
+	}
+
+	@Test
+	void printerErrorComesBackOnTheResponse() throws Exception {
+
+		printer.setErrorCode(EpsonZplPrinterResponse.ERROR_CODE.SJ);
+
+		EpsonZplPrinterResponse response = job(badge(1)).print();
+
+		assertEquals(EpsonZplPrinterResponse.ERROR_CODE.SJ, response.getErrorCode());
+		assertFalse(response.getSuccess());
+		//it answered, so the printer isn't down
+		assertEquals(EpsonZplCircuitBreaker.STATE.CLOSED, EpsonZplCircuitBreaker.forPrinter(ip, port).getState());
+	}
+
+	@Test
+	void connectionIsReusedBetweenJobs() throws Exception {
+
+		for(int i = 0; i < 5; i++) {
+			assertTrue(job(badge(i)).print().getSuccess());
+		}
+
+		assertEquals(1, printer.getConnectionsAccepted());
+		assertEquals(5, printer.getLabelsPrinted());
+		assertEquals(1, EpsonZplConnectionPool.forPrinter(ip, port).getIdleCount());
+	}
+
+	@Test
+	void aDroppedConnectionIsReplacedOnTheNextJob() throws Exception {
+
+		assertTrue(job(badge(1)).print().getSuccess());
+		printer.dropConnections();
+
+		//the pooled socket is dead, the job has to notice and open another one
+		EpsonZplPrinterResponse response = job(badge(2)).print();
+		if(!response.getSuccess()) {
+			response = job(badge(2)).print();
+		}
+
+		assertTrue(response.getSuccess());
+		assertEquals(2, printer.getConnectionsAccepted());
+	}
+
+	@Test
+	void jobsFromManyThreadsGoThroughTheQueueOneAtATime() throws Exception {
+
+		printer.setMillisPerLabel(20);
+
+		List<CompletableFuture<EpsonZplPrinterResponse>> jobs = new ArrayList<CompletableFuture<EpsonZplPrinterResponse>>();
+		for(int i = 0; i < 12; i++) {
+			jobs.add(job(badge(i)).printAsync());
+		}
+		for(CompletableFuture<EpsonZplPrinterResponse> job: jobs) {
+			assertTrue(job.get(30, TimeUnit.SECONDS).getSuccess());
+		}
+
+		//one writer, so one connection was enough for all of them
+		assertEquals(1, printer.getConnectionsAccepted());
+		assertEquals(12, printer.getLabelsPrinted());
+		assertTrue(EpsonZplPrintQueue.forPrinter(ip, port).getSubmitted() >= 12);
+	}
+
+	@Test
+	void breakerOpensWhenThePrinterGoesAwayAndClosesWhenItsBack() throws Exception {
+
+		EpsonZplCircuitBreaker breaker = EpsonZplCircuitBreaker.forPrinter(ip, port);
+		breaker.setFailureThreshold(2);
+		breaker.setProbeIntervalMillis(50);
+
+		assertTrue(job(badge(1)).print().getSuccess());
+
+		printer.stop();
+		EpsonZplConnectionPool.forPrinter(ip, port).closeIdle();
+		assertFalse(printOne(badge(2)).isSuccess());
+		assertFalse(printOne(badge(2)).isSuccess());
+		assertEquals(EpsonZplCircuitBreaker.STATE.OPEN, breaker.getState());
+
+		//while it's open jobs fail without trying, and the status monitor hears about it
+		long rejected = breaker.getRejected();
+		EpsonZplLabelResult refused = printOne(badge(3));
+		assertFalse(refused.isSuccess());
+		assertEquals(rejected + 1, breaker.getRejected());
+		assertEquals(EpsonZplPrinterResponse.ERROR_CODE.UNKNOWN, EpsonZplStatusMonitor.forPrinter(ip, port).getSnapshot().getErrorCode());
+
+		//switched back on, the probe notices and lets one trial job through
+		printer = new EpsonZplPrinterSimulator(port).start();
+		waitFor(breaker, EpsonZplCircuitBreaker.STATE.HALF_OPEN);
+
+		assertTrue(job(badge(4)).print().getSuccess());
+		assertEquals(EpsonZplCircuitBreaker.STATE.CLOSED, breaker.getState());
+		assertEquals(1, printer.getLabelsPrinted());
+	}
+
+	@Test
+	void failedTrialOpensTheBreakerAgain() throws Exception {
+
+		EpsonZplCircuitBreaker breaker = EpsonZplCircuitBreaker.forPrinter(ip, port);
+		breaker.setFailureThreshold(1);
+		breaker.setProbeIntervalMillis(50);
+
+		printer.stop();
+		assertFalse(printOne(badge(1)).isSuccess());
+		assertEquals(EpsonZplCircuitBreaker.STATE.OPEN, breaker.getState());
+
+		//takes connections again but never answers
+		printer = new EpsonZplPrinterSimulator(port).start();
+		printer.setSilent(true);
+		waitFor(breaker, EpsonZplCircuitBreaker.STATE.HALF_OPEN);
+
+		EpsonZplPrintJob trial = job(badge(2));
+		trial.setReplyTimeoutMillis(300);
+		assertFalse(trial.printBatch().get(0).isSuccess());
+		assertEquals(EpsonZplCircuitBreaker.STATE.OPEN, breaker.getState());
+		assertEquals(2, breaker.getOpens());
+	}
+
+	@Test
+	void pngSettingsAreKeptApartInTheCacheAndOnThePrinter() throws Exception {
+
+		EpsonZplPayloadCache cache = new EpsonZplPayloadCache(EpsonZplPayloadCache.DEFAULT_MAX_BYTES);
+		BufferedImage image = badge(1);
+
+		EpsonZplPrintJob fast = job(image);
+		fast.setPayloadCache(cache);
+		fast.setPngEncoder(new EpsonZplPngEncoder(1, EpsonZplPngEncoder.FILTER.NONE));
+		assertTrue(fast.print().getSuccess());
+
+		EpsonZplPrintJob small = job(image);
+		small.setPayloadCache(cache);
+		small.setPngEncoder(new EpsonZplPngEncoder(9, EpsonZplPngEncoder.FILTER.ADAPTIVE));
+		assertTrue(small.print().getSuccess());
+
+		assertEquals(2, cache.getSize());
+		assertEquals(2, printer.getUploads());
+
+		//the same settings again is already on the printer
+		EpsonZplPrintJob again = job(image);
+		again.setPayloadCache(cache);
+		again.setPngEncoder(new EpsonZplPngEncoder(9, EpsonZplPngEncoder.FILTER.ADAPTIVE));
+		assertTrue(again.print().getSuccess());
+
+		assertEquals(2, cache.getSize());
+		assertEquals(2, printer.getUploads());
+		assertEquals(3, printer.getLabelsPrinted());
+	}
+
+
+	private EpsonZplPrintJob job(BufferedImage... images) {
+		EpsonZplPrintJob job = new EpsonZplPrintJob(ip, port);
+		job.setImages(new ArrayList<BufferedImage>(Arrays.asList(images)));
+		return job;
+	}
+
+	private EpsonZplLabelResult printOne(BufferedImage image) throws Exception {
+		List<EpsonZplLabelResult> results = job(image).printBatch();
+		assertEquals(1, results.size());
+		return results.get(0);
+	}
+
+	private static void waitFor(EpsonZplCircuitBreaker breaker, EpsonZplCircuitBreaker.STATE state) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while(breaker.getState() != state && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(state, breaker.getState());
+	}
+
+	private static BufferedImage badge(int n) {
+		BufferedImage image = new BufferedImage(400, 250, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = image.createGraphics();
+		g.setColor(Color.WHITE);
+		g.fillRect(0, 0, 400, 250);
+		g.setColor(new Color(30, 80, 160));
+		g.fillRect(0, 0, 400, 40);
+		g.setColor(Color.BLACK);
+		g.drawString("Attendee " + n, 30, 120);
+		g.dispose();
+		return image;
+	}
+
+}
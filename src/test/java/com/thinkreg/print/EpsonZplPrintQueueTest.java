@@ -0,0 +1,268 @@
+/*
+ * Copyright 2025 Robert James Drabant II, ThinkREG
+ * https://www.linkedin.com/in/robert-drabant/
+ *
+ * This code was independently developed by ThinkREG for use with Epson printer ColorWorks CW-C4000.
+ * Neither ThinkREG or Epson America, Inc. provide any warranties or support for this code.
+ * “Epson” is the registered trademark of Epson America, Inc. and its affiliates in the
+ * United States and other countries. Epson reserves all rights to its trademarks.
+ * Epson and ThinkREG are independent companies.
+ *
+ * From the author, this was created because I wanted a cleaner way to print to our Epsons we use in
+ * conference and event management. We have mostly 4000s, but this should
+ * work with any Epson that supports ZPLII/ESC. I also want to thank team
+ * members at Epson for their support.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.thinkreg.print;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Queues are kept per printer for the life of the JVM, so each test gets a printer of its own. Nothing
+ * here talks to a printer, the tasks are plain callables.
+ */
+public class EpsonZplPrintQueueTest{
+
+	private static final AtomicInteger PORTS = new AtomicInteger(40000);
+
+	private EpsonZplPrintQueue queue;
+	//released at the end of each test so a writer left waiting on it doesn't hang around
+	private final CountDownLatch release = new CountDownLatch(1);
+
+
+	@BeforeEach
+	void newQueue() {
+		queue = EpsonZplPrintQueue.forPrinter("192.0.2.1", PORTS.incrementAndGet());
+	}
+
+	@AfterEach
+	void releaseWriter() {
+		release.countDown();
+	}
+
+
+	@Test
+	void oneTaskAtATimeInTheOrderSubmitted() throws Exception {
+
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger mostAtOnce = new AtomicInteger();
+		List<Integer> order = Collections.synchronizedList(new ArrayList<Integer>());
+
+		List<CompletableFuture<Integer>> futures = new ArrayList<CompletableFuture<Integer>>();
+		for(int i = 0; i < 50; i++) {
+			final int n = i;
+			futures.add(queue.submit(() -> {
+				mostAtOnce.accumulateAndGet(running.incrementAndGet(), Math::max);
+				Thread.sleep(1);
+				order.add(n);
+				running.decrementAndGet();
+				return n;
+			}));
+		}
+
+		for(int i = 0; i < futures.size(); i++) {
+			assertEquals(i, futures.get(i).get(5, TimeUnit.SECONDS));
+		}
+		assertEquals(1, mostAtOnce.get());
+		for(int i = 0; i < order.size(); i++) {
+			assertEquals(i, order.get(i));
+		}
+		//completed is counted just after each future completes, so it can still be catching up here
+		assertEquals(50, queue.getSubmitted());
+	}
+
+	@Test
+	void rejectFailsStraightAwayWhenFull() throws Exception {
+
+		queue.setCapacity(1);
+		queue.setOverflowPolicy(EpsonZplPrintQueue.OVERFLOW_POLICY.REJECT);
+
+		CountDownLatch started = blockWriter();
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+
+		CompletableFuture<String> waiting = queue.submit(() -> "waiting");
+		CompletableFuture<String> rejected = queue.submit(() -> "rejected");
+
+		assertTrue(rejected.isCompletedExceptionally());
+		ExecutionException ex = assertThrows(ExecutionException.class, rejected::get);
+		assertInstanceOf(RejectedExecutionException.class, ex.getCause());
+		assertEquals(1, queue.getRejected());
+
+		release.countDown();
+		assertEquals("waiting", waiting.get(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void timeoutGivesUpAfterTheOfferTimeout() throws Exception {
+
+		queue.setCapacity(1);
+		queue.setOverflowPolicy(EpsonZplPrintQueue.OVERFLOW_POLICY.TIMEOUT);
+		queue.setOfferTimeoutMillis(150);
+
+		assertTrue(blockWriter().await(5, TimeUnit.SECONDS));
+		queue.submit(() -> "waiting");
+
+		long start = System.nanoTime();
+		CompletableFuture<String> rejected = queue.submit(() -> "rejected");
+		long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		assertTrue(rejected.isCompletedExceptionally());
+		assertTrue(waited >= 100, "only waited " + waited + "ms");
+		assertEquals(1, queue.getRejected());
+	}
+
+	@Test
+	void timeoutGetsInIfRoomTurnsUp() throws Exception {
+
+		queue.setCapacity(1);
+		queue.setOverflowPolicy(EpsonZplPrintQueue.OVERFLOW_POLICY.TIMEOUT);
+		queue.setOfferTimeoutMillis(5000);
+
+		assertTrue(blockWriter().await(5, TimeUnit.SECONDS));
+		queue.submit(() -> "waiting");
+
+		CompletableFuture<CompletableFuture<String>> submitting = CompletableFuture.supplyAsync(() -> queue.submit(() -> "next"));
+		Thread.sleep(100);
+		assertFalse(submitting.isDone(), "submit should be waiting for room");
+
+		release.countDown();
+		assertEquals("next", submitting.get(5, TimeUnit.SECONDS).get(5, TimeUnit.SECONDS));
+		assertEquals(0, queue.getRejected());
+	}
+
+	@Test
+	void blockWaitsAsLongAsItTakes() throws Exception {
+
+		queue.setCapacity(1);
+		queue.setOverflowPolicy(EpsonZplPrintQueue.OVERFLOW_POLICY.BLOCK);
+		queue.setOfferTimeoutMillis(10);	//not used by BLOCK
+
+		assertTrue(blockWriter().await(5, TimeUnit.SECONDS));
+		queue.submit(() -> "waiting");
+
+		CompletableFuture<CompletableFuture<String>> submitting = CompletableFuture.supplyAsync(() -> queue.submit(() -> "next"));
+		Thread.sleep(200);
+		assertFalse(submitting.isDone(), "submit should still be blocked");
+		assertEquals(1, queue.getDepth());
+
+		release.countDown();
+		assertEquals("next", submitting.get(5, TimeUnit.SECONDS).get(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void raisingTheCapacityLetsBlockedSubmitsIn() throws Exception {
+
+		queue.setCapacity(1);
+		assertTrue(blockWriter().await(5, TimeUnit.SECONDS));
+		queue.submit(() -> "waiting");
+
+		CompletableFuture<CompletableFuture<String>> submitting = CompletableFuture.supplyAsync(() -> queue.submit(() -> "next"));
+		Thread.sleep(100);
+		assertFalse(submitting.isDone());
+
+		queue.setCapacity(2);
+		CompletableFuture<String> next = submitting.get(5, TimeUnit.SECONDS);
+		assertEquals(2, queue.getDepth());
+		assertFalse(next.isDone());
+
+		release.countDown();
+		assertEquals("next", next.get(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void runFromInsideATaskDoesntWaitForItself() throws Exception {
+
+		queue.setCapacity(1);
+
+		String result = queue.run(() -> "outer " + queue.run(() -> "inner " + queue.run(() -> "innermost")));
+
+		assertEquals("outer inner innermost", result);
+	}
+
+	@Test
+	void runThrowsWhatTheTaskThrew() {
+
+		IllegalStateException thrown = assertThrows(IllegalStateException.class, () -> queue.run(() -> {
+			throw new IllegalStateException("jammed");
+		}));
+		assertEquals("jammed", thrown.getMessage());
+
+		//and the writer carries on with the next one
+		assertEquals("ok", assertDoesNotThrow(() -> queue.run(() -> "ok")));
+	}
+
+	@Test
+	void executorThatWontRunTheWriterFailsTheQueuedTasks() {
+
+		queue.setExecutor(task -> {
+			throw new RejectedExecutionException("shut down");
+		});
+
+		CompletableFuture<String> future = queue.submit(() -> "never");
+
+		ExecutionException ex = assertThrows(ExecutionException.class, future::get);
+		assertInstanceOf(RejectedExecutionException.class, ex.getCause());
+		assertEquals(0, queue.getDepth());
+	}
+
+	@Test
+	void aSubmitRightAsTheWriterFinishesStillRuns() throws Exception {
+
+		//a writer that's just found the queue empty must not swallow the next submit, or leave the
+		//next writer thinking the queue is already being drained
+		for(int i = 0; i < 2000; i++) {
+			final int n = i;
+			CompletableFuture<Integer> chained = queue.submit(() -> n).thenCompose(v -> queue.submit(() -> v + 1));
+			assertEquals(n + 1, chained.get(5, TimeUnit.SECONDS));
+		}
+	}
+
+
+	/**
+	 * Submits a task that holds the writer until the test is done with it
+	 * @return counted down once the writer is running it
+	 */
+	private CountDownLatch blockWriter() {
+		CountDownLatch started = new CountDownLatch(1);
+		queue.submit(() -> {
+			started.countDown();
+			return release.await(30, TimeUnit.SECONDS);
+		});
+		return started;
+	}
+
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2025 Robert James Drabant II, ThinkREG
+ * https://www.linkedin.com/in/robert-drabant/
+ *
+ * This code was independently developed by ThinkREG for use with Epson printer ColorWorks CW-C4000.
+ * Neither ThinkREG or Epson America, Inc. provide any warranties or support for this code.
+ * “Epson” is the registered trademark of Epson America, Inc. and its affiliates in the
+ * United States and other countries. Epson reserves all rights to its trademarks.
+ * Epson and ThinkREG are independent companies.
+ *
+ * From the author, this was created because I wanted a cleaner way to print to our Epsons we use in
+ * conference and event management. We have mostly 4000s, but this should
+ * work with any Epson that supports ZPLII/ESC. I also want to thank team
+ * members at Epson for their support.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thinkreg.print;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * {@link EpsonZplPrintJob#updatePrinterSettings()} against {@link EpsonZplPrinterSimulator}: what's
+ * already on the printer isn't sent again, and ^JUS is only sent when something changed.
+ */
+public class EpsonZplPrinterSettingsTest{
+
+	private EpsonZplPrinterSimulator printer;
+	private String ip;
+	private int port;
+
+
+	@BeforeEach
+	void startPrinter() throws Exception {
+		printer = new EpsonZplPrinterSimulator(0).start();
+		ip = "127.0.0.1";
+		port = printer.getPort();
+	}
+
+	@AfterEach
+	void stopPrinter() {
+		printer.stop();
+		EpsonZplConnectionPool.forPrinter(ip, port).closeIdle();
+		EpsonZplCircuitBreaker.forPrinter(ip, port).reset();
+	}
+
+
+	@Test
+	void sameSettingsAgainAreNotSentOrSaved() throws Exception {
+
+		assertTrue(job(25f).updatePrinterSettings().getSuccess());
+		assertEquals(1, printer.getSaves());
+		assertEquals("25.0", printer.getSettings().get("CLE,T"));
+		int received = printer.getSettingsReceived().size();
+		assertTrue(received > 0);
+
+		assertTrue(job(25f).updatePrinterSettings().getSuccess());
+		assertEquals(1, printer.getSaves());
+		assertEquals(received, printer.getSettingsReceived().size());
+	}
+
+	@Test
+	void onlyTheChangedSettingIsSent() throws Exception {
+
+		job(25f).updatePrinterSettings();
+		int received = printer.getSettingsReceived().size();
+
+		assertTrue(job(30f).updatePrinterSettings().getSuccess());
+		assertEquals(2, printer.getSaves());
+		assertEquals(Arrays.asList("CLE,T,30.0"), sentSince(received));
+		assertEquals("30.0", printer.getSettings().get("CLE,T"));
+	}
+
+	@Test
+	void forceSendsAndSavesEverything() throws Exception {
+
+		job(25f).updatePrinterSettings();
+		int received = printer.getSettingsReceived().size();
+
+		assertTrue(job(25f).updatePrinterSettings(true).getSuccess());
+		assertEquals(2, printer.getSaves());
+		assertEquals(received, sentSince(received).size());
+
+		job(25f).updatePrinterSettings(true);
+		assertEquals(3, printer.getSaves());
+	}
+
+	@Test
+	void numbersCompareByValue() throws Exception {
+
+		//set at the panel, the printer answers without the decimal
+		printer.setSetting("CLE,T", "25");
+		printer.setSetting("CLE,M", "3");
+		printer.setSetting("CPC,Q", "Q");
+
+		EpsonZplPrintJob job = job(25f);
+		job.setFeedAndCutMode(null);	//can't be read back, so it would always go the first time
+		assertTrue(job.updatePrinterSettings().getSuccess());
+
+		assertEquals(0, printer.getSaves());
+		assertEquals(0, printer.getSettingsReceived().size());
+	}
+
+	@Test
+	void cutModeIsRememberedSinceThePrinterCantBeAsked() throws Exception {
+
+		job(25f).updatePrinterSettings();
+		int received = printer.getSettingsReceived().size();
+
+		EpsonZplPrintJob noCutting = job(25f);
+		noCutting.setFeedAndCutMode(EpsonZplPrintJob.FEED_AND_CUT_MODE.NO_CUTTING);
+		assertTrue(noCutting.updatePrinterSettings().getSuccess());
+		assertEquals(2, printer.getSaves());
+		assertEquals(0, sentSince(received).size());
+
+		noCutting.updatePrinterSettings();
+		assertEquals(2, printer.getSaves());
+	}
+
+
+	private EpsonZplPrintJob job(float leadingEdge) {
+		EpsonZplPrintJob job = new EpsonZplPrintJob(ip, port);
+		job.setLeadingEdgeAdjustment(leadingEdge);
+		job.setLeftEdgeAdj(3f);
+		job.setPrintQuality(EpsonZplPrintJob.PRINT_QUALITY.QUALITY);
+		job.setFeedAndCutMode(EpsonZplPrintJob.FEED_AND_CUT_MODE.AUTOCUT);
+		return job;
+	}
+
+	private List<String> sentSince(int received) {
+		List<String> all = printer.getSettingsReceived();
+		return all.subList(received, all.size());
+	}
+
+}
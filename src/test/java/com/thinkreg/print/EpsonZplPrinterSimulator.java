@@ -0,0 +1,718 @@
+/*
+ * Copyright 2025 Robert James Drabant II, ThinkREG
+ * https://www.linkedin.com/in/robert-drabant/
+ *
+ * This code was independently developed by ThinkREG for use with Epson printer ColorWorks CW-C4000.
+ * Neither ThinkREG or Epson America, Inc. provide any warranties or support for this code.
+ * “Epson” is the registered trademark of Epson America, Inc. and its affiliates in the
+ * United States and other countries. Epson reserves all rights to its trademarks.
+ * Epson and ThinkREG are independent companies.
+ *
+ * From the author, this was created because I wanted a cleaner way to print to our Epsons we use in
+ * conference and event management. We have mostly 4000s, but this should
+ * work with any Epson that supports ZPLII/ESC. I also want to thank team
+ * members at Epson for their support.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.thinkreg.print;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * A stand-in for a CW-C4000 on its raw port, so the library can be load tested without a printer.
+ * It reads the same stream a printer would: ^XA...^XZ formats, ~DY and ~DG uploads (binary PNGs
+ * are skipped by their length), ^IM/^XG recalls, ^ID deletes, ^S( settings and ~H( queries, which
+ * it answers in the printer's &lt;STX&gt;...&lt;ETX&gt;&lt;CR&gt;&lt;LF&gt; format. A format that
+ * recalls a graphic counts as a printed label.
+ *
+ * To make it behave like a printer on a busy floor it can wait before answering, take a set time
+ * per label, report error codes (always, or at random), drop connections part way through a job,
+ * or go silent and never answer at all.
+ *
+ * It only listens on the loopback address unless given another. Start one inside a test:
+ * <pre>
+ * EpsonZplPrinterSimulator printer = new EpsonZplPrinterSimulator(0).start();
+ * EpsonZplPrintJob pj = new EpsonZplPrintJob("127.0.0.1", printer.getPort());
+ * </pre>
+ */
+public class EpsonZplPrinterSimulator{
+
+	private static final int STX = 0x02;
+	private static final int ETX = 0x03;
+
+	private final int port;
+	private final InetAddress bindAddress;
+	private volatile ServerSocket serverSocket;
+	private Thread acceptor;
+	private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+	private final AtomicInteger connectionNumber = new AtomicInteger();
+
+	//what's on the "R:" drive, name -> bytes
+	private final Map<String, Long> stored = new ConcurrentHashMap<String, Long>();
+	//^S( settings, "CLE,T" -> "25.0", answered back to ~H(CLE,T
+	private final Map<String, String> settings = new ConcurrentHashMap<String, String>();
+	//every ^S( as it came in, "CLE,T,25.0"
+	private final List<String> settingsReceived = new CopyOnWriteArrayList<String>();
+
+	private volatile long replyDelayMillis = 0L;
+	private volatile long millisPerLabel = 0L;
+	private volatile EpsonZplPrinterResponse.ERROR_CODE errorCode = EpsonZplPrinterResponse.ERROR_CODE.NE;
+	private volatile double errorRate = 0.0;
+	private volatile List<EpsonZplPrinterResponse.ERROR_CODE> randomErrors = Collections.singletonList(EpsonZplPrinterResponse.ERROR_CODE.SJ);
+	private volatile double dropRate = 0.0;
+	private volatile boolean silent = false;
+
+	private volatile String black = "RH";
+	private volatile String cyan = "RH";
+	private volatile String magenta = "RH";
+	private volatile String yellow = "RH";
+	private volatile String maintenance = "RH";
+	private volatile String firmware = "SIM1.00";
+	private volatile String serialNumber = "SIM0000001";
+
+	private final AtomicLong connectionsAccepted = new AtomicLong();
+	private final AtomicLong connectionsDropped = new AtomicLong();
+	private final AtomicLong bytesReceived = new AtomicLong();
+	private final AtomicLong labelsPrinted = new AtomicLong();
+	private final AtomicLong uploads = new AtomicLong();
+	private final AtomicLong deletes = new AtomicLong();
+	private final AtomicLong missingRecalls = new AtomicLong();
+	private final AtomicLong queriesAnswered = new AtomicLong();
+	private final AtomicLong calibrations = new AtomicLong();
+	private final AtomicLong saves = new AtomicLong();
+
+
+	/**
+	 * Listens on the loopback address only
+	 * @param port to listen on, 0 for any free one, see {@link #getPort()}
+	 */
+	public EpsonZplPrinterSimulator(int port){
+		this(port, InetAddress.getLoopbackAddress());
+	}
+
+	/**
+	 * @param port to listen on, 0 for any free one, see {@link #getPort()}
+	 * @param bindAddress the interface to listen on
+	 */
+	public EpsonZplPrinterSimulator(int port, InetAddress bindAddress){
+		this.port = port;
+		this.bindAddress = bindAddress;
+		settings.put("CPC,C", "0");
+	}
+
+
+	/**
+	 * Starts listening, returns straight away
+	 * @return this
+	 * @throws IOException if the port can't be bound
+	 */
+	public synchronized EpsonZplPrinterSimulator start() throws IOException {
+
+		if(serverSocket != null) {
+			return this;
+		}
+
+		ServerSocket server = new ServerSocket(port, 50, bindAddress);
+		serverSocket = server;
+
+		acceptor = new Thread(() -> accept(server), "EpsonZplPrinterSimulator-" + server.getLocalPort());
+		acceptor.setDaemon(true);
+		acceptor.start();
+
+		return this;
+	}
+
+	/**
+	 * Stops listening and closes every open connection, the way a printer being switched off would
+	 */
+	public synchronized void stop() {
+
+		if(serverSocket != null) {
+			try {
+				serverSocket.close();
+			}catch(IOException ex) {
+				//going away anyway
+			}
+			serverSocket = null;
+		}
+
+		//the port keeps taking connections until the accept the close interrupted returns
+		if(acceptor != null) {
+			try {
+				acceptor.join(5000);
+			}catch(InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			acceptor = null;
+		}
+
+		dropConnections();
+	}
+
+	/**
+	 * Clears the R: drive and closes every connection, the way a printer that was switched off and on
+	 * again between jobs comes back. Settings saved with ^JUS are kept.
+	 */
+	public void restart() {
+		stored.clear();
+		dropConnections();
+	}
+
+	/**
+	 * Closes every open connection without a word, clients see a reset or EOF on their next read
+	 */
+	public void dropConnections() {
+		for(Socket socket: connections) {
+			close(socket);
+		}
+	}
+
+	private void accept(ServerSocket server) {
+
+		while(!server.isClosed()) {
+			try {
+				Socket socket = server.accept();
+				if(server.isClosed()) {
+					socket.close();	//got in while stopping, a printer that's off wouldn't have answered
+					return;
+				}
+				connectionsAccepted.incrementAndGet();
+				connections.add(socket);
+
+				Thread handler = new Thread(() -> handle(socket), "EpsonZplPrinterSimulator-connection-" + connectionNumber.incrementAndGet());
+				handler.setDaemon(true);
+				handler.start();
+			}catch(SocketException closed) {
+				return;	//stopped
+			}catch(IOException ex) {
+				//that client is gone, keep taking the next ones
+			}
+		}
+	}
+
+	private void handle(Socket socket) {
+
+		try {
+			PushbackInputStream in = new PushbackInputStream(new CountingInputStream(new BufferedInputStream(socket.getInputStream())), 1);
+			OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+			boolean workSinceReply = false;
+			boolean recalled = false;
+
+			int b;
+			while((b = in.read()) >= 0) {
+
+				if(b != '^' && b != '~') {
+					continue;	//line breaks and whatever else sits between commands
+				}
+
+				String command = "" + (char) b + (char) in.read() + (char) in.read();
+
+				switch(command) {
+				case "^XA":
+					recalled = false;
+					break;
+
+				case "^XZ":
+					if(recalled) {
+						labelsPrinted.incrementAndGet();
+						pause(millisPerLabel);
+					}
+					recalled = false;
+					break;
+
+				case "~DY":
+					upload(in, readFields(in, 5), true);
+					workSinceReply = true;
+					break;
+
+				case "~DG":
+					upload(in, readFields(in, 3), false);
+					workSinceReply = true;
+					break;
+
+				case "^IM":
+				case "^XG":
+					String recall = nameOf(readParameter(in));
+					if(!stored.containsKey(recall)) {
+						missingRecalls.incrementAndGet();	//a real printer prints a blank label
+					}
+					recalled = true;
+					workSinceReply = true;
+					break;
+
+				case "^ID":
+					delete(nameOf(readParameter(in)));
+					break;
+
+				case "^S(":
+					String setting = readParameter(in);
+					settingsReceived.add(setting);
+					int comma = setting.indexOf(',', setting.indexOf(',') + 1);
+					if(comma > 0) {
+						settings.put(setting.substring(0, comma), setting.substring(comma + 1).trim());
+					}
+					break;
+
+				case "^JU":
+					readParameter(in);
+					saves.incrementAndGet();
+					break;
+
+				case "~JC":
+					calibrations.incrementAndGet();
+					pause(millisPerLabel);
+					workSinceReply = true;
+					break;
+
+				case "~HS":
+					if(silent) {
+						break;
+					}
+					//the last field of the second frame is the number of graphics stored
+					for(String frame: new String[]{"030,0,0,0600,000,0,0,0,000,0,0,0", "001,0,0,0,0,2,6,0,00000000,1," + String.format("%03d", stored.size()), "1234,0"}) {
+						out.write(STX);
+						out.write(frame.getBytes(StandardCharsets.ISO_8859_1));
+						out.write(ETX);
+						out.write('\r');
+						out.write('\n');
+					}
+					out.flush();
+					queriesAnswered.incrementAndGet();
+					break;
+
+				case "~H(":
+					String query = readParameter(in);
+
+					if(workSinceReply && dropRate > 0 && ThreadLocalRandom.current().nextDouble() < dropRate) {
+						connectionsDropped.incrementAndGet();
+						return;	//the job is in, the reply never comes
+					}
+					if(silent) {
+						break;
+					}
+					if(workSinceReply) {
+						pause(replyDelayMillis);
+						workSinceReply = false;
+					}
+
+					out.write(STX);
+					out.write(reply(query).getBytes(StandardCharsets.ISO_8859_1));
+					out.write(ETX);
+					out.write('\r');
+					out.write('\n');
+					out.flush();
+					queriesAnswered.incrementAndGet();
+					break;
+
+				default:
+					//a command we don't act on, its parameters are skipped as the loop looks for the next one
+					break;
+				}
+			}
+		}catch(IOException ex) {
+			//client went away or we were told to drop it
+		}finally {
+			close(socket);
+		}
+	}
+
+	/**
+	 * What the printer says to a ~H( query, without the framing
+	 * @param query what followed ~H(, SEA,E for example
+	 * @return
+	 */
+	private String reply(String query) {
+
+		switch(query) {
+		case "SEA,E":
+			EpsonZplPrinterResponse.ERROR_CODE code = errorCode;
+			if(errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+				List<EpsonZplPrinterResponse.ERROR_CODE> errors = randomErrors;
+				code = errors.get(ThreadLocalRandom.current().nextInt(errors.size()));
+			}
+			return "^S(SEA,E," + code.getCode();
+		case "QIQ":
+			return "IQ," + black + "," + cyan + "," + magenta + "," + yellow;
+		case "QMN":
+			return "MN," + maintenance;
+		case "IMF,V":
+			return "^S(IMF,V," + firmware;
+		case "IMP,S":
+			return "^S(IMP,S," + serialNumber;
+		default:
+			//anything set with ^S( is read back the same way, CLE,T for example
+			return "^S(" + query + "," + settings.getOrDefault(query, "0");
+		}
+	}
+
+	private void upload(PushbackInputStream in, List<String> fields, boolean binary) throws IOException {
+
+		String name = fields.get(0);
+		long size;
+
+		if(binary) {
+			//~DYR:name,B,P,length,0, then exactly length bytes of file
+			long length = Long.parseLong(fields.get(3).trim());
+			skipFully(in, length);
+			size = length;
+			if("P".equals(fields.get(2).trim())) {
+				name = name + ".PNG";
+			}
+		}else {
+			//~DGR:name.GRF,total,bytes per row, then text data up to the next command or line break
+			readParameter(in);
+			size = Long.parseLong(fields.get(1).trim());
+		}
+
+		stored.put(nameOf(name), size);
+		uploads.incrementAndGet();
+	}
+
+	private void delete(String pattern) {
+
+		//R:RG*.* or R:RG1A2B3C.PNG
+		String regex = pattern.replace(".", "\\.").replace("*", ".*");
+		stored.keySet().removeIf(name -> {
+			if(name.matches(regex)) {
+				deletes.incrementAndGet();
+				return true;
+			}
+			return false;
+		});
+	}
+
+	/**
+	 * R:NAME.PNG from R:NAME.PNG,1,1 or NAME.PNG
+	 * @param parameter
+	 * @return
+	 */
+	private static String nameOf(String parameter) {
+		String name = parameter.trim();
+		int comma = name.indexOf(',');
+		if(comma >= 0) {
+			name = name.substring(0, comma);
+		}
+		return name.startsWith("R:") ? name : "R:" + name;
+	}
+
+	/**
+	 * Reads a command's comma separated fields, up to and including the last comma
+	 * @param in
+	 * @param count
+	 * @return
+	 * @throws IOException
+	 */
+	private static List<String> readFields(InputStream in, int count) throws IOException {
+
+		List<String> fields = new ArrayList<String>();
+		StringBuilder field = new StringBuilder();
+
+		while(fields.size() < count) {
+			int b = in.read();
+			if(b < 0) {
+				throw new IOException("Connection closed inside a command");
+			}
+			if(b == ',') {
+				fields.add(field.toString());
+				field.setLength(0);
+			}else {
+				field.append((char) b);
+			}
+		}
+
+		return fields;
+	}
+
+	/**
+	 * Reads up to the next command or line break, leaving the next command to be read
+	 * @param in
+	 * @return
+	 * @throws IOException
+	 */
+	private static String readParameter(PushbackInputStream in) throws IOException {
+
+		ByteArrayOutputStream parameter = new ByteArrayOutputStream();
+
+		int b;
+		while((b = in.read()) >= 0) {
+			if(b == '^' || b == '~') {
+				in.unread(b);
+				break;
+			}
+			if(b == '\r' || b == '\n') {
+				break;
+			}
+			parameter.write(b);
+		}
+
+		return new String(parameter.toByteArray(), StandardCharsets.ISO_8859_1);
+	}
+
+	private static void skipFully(InputStream in, long length) throws IOException {
+		long remaining = length;
+		while(remaining > 0) {
+			long skipped = in.skip(remaining);
+			if(skipped <= 0) {
+				if(in.read() < 0) {
+					throw new IOException("Connection closed inside an upload");
+				}
+				skipped = 1;
+			}
+			remaining -= skipped;
+		}
+	}
+
+	private static void pause(long millis) throws IOException {
+		if(millis > 0) {
+			try {
+				Thread.sleep(millis);
+			}catch(InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted", ex);
+			}
+		}
+	}
+
+	private void close(Socket socket) {
+		connections.remove(socket);
+		try {
+			socket.close();
+		}catch(IOException ex) {
+			//nothing we can do, it's going away anyway
+		}
+	}
+
+	/**
+	 * Forgets everything stored and every setting, like a factory reset. Counters are kept.
+	 */
+	public void clear() {
+		stored.clear();
+		settings.clear();
+		settings.put("CPC,C", "0");
+	}
+
+	/**
+	 * The port it's listening on, the one picked if it was created with 0
+	 * @return
+	 */
+	public int getPort() {
+		ServerSocket server = serverSocket;
+		return server == null ? port : server.getLocalPort();
+	}
+
+	public long getReplyDelayMillis() {return replyDelayMillis;}
+
+	/**
+	 * How long it thinks before answering the first query after a job, the printer working through it
+	 * @param replyDelayMillis
+	 */
+	public void setReplyDelayMillis(long replyDelayMillis) {this.replyDelayMillis = replyDelayMillis;}
+
+	public long getMillisPerLabel() {return millisPerLabel;}
+
+	/**
+	 * Print speed, how long each label holds up the rest of the stream
+	 * @param millisPerLabel
+	 */
+	public void setMillisPerLabel(long millisPerLabel) {this.millisPerLabel = millisPerLabel;}
+
+	public EpsonZplPrinterResponse.ERROR_CODE getErrorCode() {return errorCode;}
+
+	/**
+	 * What ~H(SEA,E reports until it's changed, NE to clear it
+	 * @param errorCode
+	 */
+	public void setErrorCode(EpsonZplPrinterResponse.ERROR_CODE errorCode) {
+		this.errorCode = errorCode == null ? EpsonZplPrinterResponse.ERROR_CODE.NE : errorCode;
+	}
+
+	public double getErrorRate() {return errorRate;}
+	public void setErrorRate(double errorRate) {this.errorRate = errorRate;}
+
+	/**
+	 * Reports one of these, picked at random, on this fraction of status checks. SJ if none given.
+	 * @param errorRate 0.0 to 1.0
+	 * @param errors
+	 */
+	public void setErrorRate(double errorRate, EpsonZplPrinterResponse.ERROR_CODE... errors) {
+		if(errors != null && errors.length > 0) {
+			this.randomErrors = Collections.unmodifiableList(new ArrayList<EpsonZplPrinterResponse.ERROR_CODE>(Arrays.asList(errors)));
+		}
+		this.errorRate = errorRate;
+	}
+
+	public double getDropRate() {return dropRate;}
+
+	/**
+	 * Fraction of jobs where the connection is closed once the job is in, before anything is answered
+	 * @param dropRate 0.0 to 1.0
+	 */
+	public void setDropRate(double dropRate) {this.dropRate = dropRate;}
+
+	public boolean isSilent() {return silent;}
+
+	/**
+	 * Takes jobs but never answers a query, for testing timeouts
+	 * @param silent
+	 */
+	public void setSilent(boolean silent) {this.silent = silent;}
+
+	/**
+	 * Ink levels reported by ~H(QIQ, RH RM RL RN RR NA or CI
+	 * @param black
+	 * @param cyan
+	 * @param magenta
+	 * @param yellow
+	 */
+	public void setInk(String black, String cyan, String magenta, String yellow) {
+		this.black = black;
+		this.cyan = cyan;
+		this.magenta = magenta;
+		this.yellow = yellow;
+	}
+
+	public String getMaintenance() {return maintenance;}
+	public void setMaintenance(String maintenance) {this.maintenance = maintenance;}
+
+	public String getFirmware() {return firmware;}
+	public void setFirmware(String firmware) {this.firmware = firmware;}
+
+	public String getSerialNumber() {return serialNumber;}
+	public void setSerialNumber(String serialNumber) {this.serialNumber = serialNumber;}
+
+	/**
+	 * What's stored on R:, name to bytes
+	 * @return
+	 */
+	public Map<String, Long> getStored() {return Collections.unmodifiableMap(stored);}
+
+	/**
+	 * Settings sent with ^S(, "CLE,T" to "25.0" for example
+	 * @return
+	 */
+	public Map<String, String> getSettings() {return Collections.unmodifiableMap(settings);}
+
+	/**
+	 * Changes a setting the way someone at the printer's panel would, nothing is counted as received
+	 * @param key CLE,T for example
+	 * @param value
+	 */
+	public void setSetting(String key, String value) {settings.put(key, value);}
+
+	/**
+	 * Every ^S( received, in order, "CLE,T,25.0" for example. Kept when cleared, like the counters.
+	 * @return
+	 */
+	public List<String> getSettingsReceived() {return Collections.unmodifiableList(settingsReceived);}
+
+	public long getConnectionsAccepted() {return connectionsAccepted.get();}
+
+	public long getConnectionsDropped() {return connectionsDropped.get();}
+
+	public int getOpenConnections() {return connections.size();}
+
+	public long getBytesReceived() {return bytesReceived.get();}
+
+	public long getLabelsPrinted() {return labelsPrinted.get();}
+
+	public long getUploads() {return uploads.get();}
+
+	public long getDeletes() {return deletes.get();}
+
+	/**
+	 * Recalls of a graphic that wasn't stored, each one would have been a blank badge
+	 * @return
+	 */
+	public long getMissingRecalls() {return missingRecalls.get();}
+
+	public long getQueriesAnswered() {return queriesAnswered.get();}
+
+	public long getCalibrations() {return calibrations.get();}
+
+	/**
+	 * ^JUS received, settings written to non-volatile memory
+	 * @return
+	 */
+	public long getSaves() {return saves.get();}
+
+	@Override
+	public String toString(){
+		return "Simulated printer :" + getPort() + " connections=" + connectionsAccepted + " dropped=" + connectionsDropped +
+				" bytes=" + bytesReceived + " labels=" + labelsPrinted + " uploads=" + uploads + " deletes=" + deletes +
+				" missingRecalls=" + missingRecalls + " stored=" + stored.size() + " queries=" + queriesAnswered;
+	}
+
+
+	/**
+	 * Counts what comes in off the socket
+	 */
+	private final class CountingInputStream extends InputStream{
+
+		private final InputStream in;
+
+		CountingInputStream(InputStream in){
+			this.in = in;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = in.read();
+			if(b >= 0) {
+				bytesReceived.incrementAndGet();
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int n = in.read(b, off, len);
+			if(n > 0) {
+				bytesReceived.addAndGet(n);
+			}
+			return n;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			long skipped = in.skip(n);
+			bytesReceived.addAndGet(skipped);
+			return skipped;
+		}
+	}
+
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright 2025 Robert James Drabant II, ThinkREG
+ * https://www.linkedin.com/in/robert-drabant/
+ *
+ * This code was independently developed by ThinkREG for use with Epson printer ColorWorks CW-C4000.
+ * Neither ThinkREG or Epson America, Inc. provide any warranties or support for this code.
+ * “Epson” is the registered trademark of Epson America, Inc. and its affiliates in the
+ * United States and other countries. Epson reserves all rights to its trademarks.
+ * Epson and ThinkREG are independent companies.
+ *
+ * From the author, this was created because I wanted a cleaner way to print to our Epsons we use in
+ * conference and event management. We have mostly 4000s, but this should
+ * work with any Epson that supports ZPLII/ESC. I also want to thank team
+ * members at Epson for their support.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.thinkreg.print;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * The printer's replies come back in whatever pieces TCP hands us, so these feed the reader from a
+ * loopback socket a few bytes at a time, cut in the middle of frames.
+ */
+public class EpsonZplReplyReaderTest{
+
+	private static final String STATUS = frame("^S(SEA,E,NE") + frame("IQ,RH,RM,RL,RN") + frame("MN,RM") + frame("^S(IMF,V,1.23");
+
+	private final List<AutoCloseable> open = new ArrayList<AutoCloseable>();
+
+
+	@AfterEach
+	void closeSockets() throws Exception {
+		for(AutoCloseable closeable: open) {
+			closeable.close();
+		}
+	}
+
+
+	@Test
+	void readsFramesSplitAcrossReads() throws Exception {
+
+		EpsonZplPrinterResponse response = new EpsonZplPrinterResponse();
+		EpsonZplReplyReader reader = reader(EpsonZplReplyReader.STATUS_QUERY.SEA, EpsonZplReplyReader.STATUS_QUERY.QIQ, 
+				EpsonZplReplyReader.STATUS_QUERY.QMN, EpsonZplReplyReader.STATUS_QUERY.IMF);
+
+		reader.read(connect(false, split(STATUS, 1, 2, 3, 5, 7, 11)), response);
+
+		assertStatus(reader, response);
+	}
+
+	@Test
+	void readsOneByteAtATime() throws Exception {
+
+		EpsonZplPrinterResponse response = new EpsonZplPrinterResponse();
+		EpsonZplReplyReader reader = reader(EpsonZplReplyReader.STATUS_QUERY.SEA, EpsonZplReplyReader.STATUS_QUERY.QIQ, 
+				EpsonZplReplyReader.STATUS_QUERY.QMN, EpsonZplReplyReader.STATUS_QUERY.IMF);
+
+		reader.read(connect(false, split(STATUS, 1)), response);
+
+		assertStatus(reader, response);
+	}
+
+	@Test
+	void matchesRepliesOutOfOrderAndSkipsOnesNotAskedFor() throws Exception {
+
+		String replies = "\r\n" + frame("^S(IMF,V,1.23") + frame("^S(XYZ,A,1") + frame("MN,RM") + frame("IQ,RH,RM,RL,RN") + 
+				frame("^S(CLE,T,2") + frame("^S(SEA,E,NE");
+
+		EpsonZplPrinterResponse response = new EpsonZplPrinterResponse();
+		EpsonZplReplyReader reader = reader(EpsonZplReplyReader.STATUS_QUERY.SEA, EpsonZplReplyReader.STATUS_QUERY.QIQ, 
+				EpsonZplReplyReader.STATUS_QUERY.QMN, EpsonZplReplyReader.STATUS_QUERY.IMF);
+		reader.expectSettings(Collections.singletonList("CLE,T"));
+
+		reader.read(connect(false, split(replies, 4, 9)), response);
+
+		assertStatus(reader, response);
+		assertEquals("2", response.getSettings().get("CLE,T"));
+		assertEquals(6, reader.getFramesRead());
+	}
+
+	@Test
+	void errorCodeIsReadFromTheReply() throws Exception {
+
+		EpsonZplPrinterResponse response = new EpsonZplPrinterResponse();
+		EpsonZplReplyReader reader = reader(EpsonZplReplyReader.STATUS_QUERY.SEA);
+
+		reader.read(connect(false, split(frame("^S(SEA,E,SJ"), 6)), response);
+
+		assertEquals(EpsonZplPrinterResponse.ERROR_CODE.SJ, response.getErrorCode());
+	}
+
+	@Test
+	void stopsWhenThePrinterGoesQuietPartWay() throws Exception {
+
+		EpsonZplPrinterResponse response = new EpsonZplPrinterResponse();
+		EpsonZplReplyReader reader = reader(EpsonZplReplyReader.STATUS_QUERY.SEA, EpsonZplReplyReader.STATUS_QUERY.QIQ);
+		reader.setIdleReadTimeoutMillis(100);
+
+		reader.read(connect(false, split(frame("^S(SEA,E,NE"), 3)), response);
+
+		assertFalse(reader.isComplete());
+		assertEquals(1, reader.getFramesRead());
+		assertEquals(EpsonZplPrinterResponse.ERROR_CODE.NE, response.getErrorCode());
+	}
+
+	@Test
+	void hangingUpWithoutAnsweringIsAnError() throws Exception {
+
+		EpsonZplReplyReader reader = reader(EpsonZplReplyReader.STATUS_QUERY.SEA);
+
+		assertThrows(EOFException.class, () -> reader.read(connect(true), new EpsonZplPrinterResponse()));
+	}
+
+	@Test
+	void neverAnsweringTimesOut() throws Exception {
+
+		EpsonZplReplyReader reader = reader(EpsonZplReplyReader.STATUS_QUERY.SEA);
+		reader.setIdleReadTimeoutMillis(50);
+		reader.setFirstReplyTimeoutMillis(200);
+
+		assertThrows(SocketTimeoutException.class, () -> reader.read(connect(false), new EpsonZplPrinterResponse()));
+	}
+
+	@Test
+	void storedGraphicCountIsTheLastFieldOfTheSecondHostStatusFrame() throws Exception {
+
+		String hostStatus = frame("030,0,0,0245,000,0,0,0,000,0,0,0") + "\r\n" + frame("000,0,0,0,0,2,4,0,00000000,1,007") + "\r\n" + 
+				frame("1234,0") + "\r\n";
+
+		assertEquals(7, EpsonZplReplyReader.readStoredGraphicCount(connect(false, split(hostStatus, 5, 13)), 2000));
+	}
+
+	@Test
+	void storedGraphicCountIsUnknownWithoutAnAnswer() throws Exception {
+		assertEquals(-1, EpsonZplReplyReader.readStoredGraphicCount(connect(false), 100));
+		assertEquals(-1, EpsonZplReplyReader.readStoredGraphicCount(connect(true), 100));
+		assertEquals(-1, EpsonZplReplyReader.readStoredGraphicCount(connect(false, frame("1") + frame("0,0,ABC") + frame("2")), 1000));
+	}
+
+
+	private static void assertStatus(EpsonZplReplyReader reader, EpsonZplPrinterResponse response) {
+		assertTrue(reader.isComplete());
+		assertTrue(reader.getFirstReplyAt() > 0L);
+		assertEquals(EpsonZplPrinterResponse.ERROR_CODE.NE, response.getErrorCode());
+		assertEquals("RH", response.getBlack());
+		assertEquals("RM", response.getCyan());
+		assertEquals("RL", response.getMagenta());
+		assertEquals("RN", response.getYellow());
+		assertEquals("RM", response.getMaintenance());
+		assertEquals("1.23", response.getFirmware());
+	}
+
+	private static EpsonZplReplyReader reader(EpsonZplReplyReader.STATUS_QUERY... sent) {
+		return new EpsonZplReplyReader(Arrays.asList(sent));
+	}
+
+	private static String frame(String reply) {
+		return "\u0002" + reply + "\u0003\r\n";
+	}
+
+	/**
+	 * Cuts the text into pieces of these sizes, the last size repeating until it runs out
+	 */
+	private static List<byte[]> split(String text, int... sizes) {
+		byte[] bytes = text.getBytes(StandardCharsets.ISO_8859_1);
+		List<byte[]> pieces = new ArrayList<byte[]>();
+		int offset = 0;
+		for(int i = 0; offset < bytes.length; i++) {
+			int size = Math.min(sizes[Math.min(i, sizes.length - 1)], bytes.length - offset);
+			pieces.add(Arrays.copyOfRange(bytes, offset, offset + size));
+			offset += size;
+		}
+		return pieces;
+	}
+
+	private static List<byte[]> split(String text) {
+		return split(text, Integer.MAX_VALUE);
+	}
+
+	private EpsonZplConnection connect(boolean hangUp) throws IOException {
+		return connect(hangUp, Collections.<byte[]>emptyList());
+	}
+
+	private EpsonZplConnection connect(boolean hangUp, String replies) throws IOException {
+		return connect(hangUp, split(replies));
+	}
+
+	/**
+	 * A printer on a loopback port that sends these pieces, each in a write of its own, and then
+	 * either hangs up or keeps the connection open
+	 */
+	private EpsonZplConnection connect(boolean hangUp, List<byte[]> pieces) throws IOException {
+
+		ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+		open.add(server);
+
+		Thread printer = new Thread(() -> {
+			try {
+				Socket socket = server.accept();
+				open.add(socket);
+				socket.setTcpNoDelay(true);
+				OutputStream out = socket.getOutputStream();
+				for(byte[] piece: pieces) {
+					out.write(piece);
+					out.flush();
+					Thread.sleep(2);	//so the pieces arrive as separate reads
+				}
+				if(hangUp) {
+					socket.close();
+				}
+			}catch(Exception ex) {
+				//the test has finished with it
+			}
+		}, "EpsonZplReplyReaderTest-printer");
+		printer.setDaemon(true);
+		printer.start();
+
+		Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getLocalPort());
+		open.add(socket);
+		return new EpsonZplConnection(socket);
+	}
+
+}
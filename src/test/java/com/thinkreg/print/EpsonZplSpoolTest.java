@@ -0,0 +1,325 @@
+/*
+ * Copyright 2025 Robert James Drabant II, ThinkREG
+ * https://www.linkedin.com/in/robert-drabant/
+ *
+ * This code was independently developed by ThinkREG for use with Epson printer ColorWorks CW-C4000.
+ * Neither ThinkREG or Epson America, Inc. provide any warranties or support for this code.
+ * “Epson” is the registered trademark of Epson America, Inc. and its affiliates in the
+ * United States and other countries. Epson reserves all rights to its trademarks.
+ * Epson and ThinkREG are independent companies.
+ *
+ * From the author, this was created because I wanted a cleaner way to print to our Epsons we use in
+ * conference and event management. We have mostly 4000s, but this should
+ * work with any Epson that supports ZPLII/ESC. I also want to thank team
+ * members at Epson for their support.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.thinkreg.print;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+/**
+ * A spool that's opened again without being closed is what a JVM that died looks like, so most of
+ * these write a few labels, walk away from the spool and open the directory again.
+ */
+public class EpsonZplSpoolTest{
+
+	//small, so opening a spool doesn't zero out 64MB
+	private static final long SEGMENT_SIZE = 64 * 1024;
+
+	@TempDir
+	Path directory;
+
+	private EpsonZplPrinterSimulator printer;
+	private EpsonZplPrintJob job;
+	private final List<EpsonZplSpool> spools = new ArrayList<EpsonZplSpool>();
+
+
+	@BeforeEach
+	void startPrinter() throws IOException {
+		printer = new EpsonZplPrinterSimulator(0).start();
+		job = new EpsonZplPrintJob("127.0.0.1", printer.getPort());
+	}
+
+	@AfterEach
+	void stopPrinter() {
+		printer.stop();
+		for(EpsonZplSpool spool: spools) {
+			spool.close();
+		}
+	}
+
+
+	@Test
+	void pendingLabelsAreThereWhenItsOpenedAgain() throws Exception {
+
+		EpsonZplSpool spool = open(directory);
+		long first = append(spool, 1);
+		long second = append(spool, 2);
+		long third = append(spool, 3);
+		spool.complete(second);
+
+		EpsonZplSpool reopened = open(directory);
+
+		assertEquals(2, reopened.getRecovered());
+		assertEquals(ids(first, third), ids(reopened.getPending()));
+		assertArrayEquals(label(1).getGraphic().getUpload(), reopened.getPending().get(0).getGraphic().getUpload());
+		assertArrayEquals(label(3).getGraphic().getUpload(), reopened.getPending().get(1).getGraphic().getUpload());
+		assertEquals(printer.getPort(), reopened.getPending().get(0).getPort());
+
+		//new ids carry on from the old ones
+		assertTrue(append(reopened, 4) > third);
+	}
+
+	@Test
+	void recordCutOffPartWayIsDropped() throws Exception {
+
+		EpsonZplSpool spool = open(directory);
+		long first = append(spool, 1);
+		long second = append(spool, 2);
+		append(spool, 3);
+		spool.force();
+
+		Path segment = segments(directory).get(0);
+		byte[] bytes = Files.readAllBytes(segment);
+		List<Integer> records = recordStarts(bytes);
+		assertEquals(3, records.size());
+
+		//the file ends half way through the third record
+		Path truncated = Files.createDirectory(directory.resolve("truncated"));
+		int length = ByteBuffer.wrap(bytes).getInt(records.get(2));
+		Files.write(truncated.resolve(segment.getFileName()), Arrays.copyOf(bytes, records.get(2) + (4 + length) / 2));
+		assertEquals(ids(first, second), ids(open(truncated).getPending()));
+
+		//the third record's bytes are there but one of them was never written, its crc doesn't match
+		Path torn = Files.createDirectory(directory.resolve("torn"));
+		byte[] copy = bytes.clone();
+		copy[records.get(2) + 40] ^= 0x5A;
+		Files.write(torn.resolve(segment.getFileName()), copy);
+		EpsonZplSpool recovered = open(torn);
+		assertEquals(ids(first, second), ids(recovered.getPending()));
+
+		//and the spool carries on from there
+		long next = append(recovered, 4);
+		assertEquals(ids(first, second, next), ids(open(torn).getPending()));
+	}
+
+	@Test
+	void replaySendsWhatWasRecoveredAndNotWhatsInFlight() throws Exception {
+
+		EpsonZplSpool spool = open(directory);
+		append(spool, 1);
+		append(spool, 2);
+
+		EpsonZplSpool reopened = open(directory);
+		long inFlight = append(reopened, 3);
+
+		List<EpsonZplLabelResult> results = reopened.replay();
+
+		assertEquals(2, results.size());
+		assertTrue(results.get(0).isSuccess());
+		assertTrue(results.get(1).isSuccess());
+		assertEquals(2, printer.getLabelsPrinted());
+		assertEquals(ids(inFlight), ids(reopened.getPending()));
+
+		//nothing left to replay, the label in flight is its batch's to finish
+		assertTrue(reopened.replay().isEmpty());
+		assertEquals(2, printer.getLabelsPrinted());
+	}
+
+	@Test
+	void labelsThatDontPrintAreKeptForTheNextReplay() throws Exception {
+
+		EpsonZplSpool spool = open(directory);
+		long first = append(spool, 1);
+
+		EpsonZplSpool reopened = open(directory);
+		printer.setErrorCode(EpsonZplPrinterResponse.ERROR_CODE.SJ);
+
+		List<EpsonZplLabelResult> failed = reopened.replay();
+		assertEquals(1, failed.size());
+		assertFalse(failed.get(0).isSuccess());
+		assertEquals(ids(first), ids(reopened.getPending()));
+
+		printer.setErrorCode(EpsonZplPrinterResponse.ERROR_CODE.NE);
+
+		List<EpsonZplLabelResult> printed = reopened.replay();
+		assertEquals(1, printed.size());
+		assertTrue(printed.get(0).isSuccess());
+		assertEquals(0, reopened.getPendingCount());
+		assertEquals(0, open(directory).getPendingCount());
+	}
+
+	@Test
+	void closeWaitsForBatchesStillPrinting() throws Exception {
+
+		EpsonZplSpool spool = open(directory);
+		EpsonZplSpool.Batch batch = spool.startBatch();
+		batch.append(0, job.getIp(), job.getPort(), 0, label(1));
+
+		Thread closing = new Thread(spool::close, "EpsonZplSpoolTest-close");
+		closing.start();
+		closing.join(200);
+		assertTrue(closing.isAlive(), "close didn't wait for the open batch");
+
+		//a batch started while closing isn't spooled, and isn't waited for
+		EpsonZplSpool.Batch late = spool.startBatch();
+		late.append(0, job.getIp(), job.getPort(), 0, label(2));
+		assertTrue(late.getFailures().containsKey(0));
+		late.close();
+
+		batch.close();
+		closing.join(5000);
+		assertFalse(closing.isAlive());
+		assertTrue(batch.getFailures().isEmpty());
+
+		assertEquals(0, open(directory).getPendingCount());
+	}
+
+	@Test
+	void completingOnceClosedLeavesTheLabelPending() throws Exception {
+
+		EpsonZplSpool spool = open(directory);
+		long id = append(spool, 1);
+		spool.close();
+
+		assertThrows(IOException.class, () -> spool.complete(id));
+		assertThrows(IOException.class, () -> append(spool, 2));
+		assertEquals(ids(id), ids(open(directory).getPending()));
+	}
+
+	@Test
+	void finishedSegmentsAreDeleted() throws Exception {
+
+		EpsonZplSpool spool = open(directory, 4096);
+		List<Long> ids = new ArrayList<Long>();
+		for(int i = 0; i < 6; i++) {
+			ids.add(append(spool, i));
+		}
+		assertTrue(spool.getSegmentCount() > 1, "labels should not all fit in one 4K segment");
+
+		for(Long id: ids) {
+			spool.complete(id);
+		}
+
+		assertEquals(1, spool.getSegmentCount());
+		assertEquals(1, segments(directory).size());
+		assertEquals(0, open(directory, 4096).getPendingCount());
+	}
+
+
+	/**
+	 * Opens a spool that's closed after the test, walking away from one is left to the test
+	 */
+	private EpsonZplSpool open(Path directory) throws IOException {
+		return open(directory, SEGMENT_SIZE);
+	}
+
+	private EpsonZplSpool open(Path directory, long segmentSize) throws IOException {
+		EpsonZplSpool spool = EpsonZplSpool.open(directory, segmentSize);
+		spools.add(spool);
+		return spool;
+	}
+
+	private long append(EpsonZplSpool spool, int badge) throws IOException {
+		return spool.append(job.getIp(), job.getPort(), 0, label(badge));
+	}
+
+	private EpsonZplPrintJob.EncodedGraphic label(int badge) throws IOException {
+
+		BufferedImage image = new BufferedImage(300, 120, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = image.createGraphics();
+		g.setColor(Color.WHITE);
+		g.fillRect(0, 0, 300, 120);
+		g.setColor(new Color(badge * 40 % 256, 60, 160));
+		g.fillRect(0, 0, 300, 24);
+		g.setColor(Color.BLACK);
+		g.drawString("Attendee " + badge, 20, 70);
+		g.dispose();
+
+		return job.encodeResidentGraphic(image);
+	}
+
+	private static List<Long> ids(long... ids) {
+		List<Long> list = new ArrayList<Long>();
+		for(long id: ids) {
+			list.add(id);
+		}
+		return list;
+	}
+
+	private static List<Long> ids(List<EpsonZplSpool.Entry> entries) {
+		List<Long> list = new ArrayList<Long>();
+		for(EpsonZplSpool.Entry entry: entries) {
+			list.add(entry.getId());
+		}
+		return list;
+	}
+
+	private static List<Path> segments(Path directory) throws IOException {
+		List<Path> paths = new ArrayList<Path>();
+		try(DirectoryStream<Path> files = Files.newDirectoryStream(directory, "spool-*.log")) {
+			for(Path path: files) {
+				paths.add(path);
+			}
+		}
+		Collections.sort(paths);
+		return paths;
+	}
+
+	/**
+	 * Where each record starts in a segment: an 8 byte header, then length, record, crc until a
+	 * length of 0
+	 */
+	private static List<Integer> recordStarts(byte[] segment) {
+		ByteBuffer buffer = ByteBuffer.wrap(segment);
+		List<Integer> starts = new ArrayList<Integer>();
+		int position = 8;
+		while(position + 4 <= segment.length) {
+			int length = buffer.getInt(position);
+			if(length <= 0) {
+				break;
+			}
+			starts.add(position);
+			position += 4 + length + 4;
+		}
+		return starts;
+	}
+
+}
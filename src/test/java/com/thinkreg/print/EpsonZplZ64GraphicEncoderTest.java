@@ -0,0 +1,166 @@
+/*
+ * Copyright 2025 Robert James Drabant II, ThinkREG
+ * https://www.linkedin.com/in/robert-drabant/
+ *
+ * This code was independently developed by ThinkREG for use with Epson printer ColorWorks CW-C4000.
+ * Neither ThinkREG or Epson America, Inc. provide any warranties or support for this code.
+ * “Epson” is the registered trademark of Epson America, Inc. and its affiliates in the
+ * United States and other countries. Epson reserves all rights to its trademarks.
+ * Epson and ThinkREG are independent companies.
+ *
+ * From the author, this was created because I wanted a cleaner way to print to our Epsons we use in
+ * conference and event management. We have mostly 4000s, but this should
+ * work with any Epson that supports ZPLII/ESC. I also want to thank team
+ * members at Epson for their support.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.thinkreg.print;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.zip.Inflater;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * The printer rejects a ~DG whose CRC-16 doesn't match, or whose sizes don't add up, so those are
+ * checked against known values and by taking the upload apart again.
+ */
+public class EpsonZplZ64GraphicEncoderTest{
+
+	@Test
+	void crc16MatchesXmodemCheckValues() {
+		assertEquals(0x0000, EpsonZplZ64GraphicEncoder.crc16(new byte[0]));
+		assertEquals(0x31C3, EpsonZplZ64GraphicEncoder.crc16(ascii("123456789")));
+		assertEquals(0x58E5, EpsonZplZ64GraphicEncoder.crc16(ascii("A")));
+		assertEquals(0x1D0F, EpsonZplZ64GraphicEncoder.crc16(new byte[] {(byte) 0xFF, (byte) 0xFF}));
+	}
+
+	@Test
+	void uploadInflatesBackToTheBitmap() throws Exception {
+
+		//21 dots wide, so each row is 3 bytes with 3 bits of padding
+		BufferedImage image = new BufferedImage(21, 5, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = image.createGraphics();
+		g.setColor(Color.WHITE);
+		g.fillRect(0, 0, 21, 4);
+		g.dispose();
+		image.setRGB(0, 0, 0xFF000000);
+		image.setRGB(8, 1, 0xFF000000);
+		image.setRGB(20, 2, 0xFF000000);
+		image.setRGB(5, 3, 0xFF202020);	//dark enough to print
+		image.setRGB(6, 3, 0xFFA0A0A0);	//too light
+		//row 4 is left transparent, which prints white
+
+		EpsonZplGraphic graphic = new EpsonZplZ64GraphicEncoder().encode(image, "TEST");
+
+		String upload = new String(graphic.getUpload(), StandardCharsets.US_ASCII);
+		assertTrue(upload.startsWith("~DGR:TEST.GRF,15,3,:Z64:"), upload);
+		assertEquals("R:TEST.GRF", graphic.getName());
+		assertEquals("^XGR:TEST.GRF,1,1", graphic.getRecallCommand());
+		assertEquals(15, graphic.getStoredSize());
+
+		String data = upload.substring("~DGR:TEST.GRF,15,3,:Z64:".length());
+		int colon = data.lastIndexOf(':');
+		byte[] base64 = ascii(data.substring(0, colon));
+		assertEquals(String.format("%04X", EpsonZplZ64GraphicEncoder.crc16(base64)), data.substring(colon + 1).toUpperCase());
+
+		byte[] expected = {
+				(byte) 0x80, 0x00, 0x00,
+				0x00, (byte) 0x80, 0x00,
+				0x00, 0x00, 0x08,
+				0x04, 0x00, 0x00,
+				0x00, 0x00, 0x00};
+		assertArrayEquals(expected, inflate(Base64.getDecoder().decode(base64)));
+	}
+
+	@Test
+	void onlyPureBlackAndWhiteCounts() {
+
+		BufferedImage image = new BufferedImage(4, 4, BufferedImage.TYPE_INT_ARGB);
+		image.setRGB(0, 0, 0xFF000000);
+		image.setRGB(1, 0, 0xFFFFFFFF);
+		image.setRGB(2, 0, 0x00123456);	//transparent, doesn't print
+		assertTrue(EpsonZplZ64GraphicEncoder.isBlackAndWhite(image));
+
+		image.setRGB(3, 3, 0xFF808080);
+		assertFalse(EpsonZplZ64GraphicEncoder.isBlackAndWhite(image));
+	}
+
+	@Test
+	void partlyTransparentBlackIsNotBlackAndWhite() {
+
+		BufferedImage image = new BufferedImage(2, 1, BufferedImage.TYPE_INT_ARGB);
+		image.setRGB(0, 0, 0xFFFFFFFF);
+		image.setRGB(1, 0, 0x80000000);	//half alpha black comes out grey
+		assertFalse(EpsonZplZ64GraphicEncoder.isBlackAndWhite(image));
+	}
+
+	@Test
+	void autoOnlyUsesZ64ForBlackAndWhite() throws Exception {
+
+		EpsonZplAutoGraphicEncoder auto = new EpsonZplAutoGraphicEncoder(new EpsonZplPngEncoder());
+
+		BufferedImage text = new BufferedImage(600, 200, BufferedImage.TYPE_BYTE_BINARY);
+		Graphics2D g = text.createGraphics();
+		g.setColor(Color.WHITE);
+		g.fillRect(0, 0, 600, 200);
+		g.setColor(Color.BLACK);
+		g.drawString("SPEAKER", 20, 100);
+		g.dispose();
+		assertEquals(EpsonZplZ64GraphicEncoder.NAME, auto.encode(text, "TEXT").getEncoding());
+
+		BufferedImage colour = new BufferedImage(600, 200, BufferedImage.TYPE_INT_RGB);
+		colour.setRGB(10, 10, 0xFF3366CC);
+		assertFalse(EpsonZplZ64GraphicEncoder.NAME.equals(auto.encode(colour, "COLOUR").getEncoding()));
+	}
+
+
+	private static byte[] ascii(String value) {
+		return value.getBytes(StandardCharsets.US_ASCII);
+	}
+
+	private static byte[] inflate(byte[] data) throws Exception {
+		Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(data);
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] chunk = new byte[1024];
+			while(!inflater.finished()) {
+				int n = inflater.inflate(chunk);
+				if(n == 0 && inflater.needsInput()) {
+					break;
+				}
+				out.write(chunk, 0, n);
+			}
+			assertTrue(inflater.finished(), "deflate stream wasn't finished");
+			return out.toByteArray();
+		}finally {
+			inflater.end();
+		}
+	}
+
+}